@@ -0,0 +1,53 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * This class runs the benchmarks from benchmarks.jar. It takes the usual JMH options, but
+ * unless told otherwise writes the results as JSON to target/jmh-result.json, so results from
+ * different releases can be compared.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class BenchmarkMain {
+
+	/**
+	 * Where the results go if no result file is given.
+	 */
+	public static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args)
+			throws CommandLineOptionException, RunnerException, IOException {
+
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+				|| commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT);
+		}
+
+		new Runner(options.build()).run();
+	}
+}
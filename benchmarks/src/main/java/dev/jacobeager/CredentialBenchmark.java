@@ -0,0 +1,108 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Benchmarks what the login screen does: loading every account, looking up whether a
+ * username is taken, and checking a password (which is slow on purpose).
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CredentialBenchmark {
+
+	// Usernames looked up per invocation
+	private static final int LOOKUPS = 1024;
+
+	/**
+	 * The number of accounts.
+	 */
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int rows;
+
+	private Path directory;
+	private String recordPath, textPath;
+	private CredentialStore store;
+
+	// Usernames to look up, about half of them taken
+	private String[] usernames;
+
+	// An account whose password is known
+	private final char[] password = "benchmark".toCharArray();
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, InvalidFormatException {
+
+		SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+		directory = SyntheticData.tempDirectory("credentials");
+		recordPath = directory.resolve("credentials.dat").toString();
+		textPath = directory.resolve("loginDetails.txt").toString();
+
+		SyntheticData.writeCredentials(directory.resolve("credentials.dat").toFile(), rows, random);
+		store = new CredentialStore(recordPath, textPath);
+		store.add("known", password);
+
+		usernames = new String[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; ++i) {
+			usernames[i] = (random.nextBoolean() ? "account" : "missing") + random.nextInt(rows);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		SyntheticData.delete(directory);
+	}
+
+	/**
+	 * Loads every account from the record file.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public CredentialStore load() throws IOException, InvalidFormatException {
+		return new CredentialStore(recordPath, textPath);
+	}
+
+	/**
+	 * Checks whether each username is taken.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int contains() {
+		int taken = 0;
+		for (String username : usernames) {
+			if (store.contains(username)) {
+				++taken;
+			}
+		}
+		return taken;
+	}
+
+	/**
+	 * Checks a password, which hashes it. This doesn't depend on the number of accounts.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean verify() {
+		return store.verify("known", password);
+	}
+}
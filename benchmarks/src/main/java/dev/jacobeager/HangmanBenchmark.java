@@ -0,0 +1,93 @@
+package dev.jacobeager;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmarks a whole round of hangman: guessing letters and updating the underscores shown
+ * after each one (what updateUnderscores did), for the classic game and for evil hangman,
+ * which keeps every word that fits the guesses so far.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HangmanBenchmark {
+
+	// Letters guessed in each round, most common first
+	private static final String GUESSES = "etaoinshrdlucmfwypvbgkjqxz";
+
+	// Length of the words evil hangman plays with
+	private static final int EVIL_LENGTH = 8;
+
+	/**
+	 * The number of words in the word bank.
+	 */
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int rows;
+
+	private ArrayList<String> words;
+	private WordIndex index;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		words = SyntheticData.words(rows, 4, 12, new SplittableRandom(SyntheticData.SEED));
+		index = new WordIndex(words);
+	}
+
+	/**
+	 * Plays a classic round to the end, building the pattern after every guess.
+	 */
+	@Benchmark
+	public int classicRound() {
+		next = (next + 1) % rows;
+		return playRound(new HangmanState(words.get(next)));
+	}
+
+	/**
+	 * Plays an evil round to the end, building the pattern after every guess.
+	 */
+	@Benchmark
+	public int evilRound() {
+		return playRound(EvilHangman.forLength(index, EVIL_LENGTH));
+	}
+
+	/**
+	 * Builds the word index, as happens when the word bank changes.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public WordIndex buildIndex() {
+		return new WordIndex(words);
+	}
+
+	/**
+	 * Guesses letters until the round is over.
+	 * @param round the round
+	 * @return the total length of the patterns shown
+	 */
+	private static int playRound(HangmanRound round) {
+		int shown = 0;
+		for (int i = 0; i < GUESSES.length() && !round.isWon() && !round.isLost(); ++i) {
+			round.guess(GUESSES.charAt(i));
+			shown += round.getPattern().length();
+		}
+		return shown;
+	}
+}
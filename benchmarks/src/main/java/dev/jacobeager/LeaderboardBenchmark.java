@@ -0,0 +1,107 @@
+package dev.jacobeager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Benchmarks what the leaderboard window does for each tab: reading the best scores from
+ * the sorted index (getScoreboardText), rebuilding the index from the log, finding the
+ * user's rank by scanning every score (getRankText) and ranking rows (sortScores).
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LeaderboardBenchmark {
+
+	/**
+	 * The number of scores in the log.
+	 */
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int rows;
+
+	private Path directory;
+	private File indexFile;
+	private LeaderboardStore store;
+	private HighScore[] scores;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, InvalidFormatException {
+
+		SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+		directory = SyntheticData.tempDirectory("leaderboard");
+		String basePath = directory.resolve("leaderboard").toString();
+		indexFile = new File(basePath + ".idx");
+
+		store = new LeaderboardStore(basePath);
+		SyntheticData.fillLeaderboard(store, rows, random);
+
+		scores = new HighScore[rows];
+		for (int row = 0; row < rows; ++row) {
+			scores[row] = new HighScore(SyntheticData.username(row), random.nextInt(100_000));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		SyntheticData.delete(directory);
+	}
+
+	/**
+	 * Reads the rows shown on a tab from an up to date index.
+	 */
+	@Benchmark
+	public ArrayList<HighScore> topFromIndex() throws IOException, InvalidFormatException {
+		return store.top(100);
+	}
+
+	/**
+	 * Rebuilds the index from the whole log, like the first time a leaderboard is opened.
+	 */
+	@Benchmark
+	public ArrayList<HighScore> topRebuildingIndex() throws IOException, InvalidFormatException {
+		indexFile.delete();
+		return store.top(100);
+	}
+
+	/**
+	 * Finds a user's rank by scanning every score in the log.
+	 */
+	@Benchmark
+	public int rankByScan() throws IOException, InvalidFormatException {
+		ScoreRanking ranking = new ScoreRanking(0);
+		store.scan(ranking);
+		return ranking.rankOf(SyntheticData.username(0));
+	}
+
+	/**
+	 * Ranks every row in memory and writes out the best 100, like sortScores.
+	 */
+	@Benchmark
+	public int sortScores() {
+		ScoreRanking ranking = new ScoreRanking(100);
+		for (HighScore score : scores) {
+			ranking.offer(score);
+		}
+		return ranking.appendTo(new StringBuilder()).length();
+	}
+}
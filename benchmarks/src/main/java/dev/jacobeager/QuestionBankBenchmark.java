@@ -0,0 +1,88 @@
+package dev.jacobeager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Benchmarks loading the quiz bowl questions: parsing both question files, loading the
+ * binary snapshot instead, and turning a question into an object when it's asked.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QuestionBankBenchmark {
+
+	/**
+	 * The number of questions of each type.
+	 */
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int rows;
+
+	private Path directory;
+	private File multipleChoiceFile, textFile, snapshotFile, missingSnapshot;
+	private QuestionBank bank;
+	private SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, EmptyFileException, InvalidFormatException {
+
+		directory = SyntheticData.tempDirectory("questions");
+		multipleChoiceFile = directory.resolve("multipleChoice.txt").toFile();
+		textFile = directory.resolve("text.txt").toFile();
+		snapshotFile = directory.resolve("questions.bank").toFile();
+		missingSnapshot = directory.resolve("missing").resolve("questions.bank").toFile();
+
+		SyntheticData.writeQuestions(multipleChoiceFile, textFile, rows);
+		bank = QuestionBank.load(multipleChoiceFile, textFile, snapshotFile);
+		random = new SplittableRandom(SyntheticData.SEED);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		SyntheticData.delete(directory);
+	}
+
+	/**
+	 * Parses both question files. The snapshot can't be saved, so every call parses.
+	 */
+	@Benchmark
+	public QuestionBank parseText() throws IOException, EmptyFileException, InvalidFormatException {
+		return QuestionBank.load(multipleChoiceFile, textFile, missingSnapshot);
+	}
+
+	/**
+	 * Loads the questions from the snapshot.
+	 */
+	@Benchmark
+	public QuestionBank loadSnapshot() throws IOException, EmptyFileException, InvalidFormatException {
+		return QuestionBank.load(multipleChoiceFile, textFile, snapshotFile);
+	}
+
+	/**
+	 * Reads one random multiple choice question out of the bank.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public MultipleChoiceQuestion readQuestion() {
+		return bank.getMultipleChoice(random.nextInt(rows));
+	}
+}
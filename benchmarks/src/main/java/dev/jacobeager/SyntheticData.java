@@ -0,0 +1,166 @@
+package dev.jacobeager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+
+/**
+ * This class makes the files and word lists the benchmarks run against. Everything is made
+ * from a fixed seed, so each run of a benchmark sees the same data.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+final class SyntheticData {
+
+	/**
+	 * The seed every benchmark's data is made from.
+	 */
+	static final long SEED = 0x42474D48L;
+
+	// Record file header of CredentialStore ("BGCR")
+	private static final int CREDENTIAL_MAGIC = 0x42474352;
+
+	private SyntheticData() {
+	}
+
+	/**
+	 * Makes a username for a row number. Usernames repeat every thousand rows, like players
+	 * coming back to play again.
+	 * @param row the row number
+	 * @return the username
+	 */
+	static String username(int row) {
+		return "player" + (row % 1000);
+	}
+
+	/**
+	 * Makes distinct random lower case words.
+	 * @param count the number of words
+	 * @param minLength the shortest word
+	 * @param maxLength the longest word
+	 * @param random the random numbers to use
+	 * @return the words
+	 */
+	static ArrayList<String> words(int count, int minLength, int maxLength, SplittableRandom random) {
+
+		LinkedHashSet<String> words = new LinkedHashSet<String>(count * 2);
+		char[] letters = new char[maxLength];
+		while (words.size() < count) {
+			int length = random.nextInt(minLength, maxLength + 1);
+			for (int i = 0; i < length; ++i) {
+				letters[i] = (char) ('a' + random.nextInt(26));
+			}
+			words.add(new String(letters, 0, length));
+		}
+		return new ArrayList<String>(words);
+	}
+
+	/**
+	 * Fills a leaderboard store with random scores.
+	 * @param store the store
+	 * @param rows the number of scores
+	 * @param random the random numbers to use
+	 * @throws IOException if the store can't be written
+	 * @throws InvalidFormatException if the store is malformed
+	 */
+	static void fillLeaderboard(LeaderboardStore store, int rows, SplittableRandom random)
+			throws IOException, InvalidFormatException {
+
+		ArrayList<HighScore> batch = new ArrayList<HighScore>();
+		for (int row = 0; row < rows; ++row) {
+			batch.add(new HighScore(username(row), random.nextInt(100_000)));
+			if (batch.size() == 10_000 || row == rows - 1) {
+				store.appendBatch(batch, false);
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Writes question files in the format QuestionBank parses.
+	 * @param multipleChoiceFile where the multiple choice questions go
+	 * @param textFile where the text questions go
+	 * @param rows the number of questions of each type
+	 * @throws IOException if a file can't be written
+	 */
+	static void writeQuestions(File multipleChoiceFile, File textFile, int rows) throws IOException {
+
+		try (Writer outFS = Files.newBufferedWriter(multipleChoiceFile.toPath())) {
+			for (int row = 0; row < rows; ++row) {
+				outFS.write("What is question number " + row + "?\n");
+				for (int answer = 0; answer < 4; ++answer) {
+					outFS.write("Answer " + answer + " to question " + row + "\n");
+				}
+				outFS.write((char) ('A' + row % 4) + "\n");
+			}
+		}
+
+		try (Writer outFS = Files.newBufferedWriter(textFile.toPath())) {
+			for (int row = 0; row < rows; ++row) {
+				outFS.write("What is the answer to text question " + row + "?\n");
+				outFS.write("answer" + row + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Writes a CredentialStore record file with random salts and hashes, without hashing any
+	 * passwords, so large account files can be made quickly. Nobody can log in to these
+	 * accounts.
+	 * @param file the record file
+	 * @param rows the number of accounts, named account0, account1 and so on
+	 * @param random the random numbers to use
+	 * @throws IOException if the file can't be written
+	 */
+	static void writeCredentials(File file, int rows, SplittableRandom random) throws IOException {
+
+		ArrayList<byte[]> records = new ArrayList<byte[]>(rows);
+		byte[] saltAndHash = new byte[16 + 32];
+		for (int row = 0; row < rows; ++row) {
+			byte[] nameBytes = ("account" + row).getBytes(StandardCharsets.UTF_8);
+			random.nextBytes(saltAndHash);
+			ByteBuffer record = ByteBuffer.allocate(1 + nameBytes.length + saltAndHash.length);
+			record.put((byte) nameBytes.length).put(nameBytes).put(saltAndHash);
+			records.add(record.array());
+		}
+
+		WriteAheadLog.create(file, CREDENTIAL_MAGIC, records);
+	}
+
+	/**
+	 * Makes an empty directory for a benchmark's files.
+	 * @param name the start of the directory's name
+	 * @return the directory
+	 * @throws IOException if it can't be made
+	 */
+	static Path tempDirectory(String name) throws IOException {
+		return Files.createTempDirectory("brainGames-" + name);
+	}
+
+	/**
+	 * Deletes a directory made by tempDirectory and everything in it.
+	 * @param directory the directory
+	 * @throws IOException if it can't be deleted
+	 */
+	static void delete(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			List<Path> sorted = paths.sorted(Comparator.reverseOrder()).toList();
+			for (Path path : sorted) {
+				Files.delete(path);
+			}
+		}
+	}
+}
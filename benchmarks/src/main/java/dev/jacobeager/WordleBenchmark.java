@@ -0,0 +1,104 @@
+package dev.jacobeager;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmarks what Wordle does with each guess: checking the guess is a word and scoring it
+ * against the answer, along with building the scorer from a word bank.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WordleBenchmark {
+
+	// Guesses tried per invocation, so the loop overhead is spread out
+	private static final int GUESSES = 1024;
+
+	/**
+	 * The number of words in the word bank.
+	 */
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int rows;
+
+	private ArrayList<String> words;
+	private WordleScorer scorer;
+
+	// Guesses and answers, about half of the guesses real words
+	private int[] guessCodes;
+	private int[] answerCodes;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+		words = SyntheticData.words(rows, WordleScorer.WORD_LENGTH, WordleScorer.WORD_LENGTH, random);
+		scorer = new WordleScorer(words);
+
+		guessCodes = new int[GUESSES];
+		answerCodes = new int[GUESSES];
+		for (int i = 0; i < GUESSES; ++i) {
+			if (random.nextBoolean()) {
+				guessCodes[i] = WordleScorer.encode(words.get(random.nextInt(rows)));
+			}
+			else {
+				guessCodes[i] = WordleScorer.encode(SyntheticData.words(1, 5, 5, random).get(0));
+			}
+			answerCodes[i] = WordleScorer.encode(words.get(random.nextInt(rows)));
+		}
+	}
+
+	/**
+	 * Checks each guess is in the word bank.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(GUESSES)
+	public int validateGuess() {
+		int valid = 0;
+		for (int guess : guessCodes) {
+			if (scorer.isWord(guess)) {
+				++valid;
+			}
+		}
+		return valid;
+	}
+
+	/**
+	 * Scores each guess against an answer.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(GUESSES)
+	public int scoreGuess() {
+		int patterns = 0;
+		for (int i = 0; i < GUESSES; ++i) {
+			patterns += WordleScorer.score(guessCodes[i], answerCodes[i]);
+		}
+		return patterns;
+	}
+
+	/**
+	 * Builds the scorer from the word bank, as happens when the bank changes.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public WordleScorer buildScorer() {
+		return new WordleScorer(words);
+	}
+}
@@ -0,0 +1,101 @@
+package dev.jacobeager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * This class is a word bank read into memory. Instead of one String per word, every word is
+ * stored back to back in a single char array, with an array of offsets saying where each one
+ * starts. Strings are only made when a word is asked for.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class ArenaWordBank extends WordBank {
+	
+	/**
+	 * Every word, back to back.
+	 */
+	private final char[] arena;
+	
+	/**
+	 * Where each word starts in the arena. Word i ends where word i + 1 starts, so there is
+	 * one more offset than there are words.
+	 */
+	private final int[] offsets;
+	
+	private ArenaWordBank(char[] arena, int[] offsets) {
+		this.arena = arena;
+		this.offsets = offsets;
+	}
+	
+	/**
+	 * Reads the words out of the contents of a word bank file, one word per line.
+	 * @param contents the file's bytes, in UTF-8
+	 * @return the word bank
+	 */
+	public static ArenaWordBank parse(byte[] contents) {
+		
+		String text = new String(contents, StandardCharsets.UTF_8);
+		char[] arena = new char[text.length()];
+		int[] offsets = new int[16];
+		int count = 0;
+		int used = 0;
+		
+		int lineStart = 0;
+		while (lineStart < text.length()) {
+			int lineEnd = text.indexOf('\n', lineStart);
+			if (lineEnd < 0) {
+				lineEnd = text.length();
+			}
+			
+			// Trims the line without making a String of it
+			int start = lineStart, end = lineEnd;
+			while (start < end && Character.isWhitespace(text.charAt(start))) {
+				++start;
+			}
+			while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+				--end;
+			}
+			
+			if (start < end) {
+				if (count + 1 >= offsets.length) {
+					offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				}
+				offsets[count++] = used;
+				for (int i = start; i < end; ++i) {
+					arena[used++] = Character.toLowerCase(text.charAt(i));
+				}
+			}
+			lineStart = lineEnd + 1;
+		}
+		offsets[count] = used;
+		
+		return new ArenaWordBank(Arrays.copyOf(arena, used), Arrays.copyOf(offsets, count + 1));
+	}
+	
+	/**
+	 * Returns a word.
+	 * @param index the index of the word
+	 * @return the word
+	 */
+	@Override
+	public String get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return new String(arena, offsets[index], offsets[index + 1] - offsets[index]);
+	}
+	
+	@Override
+	public int size() {
+		return offsets.length - 1;
+	}
+	
+	@Override
+	public int lengthOf(int index) {
+		return offsets[index + 1] - offsets[index];
+	}
+}
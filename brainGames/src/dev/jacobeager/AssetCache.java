@@ -0,0 +1,151 @@
+package dev.jacobeager;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+
+/**
+ * This class loads every image the program shows once and keeps it for as long as the
+ * program runs. Each image is decoded, scaled to the size it's shown at, and copied into an
+ * image in the screen's own format, so drawing it later is a plain copy. warmUp loads them
+ * all on a background thread at startup so games don't have to wait on the disk.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class AssetCache {
+	
+	// Ids of the images
+	public static final int PROFILE = 0;
+	public static final int LEADERBOARD = 1;
+	public static final int HANGMAN_STAGE_0 = 2;
+	
+	/**
+	 * The number of hangman pictures, one for each number of incorrect guesses.
+	 */
+	public static final int HANGMAN_STAGES = HangmanState.MAX_INCORRECT + 1;
+	
+	// Where each image is and the size it's shown at, indexed by id
+	private static final String[] PATHS = new String[HANGMAN_STAGE_0 + HANGMAN_STAGES];
+	private static final int[] SIZES = new int[PATHS.length];
+	
+	static {
+		PATHS[PROFILE] = "resources\\images\\profile.png";
+		SIZES[PROFILE] = 36;
+		PATHS[LEADERBOARD] = "resources\\images\\leaderboard.png";
+		SIZES[LEADERBOARD] = 36;
+		for (int stage = 0; stage < HANGMAN_STAGES; ++stage) {
+			PATHS[HANGMAN_STAGE_0 + stage] = "resources\\images\\Hangman-" + stage + ".png";
+			SIZES[HANGMAN_STAGE_0 + stage] = 256;
+		}
+	}
+	
+	/**
+	 * The loaded images, or null for images that haven't been loaded yet.
+	 */
+	private static final ImageIcon[] icons = new ImageIcon[PATHS.length];
+	
+	// How long decoding and scaling an image takes, and how many couldn't be loaded
+	private static final LatencyHistogram LOADS = Metrics.histogram("load.image");
+	private static final LongAdder ERRORS = Metrics.counter("errors.image");
+	
+	private AssetCache() {
+	}
+	
+	/**
+	 * Starts loading every image on a background thread, title screen images first.
+	 */
+	public static void warmUp() {
+		Thread warmer = new Thread(() -> {
+			for (int id = 0; id < PATHS.length; ++id) {
+				get(id);
+			}
+		}, "AssetCache warm-up");
+		warmer.setDaemon(true);
+		warmer.start();
+	}
+	
+	/**
+	 * Returns an image, loading it if it hasn't been loaded. An image that can't be loaded
+	 * is shown as nothing.
+	 * @param id the id of the image
+	 * @return the image
+	 */
+	public static ImageIcon get(int id) {
+		
+		synchronized (icons) {
+			if (icons[id] == null) {
+				long start = System.nanoTime();
+				try {
+					icons[id] = new ImageIcon(load(PATHS[id], SIZES[id]));
+					LOADS.recordSince(start);
+				}
+				catch (IOException e) {
+					ERRORS.increment();
+					e.printStackTrace();
+					icons[id] = new ImageIcon();
+				}
+			}
+			return icons[id];
+		}
+	}
+	
+	/**
+	 * Returns the hangman picture for a number of incorrect guesses.
+	 * @param incorrectGuesses the number of incorrect guesses, from 0 to 6
+	 * @return the picture
+	 */
+	public static ImageIcon getHangmanStage(int incorrectGuesses) {
+		int stage = Math.max(0, Math.min(incorrectGuesses, HANGMAN_STAGES - 1));
+		return get(HANGMAN_STAGE_0 + stage);
+	}
+	
+	/**
+	 * Decodes an image and scales it into an image in the screen's format.
+	 * @param path the image file
+	 * @param size the width and height to show it at
+	 * @return the image
+	 * @throws IOException if the image can't be read
+	 */
+	private static BufferedImage load(String path, int size) throws IOException {
+		
+		BufferedImage decoded = ImageIO.read(new File(path));
+		if (decoded == null) {
+			throw new IOException("Not an image: " + path);
+		}
+		
+		BufferedImage image;
+		if (GraphicsEnvironment.isHeadless()) {
+			image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		else {
+			GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+					.getDefaultScreenDevice().getDefaultConfiguration();
+			image = config.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+		}
+		
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setComposite(AlphaComposite.Src);
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.drawImage(decoded, 0, 0, size, size, null);
+		}
+		finally {
+			g.dispose();
+		}
+		return image;
+	}
+}
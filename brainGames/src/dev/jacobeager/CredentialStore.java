@@ -0,0 +1,323 @@
+package dev.jacobeager;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+
+/**
+ * This class stores user accounts. Each account is a record in an append-only file holding
+ * the username, a random salt and a salted hash of the password, so passwords are never
+ * stored as plain text. Every record is read into a hash map when the store is first used,
+ * so checking a login never has to scan the file. The record file is a WriteAheadLog, so an
+ * account that was only partly written when the program died is dropped when the store is
+ * loaded instead of stopping anyone from logging in.
+ *
+ * The first time the store is used, the accounts in the old loginDetails.txt file are hashed
+ * and copied into the record file, and the old file is deleted so the passwords aren't left 
+ * on disk in plain text. A record file from before records were checksummed is converted the 
+ * same way.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class CredentialStore {
+	
+	// Record file header ("BGCR")
+	private static final int MAGIC = 0x42474352;
+	
+	// Version of the record file before records were checksummed
+	private static final short BARE_VERSION = 1;
+	
+	// Password hashing settings
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final int ITERATIONS = 20000;
+	private static final int SALT_LENGTH = 16;
+	private static final int HASH_LENGTH = 32;
+	
+	/**
+	 * The store used by the login screen, loaded the first time it's needed.
+	 */
+	private static CredentialStore instance;
+	
+	// How long loading the accounts and checking a password take
+	private static final LatencyHistogram LOADS = Metrics.histogram("load.credentials");
+	private static final LatencyHistogram VERIFIES = Metrics.histogram("login.verify");
+	
+	// Outcomes of login checks
+	private static final LongAdder ACCEPTED = Metrics.counter("login.accepted");
+	private static final LongAdder REJECTED = Metrics.counter("login.rejected");
+	private static final LongAdder UNKNOWN_USERS = Metrics.counter("login.unknownUser");
+	
+	// Files used by this store
+	private final File recordFile, textFile;
+	
+	private final WriteAheadLog log;
+	
+	/**
+	 * Every account, keyed by username.
+	 */
+	private final HashMap<String, Credential> accounts = new HashMap<String, Credential>();
+	
+	private final SecureRandom random = new SecureRandom();
+	
+	/**
+	 * Creates a store and reads every account into memory.
+	 * @param recordPath path of the record file
+	 * @param textPath path of the old plain text file to migrate from
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if a file is malformed
+	 */
+	public CredentialStore(String recordPath, String textPath) throws IOException, InvalidFormatException {
+		recordFile = new File(recordPath);
+		textFile = new File(textPath);
+		
+		migrateIfNeeded();
+		log = new WriteAheadLog(recordFile, MAGIC);
+		load();
+	}
+	
+	/**
+	 * Returns the store used by the login screen, loading it the first time.
+	 * @return the shared store
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if a file is malformed
+	 */
+	public static synchronized CredentialStore get() throws IOException, InvalidFormatException {
+		if (instance == null) {
+			long start = System.nanoTime();
+			try {
+				instance = new CredentialStore("resources\\credentials.dat", "resources\\loginDetails.txt");
+			}
+			finally {
+				LOADS.recordSince(start);
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Returns whether an account exists.
+	 * @param username the username to look up
+	 * @return true if the account exists
+	 */
+	public synchronized boolean contains(String username) {
+		return accounts.containsKey(username);
+	}
+	
+	/**
+	 * Checks a password against an account. Hashing the password is slow on purpose, so this
+	 * shouldn't be called on the event dispatch thread.
+	 * @param username the username to look up
+	 * @param password the password to check
+	 * @return true if the account exists and the password matches
+	 */
+	public boolean verify(String username, char[] password) {
+		
+		Credential credential;
+		synchronized (this) {
+			credential = accounts.get(username);
+		}
+		if (credential == null) {
+			UNKNOWN_USERS.increment();
+			return false;
+		}
+		
+		// Compares in constant time so timing doesn't leak how much of the hash matched
+		long start = System.nanoTime();
+		boolean matches = MessageDigest.isEqual(credential.hash(), hash(password, credential.salt()));
+		VERIFIES.recordSince(start);
+		
+		(matches ? ACCEPTED : REJECTED).increment();
+		return matches;
+	}
+	
+	/**
+	 * Creates a new account and appends it to the record file, waiting until it's on disk.
+	 * Accounts created by other threads at the same time share the same write.
+	 * @param username the username of the new account
+	 * @param password the password of the new account
+	 * @throws IOException if the record can't be written
+	 */
+	public void add(String username, char[] password) throws IOException {
+		
+		byte[] salt = new byte[SALT_LENGTH];
+		random.nextBytes(salt);
+		Credential credential = new Credential(salt, hash(password, salt));
+		
+		long end = log.append(List.of(encodeRecord(username, credential)));
+		log.commit(end, true);
+		
+		synchronized (this) {
+			accounts.put(username, credential);
+		}
+	}
+	
+	/**
+	 * Hashes a password with a salt.
+	 * @param password the password
+	 * @param salt the salt
+	 * @return the hash
+	 */
+	private static byte[] hash(char[] password, byte[] salt) {
+		PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, HASH_LENGTH * 8);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+		}
+		catch (GeneralSecurityException e) {
+			// Every Java runtime is required to support PBKDF2WithHmacSHA256
+			throw new IllegalStateException(e);
+		}
+		finally {
+			spec.clearPassword();
+		}
+	}
+	
+	/**
+	 * Encodes one record: the length of the name, the name, the salt and the hash.
+	 * @param username the username
+	 * @param credential the salt and hash
+	 * @return the record
+	 */
+	private static byte[] encodeRecord(String username, Credential credential) {
+		byte[] nameBytes = username.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(1 + nameBytes.length + SALT_LENGTH + HASH_LENGTH);
+		record.put((byte) nameBytes.length);
+		record.put(nameBytes);
+		record.put(credential.salt());
+		record.put(credential.hash());
+		return record.array();
+	}
+	
+	/**
+	 * Reads every record into the accounts map. A later record for the same username
+	 * replaces an earlier one.
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if the file is malformed
+	 */
+	private void load() throws IOException, InvalidFormatException {
+		
+		log.forEach(WriteAheadLog.HEADER_SIZE, (offset, record) -> {
+			byte[] nameBytes = new byte[Byte.toUnsignedInt(record.get())];
+			byte[] salt = new byte[SALT_LENGTH];
+			byte[] hash = new byte[HASH_LENGTH];
+			record.get(nameBytes).get(salt).get(hash);
+			accounts.put(new String(nameBytes, StandardCharsets.UTF_8), new Credential(salt, hash));
+		});
+	}
+	
+	/**
+	 * Creates the record file if it doesn't exist yet, hashing and copying over any accounts
+	 * from the old text file, or converts a record file from before records were checksummed.
+	 * The old text file is deleted once the record file is saved.
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if the record file is malformed
+	 */
+	private void migrateIfNeeded() throws IOException, InvalidFormatException {
+		
+		ArrayList<byte[]> records = new ArrayList<byte[]>();
+		
+		if (recordFile.exists()) {
+			if (WriteAheadLog.readVersion(recordFile, MAGIC) != BARE_VERSION) {
+				deleteTextFile();
+				return;
+			}
+			readBareRecords(records);
+		}
+		else if (textFile.exists()) {
+			
+			// Keeps the first password found for each username
+			HashMap<String, String> oldAccounts = new HashMap<String, String>();
+			try (Scanner inFS = new Scanner(new FileInputStream(textFile))) {
+				while (inFS.hasNextLine()) {
+					String user = inFS.nextLine().trim();
+					if (inFS.hasNextLine()) {
+						String password = inFS.nextLine().trim();
+						if (LoginFrame.validateUsername(user) && !oldAccounts.containsKey(user)) {
+							oldAccounts.put(user, password);
+						}
+					}
+				}
+			}
+			
+			for (String user : oldAccounts.keySet()) {
+				byte[] salt = new byte[SALT_LENGTH];
+				random.nextBytes(salt);
+				char[] password = oldAccounts.get(user).toCharArray();
+				records.add(encodeRecord(user, new Credential(salt, hash(password, salt))));
+				Arrays.fill(password, '\0');
+			}
+		}
+		
+		// create syncs the new file before moving it into place, so the old one can go
+		WriteAheadLog.create(recordFile, MAGIC, records);
+		deleteTextFile();
+	}
+	
+	/**
+	 * Deletes the old text file, which holds every password in plain text, once its accounts
+	 * are in the record file.
+	 * @throws IOException if the file can't be deleted
+	 */
+	private void deleteTextFile() throws IOException {
+		Files.deleteIfExists(textFile.toPath());
+	}
+	
+	/**
+	 * Reads the records of a file from before records were checksummed. A record cut off at
+	 * the end of the file is dropped.
+	 * @param records the list to add the records to
+	 * @throws IOException if the file can't be read
+	 */
+	private void readBareRecords(ArrayList<byte[]> records) throws IOException {
+		
+		try (DataInputStream inFS = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(recordFile)))) {
+			inFS.skipNBytes(WriteAheadLog.HEADER_SIZE);
+			
+			while (true) {
+				int nameLength = inFS.read();
+				if (nameLength < 0) {
+					break;
+				}
+				byte[] record = new byte[1 + nameLength + SALT_LENGTH + HASH_LENGTH];
+				record[0] = (byte) nameLength;
+				inFS.readFully(record, 1, record.length - 1);
+				records.add(record);
+			}
+		}
+		catch (EOFException e) {
+			// Drops the torn record at the end
+		}
+	}
+	
+	
+	/**
+	 * This record holds the salt and password hash of one account.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private record Credential(byte[] salt, byte[] hash) {
+	}
+}
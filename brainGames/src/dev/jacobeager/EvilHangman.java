@@ -0,0 +1,251 @@
+package dev.jacobeager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * This class plays a round of "evil" hangman, where the hidden word isn't picked until it has
+ * to be. Every word of the right length starts as a candidate. After each guess, the
+ * candidates are split into families by where the guessed letter appears in them, and only
+ * the largest family is kept, so the user is shown as little as possible.
+ *
+ * Where a letter appears in a word is an int with one bit per position. Families are found
+ * by counting candidates per pattern in a primitive open addressing table and then keeping
+ * the chosen family in place, so a guess doesn't allocate anything.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class EvilHangman implements HangmanRound {
+	
+	/**
+	 * The longest word that can be played (one bit per position in an int).
+	 */
+	public static final int MAX_LENGTH = 31;
+	
+	// Marks an empty slot in the family table (a real pattern is never negative)
+	private static final int EMPTY = -1;
+	
+	/**
+	 * Every word of the round's length.
+	 */
+	private final String[] words;
+	
+	private final int length;
+	
+	/**
+	 * The indices of the words still possible. Only the first candidateCount are used.
+	 */
+	private final int[] candidates;
+	private int candidateCount;
+	
+	/**
+	 * The pattern of each candidate for the current guess.
+	 */
+	private final int[] patterns;
+	
+	// Open addressing table of family sizes, keyed by pattern
+	private final int[] familyKeys, familySizes;
+	
+	// Slots of the family table used by the current guess, so they can be cleared
+	private final int[] usedSlots;
+	
+	/**
+	 * The word shown to the user, with underscores for hidden positions.
+	 */
+	private final char[] shown;
+	
+	private int guessedLetters = 0;
+	private int missedLetters = 0;
+	private int revealedPositions = 0;
+	private long lastRevealed = 0;
+	private int incorrectGuesses = 0;
+	
+	/**
+	 * Starts a round with a set of candidate words, which must all be the same length and
+	 * made of the letters a to z.
+	 * @param words the candidate words
+	 */
+	public EvilHangman(String[] words) {
+		
+		if (words.length == 0) {
+			throw new IllegalArgumentException("No words to play");
+		}
+		
+		this.words = words;
+		length = words[0].length();
+		if (length > MAX_LENGTH) {
+			throw new IllegalArgumentException("Word too long: " + words[0]);
+		}
+		
+		candidateCount = words.length;
+		candidates = new int[candidateCount];
+		for (int i = 0; i < candidateCount; ++i) {
+			candidates[i] = i;
+		}
+		patterns = new int[candidateCount];
+		
+		// Big enough to stay at most half full with every possible family
+		int maxFamilies = (int) Math.min(candidateCount, 1L << length);
+		int tableSize = Integer.highestOneBit(Math.max(maxFamilies, 1) * 2 - 1) << 1;
+		familyKeys = new int[tableSize];
+		familySizes = new int[tableSize];
+		usedSlots = new int[maxFamilies];
+		Arrays.fill(familyKeys, EMPTY);
+		
+		shown = new char[length];
+		Arrays.fill(shown, '_');
+	}
+	
+	/**
+	 * Starts a round with every indexed word of a length.
+	 * @param index the word index to take candidates from
+	 * @param length the word length
+	 * @return the round
+	 */
+	public static EvilHangman forLength(WordIndex index, int length) {
+		
+		// Every word of the length fits a pattern of all underscores
+		BitSet matches = index.match("_".repeat(length), 0);
+		String[] words = new String[matches.cardinality()];
+		int count = 0;
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+			words[count++] = index.wordAt(length, i);
+		}
+		return new EvilHangman(words);
+	}
+	
+	/**
+	 * Guesses a letter, keeping the largest family of candidates. Ties go to the family that
+	 * reveals fewer positions.
+	 * @param c the guessed letter
+	 * @return HIT, MISS, ALREADY_GUESSED, or INVALID if c isn't a letter from a to z
+	 */
+	@Override
+	public int guess(char c) {
+		
+		char lower = Character.toLowerCase(c);
+		int letter = lower - 'a';
+		if (letter < 0 || letter >= 26) {
+			return INVALID;
+		}
+		
+		int bit = 1 << letter;
+		if ((guessedLetters & bit) != 0) {
+			return ALREADY_GUESSED;
+		}
+		guessedLetters |= bit;
+		
+		// Works out each candidate's pattern and counts the size of each family
+		int usedCount = 0;
+		int mask = familyKeys.length - 1;
+		for (int i = 0; i < candidateCount; ++i) {
+			String word = words[candidates[i]];
+			int pattern = 0;
+			for (int position = 0; position < length; ++position) {
+				if (word.charAt(position) == lower) {
+					pattern |= 1 << position;
+				}
+			}
+			patterns[i] = pattern;
+			
+			int slot = (pattern * 0x9E3779B9) >>> 7 & mask;
+			while (familyKeys[slot] != EMPTY && familyKeys[slot] != pattern) {
+				slot = (slot + 1) & mask;
+			}
+			if (familyKeys[slot] == EMPTY) {
+				familyKeys[slot] = pattern;
+				usedSlots[usedCount++] = slot;
+			}
+			++familySizes[slot];
+		}
+		
+		// Picks the largest family and clears the table for the next guess
+		int bestPattern = 0;
+		int bestSize = -1;
+		for (int i = 0; i < usedCount; ++i) {
+			int slot = usedSlots[i];
+			int pattern = familyKeys[slot];
+			int size = familySizes[slot];
+			if (size > bestSize || (size == bestSize
+					&& Integer.bitCount(pattern) < Integer.bitCount(bestPattern))) {
+				bestPattern = pattern;
+				bestSize = size;
+			}
+			familyKeys[slot] = EMPTY;
+			familySizes[slot] = 0;
+		}
+		
+		// Keeps only that family, in place
+		int kept = 0;
+		for (int i = 0; i < candidateCount; ++i) {
+			if (patterns[i] == bestPattern) {
+				candidates[kept++] = candidates[i];
+			}
+		}
+		candidateCount = kept;
+		
+		lastRevealed = bestPattern;
+		if (bestPattern == 0) {
+			missedLetters |= bit;
+			++incorrectGuesses;
+			return MISS;
+		}
+		
+		revealedPositions |= bestPattern;
+		for (int rest = bestPattern; rest != 0; rest &= rest - 1) {
+			shown[Integer.numberOfTrailingZeros(rest)] = lower;
+		}
+		return HIT;
+	}
+	
+	@Override
+	public boolean isWon() {
+		return revealedPositions == (1 << length) - 1;
+	}
+	
+	@Override
+	public boolean isLost() {
+		return incorrectGuesses >= HangmanState.MAX_INCORRECT;
+	}
+	
+	@Override
+	public long getLastRevealed() {
+		return lastRevealed;
+	}
+	
+	@Override
+	public int getMissedLetters() {
+		return missedLetters;
+	}
+	
+	@Override
+	public String getPattern() {
+		return new String(shown);
+	}
+	
+	@Override
+	public int getIncorrectGuesses() {
+		return incorrectGuesses;
+	}
+	
+	/**
+	 * Returns the number of words that still fit every guess.
+	 * @return the candidate count
+	 */
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+	
+	/**
+	 * Returns a word that fits every guess. Once the round is over, this is the word the user
+	 * was "really" guessing.
+	 * @return the word
+	 */
+	@Override
+	public String getWord() {
+		return words[candidates[0]];
+	}
+}
@@ -0,0 +1,233 @@
+package dev.jacobeager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * This class holds the Wordle pattern code for every guess scored against every answer in a
+ * vocabulary, so hints and solvers can look patterns up instead of scoring them. The matrix
+ * is built in parallel the first time and saved to a file, which is memory-mapped on later
+ * launches. The file stores a hash of the vocabulary, so it is rebuilt if the word list changes.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class FeedbackMatrix {
+	
+	// File header ("BGFM")
+	private static final int MAGIC = 0x4247464D;
+	private static final short VERSION = 1;
+	
+	// Size of the file header in bytes (magic, version, size and hash)
+	private static final int HEADER_SIZE = 18;
+	
+	// Rows scored by one fork/join task before it stops splitting
+	private static final int ROWS_PER_TASK = 32;
+	
+	/**
+	 * The number of words in the vocabulary (the matrix is size by size).
+	 */
+	private final int size;
+	
+	/**
+	 * Row-major pattern codes, guesses are rows and answers are columns.
+	 */
+	private final ByteBuffer patterns;
+	
+	/**
+	 * Creates a matrix from already scored patterns.
+	 * @param size the number of words in the vocabulary
+	 * @param patterns the pattern codes
+	 */
+	private FeedbackMatrix(int size, ByteBuffer patterns) {
+		this.size = size;
+		this.patterns = patterns;
+	}
+	
+	/**
+	 * Maps the matrix from a file if it matches the vocabulary, or builds it and saves it
+	 * to the file if not. A matrix that can't be saved is still used, since the old file 
+	 * can't be replaced while it's mapped (by this or another program) on Windows.
+	 * @param scorer the vocabulary
+	 * @param matrixPath path of the matrix file
+	 * @return the matrix
+	 * @throws IOException if the file can't be read
+	 */
+	public static FeedbackMatrix load(WordleScorer scorer, String matrixPath) throws IOException {
+		
+		File matrixFile = new File(matrixPath);
+		long hash = hashOf(scorer);
+		
+		if (matrixFile.exists()) {
+			FeedbackMatrix matrix = map(matrixFile, scorer.size(), hash);
+			if (matrix != null) {
+				return matrix;
+			}
+		}
+		
+		byte[] patterns = build(scorer);
+		try {
+			save(matrixFile, scorer.size(), hash, patterns);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			new File(matrixPath + ".tmp").delete();
+		}
+		return new FeedbackMatrix(scorer.size(), ByteBuffer.wrap(patterns));
+	}
+	
+	/**
+	 * Scores every guess against every answer using a fork/join pool.
+	 * @param scorer the vocabulary
+	 * @return the row-major pattern codes
+	 */
+	public static byte[] build(WordleScorer scorer) {
+		
+		int size = scorer.size();
+		if ((long) size * size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Vocabulary too large for a feedback matrix: " + size);
+		}
+		
+		byte[] patterns = new byte[size * size];
+		ForkJoinPool.commonPool().invoke(new BuildTask(scorer, patterns, 0, size));
+		return patterns;
+	}
+	
+	/**
+	 * Returns the pattern for a guess scored against an answer.
+	 * @param guess the index of the guessed word in the vocabulary
+	 * @param answer the index of the hidden word in the vocabulary
+	 * @return the pattern code, from 0 to 242
+	 */
+	public int pattern(int guess, int answer) {
+		return patterns.get(guess * size + answer) & 0xFF;
+	}
+	
+	/**
+	 * Returns the number of words in the vocabulary.
+	 * @return the vocabulary size
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Hashes the vocabulary (64-bit FNV-1a over the word codes, in order).
+	 * @param scorer the vocabulary
+	 * @return the hash
+	 */
+	private static long hashOf(WordleScorer scorer) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < scorer.size(); ++i) {
+			hash = (hash ^ scorer.codeAt(i)) * 0x100000001B3L;
+		}
+		return hash;
+	}
+	
+	/**
+	 * Maps a matrix file if its header matches the vocabulary.
+	 * @param matrixFile the matrix file
+	 * @param size the vocabulary size
+	 * @param hash the vocabulary hash
+	 * @return the matrix, or null if the file is for a different vocabulary
+	 * @throws IOException if the file can't be read
+	 */
+	private static FeedbackMatrix map(File matrixFile, int size, long hash) throws IOException {
+		
+		try (RandomAccessFile file = new RandomAccessFile(matrixFile, "r")) {
+			
+			if (file.length() != HEADER_SIZE + (long) size * size) {
+				return null;
+			}
+			if (file.readInt() != MAGIC || file.readShort() != VERSION
+					|| file.readInt() != size || file.readLong() != hash) {
+				return null;
+			}
+			
+			// The mapping stays valid after the file is closed
+			ByteBuffer patterns = file.getChannel().map(FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE, (long) size * size);
+			return new FeedbackMatrix(size, patterns);
+		}
+	}
+	
+	/**
+	 * Writes a matrix file, replacing the old one in a single move.
+	 * @param matrixFile the matrix file
+	 * @param size the vocabulary size
+	 * @param hash the vocabulary hash
+	 * @param patterns the pattern codes
+	 * @throws IOException if the file can't be written
+	 */
+	private static void save(File matrixFile, int size, long hash, byte[] patterns) throws IOException {
+		
+		File tempFile = new File(matrixFile.getPath() + ".tmp");
+		
+		try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+			file.setLength(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putShort(VERSION).putInt(size).putLong(hash).flip();
+			
+			// Gathering write of the header and the patterns
+			FileChannel channel = file.getChannel();
+			ByteBuffer[] buffers = {header, ByteBuffer.wrap(patterns)};
+			while (buffers[1].hasRemaining()) {
+				channel.write(buffers);
+			}
+		}
+		
+		Files.move(tempFile.toPath(), matrixFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	
+	/**
+	 * This inner class scores a range of rows, splitting it in half until it is small enough.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	@SuppressWarnings("serial")
+	private static class BuildTask extends RecursiveAction {
+		
+		private final WordleScorer scorer;
+		private final byte[] patterns;
+		private final int fromRow, toRow;
+		
+		private BuildTask(WordleScorer scorer, byte[] patterns, int fromRow, int toRow) {
+			this.scorer = scorer;
+			this.patterns = patterns;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			if (toRow - fromRow > ROWS_PER_TASK) {
+				int middle = (fromRow + toRow) >>> 1;
+				invokeAll(new BuildTask(scorer, patterns, fromRow, middle),
+						new BuildTask(scorer, patterns, middle, toRow));
+				return;
+			}
+			
+			int size = scorer.size();
+			for (int guess = fromRow; guess < toRow; ++guess) {
+				int guessCode = scorer.codeAt(guess);
+				int offset = guess * size;
+				for (int answer = 0; answer < size; ++answer) {
+					patterns[offset + answer] = (byte) WordleScorer.score(guessCode, scorer.codeAt(answer));
+				}
+			}
+		}
+	}
+}
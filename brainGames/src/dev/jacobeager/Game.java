@@ -11,7 +11,7 @@ public interface Game {
 	
 	/**
 	 * When the game ends, takes the score and the current user logged in and records
-	 * it to the leaderboard text file. 
+	 * it to the game's leaderboard store. 
 	 * 
 	 * @param user the username to be added
 	 * @param score the high score to be added
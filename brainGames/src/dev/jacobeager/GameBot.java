@@ -0,0 +1,20 @@
+package dev.jacobeager;
+
+/**
+ * This interface establishes a player that plays a game by itself, seeing only what a 
+ * person would: the snapshot of the game written by GameSession.appendSnapshot.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public interface GameBot {
+	
+	/**
+	 * Picks the next guess or answer.
+	 * @param snapshot the state of the game, as written by GameSession.appendSnapshot
+	 * @return the guess or answer
+	 */
+	public String nextInput(String snapshot);
+
+}
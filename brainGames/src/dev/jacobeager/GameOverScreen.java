@@ -3,9 +3,12 @@ package dev.jacobeager;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 
 
 /**
@@ -16,15 +19,20 @@ import javax.swing.JPanel;
  */
 
 public class GameOverScreen extends JPanel {
-
+	
 	// Version ID
 	private static final long serialVersionUID = 535082895404543506L;
-
+	
 	/**
-	 * Displays game over text and the user's score.
-	 * @param score
+	 * Displays game over text and the user's score, and how it compares to the user's 
+	 * personal best. ScoreSink records the score in the bests once it's written, so the 
+	 * score is only submitted to the finished game once the previous best has been read.
+	 * @param score the score
+	 * @param game the game in PersonalBests
+	 * @param user the username
+	 * @param finished the game that ended, which the score is submitted to
 	 */
-	public GameOverScreen(int score) {
+	public GameOverScreen(int score, int game, String user, Game finished) {
 		
 		// Sets layout and creates constraints
 		this.setLayout(new GridBagLayout());
@@ -41,5 +49,54 @@ public class GameOverScreen extends JPanel {
 		JLabel yourScore = new JLabel("Your score: " + score);
 		constraints.gridy = 1;
 		this.add(yourScore, constraints);
+		
+		// Displays the personal best, which is filled in once it's known
+		JLabel best = new JLabel(" ");
+		constraints.gridy = 2;
+		this.add(best, constraints);
+		
+		// The bests are usually loaded by the warm-up at startup, so they're shown straight away
+		PersonalBests bests = PersonalBests.peek();
+		if (bests != null) {
+			best.setText(bestText(score, bests.getBest(game, user)));
+			finished.addHighScore(user, score);
+			return;
+		}
+		
+		// Otherwise they're loaded in the background so the event dispatch thread doesn't wait 
+		// on the disk, and the score is held back until then so it isn't counted in them
+		new SwingWorker<Integer, Void>() {
+			
+			@Override
+			protected Integer doInBackground() throws IOException, InvalidFormatException {
+				return PersonalBests.get().getBest(game, user);
+			}
+			
+			@Override
+			protected void done() {
+				try {
+					best.setText(bestText(score, get()));
+				}
+				catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+				}
+				finally {
+					finished.addHighScore(user, score);
+				}
+			}
+		}.execute();
+	}
+	
+	/**
+	 * Returns the text comparing a score to the user's previous best.
+	 * @param score the score
+	 * @param previousBest the best before this score, or PersonalBests.NONE
+	 * @return the text
+	 */
+	private static String bestText(int score, int previousBest) {
+		if (score > previousBest) {
+			return "New personal best!";
+		}
+		return "Your best is " + previousBest;
 	}
 }
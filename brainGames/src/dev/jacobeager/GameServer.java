@@ -0,0 +1,434 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * This class runs the games as an HTTP server, so they can be played without the windows, 
+ * many at a time. The word banks, word index and questions are loaded once and shared by 
+ * every session without being changed. Each session is a ServerSession with its own 
+ * virtual thread, kept in a SessionTable that closes sessions left idle. Requests are 
+ * handled on virtual threads as well, so a slow client never holds up a platform thread.
+ * 
+ * The JDK's server only speaks plain HTTP, so each guess is its own short request rather 
+ * than a message on an open socket:
+ * 
+ * POST /sessions?game=wordle|hangman|evilHangman|quizBowl&amp;user=name starts a game, where
+ * the name follows the same rules as on the login screen
+ * POST /sessions/{id} with the guess or answer as the body submits it
+ * GET /sessions/{id} describes the game
+ * DELETE /sessions/{id} ends the game
+ * GET /stats counts the sessions
+ * GET /metrics lists every counter, gauge and latency in Metrics
+ * 
+ * Every reply is JSON. The server only listens on the loopback address unless told 
+ * otherwise, since anyone who can reach it can play under any name.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class GameServer {
+	
+	public static final int DEFAULT_PORT = 8080;
+	
+	/**
+	 * The most sessions open at once by default.
+	 */
+	public static final int DEFAULT_MAX_SESSIONS = 50_000;
+	
+	/**
+	 * How long a session can go unused before it's closed by default, in milliseconds.
+	 */
+	public static final long DEFAULT_IDLE_MILLIS = 5 * 60 * 1000;
+	
+	// The longest guess or answer read, in bytes
+	private static final int MAX_INPUT = 256;
+	
+	// How long a request waits for its session, in milliseconds
+	private static final long CALL_TIMEOUT = 5000;
+	
+	// How many connections can wait to be accepted
+	private static final int BACKLOG = 4096;
+	
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final SessionTable sessions;
+	
+	// Banks shared by every session, never changed while the server runs
+	private final WordleScorer wordleScorer;
+	private final WordBank hangmanWords;
+	private final WordIndex hangmanIndex;
+	private final QuestionBank questions;
+	private final QuestionScheduler scheduler;
+	
+	/**
+	 * Whether scores are recorded to the leaderboards when a game ends.
+	 */
+	private volatile boolean recordScores = false;
+	
+	/**
+	 * Loads every bank and creates a server. start has to be called before it takes requests.
+	 * @param address the address and port to listen on, port 0 for any free port
+	 * @param maxSessions the most sessions open at once
+	 * @param idleMillis how long a session can go unused before it's closed, in milliseconds
+	 * @throws IOException if a bank can't be read or the port can't be opened
+	 * @throws EmptyFileException if a word bank is empty
+	 * @throws InvalidFormatException if the question files are malformed
+	 */
+	public GameServer(InetSocketAddress address, int maxSessions, long idleMillis) 
+			throws IOException, EmptyFileException, InvalidFormatException {
+		
+		wordleScorer = WordleEngine.scorerFor(WordBankRegistry.get(WordBankRegistry.WORDLE));
+		hangmanWords = WordBankRegistry.get(WordBankRegistry.HANGMAN);
+		hangmanIndex = HangmanEngine.indexFor(hangmanWords);
+		questions = QuestionBank.get();
+		scheduler = QuestionScheduler.get(questions);
+		
+		sessions = new SessionTable(maxSessions, idleMillis);
+		Metrics.gauge("server.sessions", sessions::size);
+		Metrics.gauge("server.evicted", sessions::getEvictedCount);
+		Metrics.gauge("server.rejected", sessions::getRejectedCount);
+		
+		// Headers and body go out as separate writes, so without this each reply waits on 
+		// the client's delayed acknowledgement. Only read when the first server is made.
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		
+		server = HttpServer.create(address, BACKLOG);
+		server.setExecutor(executor);
+		server.createContext("/sessions", this::handleSessions);
+		server.createContext("/stats", this::handleStats);
+		server.createContext("/metrics", this::handleMetrics);
+	}
+	
+	/**
+	 * Starts taking requests.
+	 */
+	public void start() {
+		server.start();
+	}
+	
+	/**
+	 * Stops taking requests, closes every session, and saves where the question scheduler 
+	 * is up to.
+	 */
+	public void stop() {
+		
+		server.stop(0);
+		sessions.close();
+		executor.close();
+		
+		try {
+			scheduler.save();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Sets whether a session's score is recorded to its leaderboard when its game ends, 
+	 * under the name it was started with.
+	 * @param recordScores true to record scores
+	 */
+	public void setRecordScores(boolean recordScores) {
+		this.recordScores = recordScores;
+	}
+	
+	/**
+	 * Returns the port the server is listening on.
+	 * @return the port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	public SessionTable getSessions() {
+		return sessions;
+	}
+	
+	/**
+	 * Starts a server on the loopback address and runs it until the program is stopped.
+	 * @param args the port (8080 if left out), and --record-scores to record scores
+	 * @throws Exception if the server can't be started
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		int port = DEFAULT_PORT;
+		boolean record = false;
+		for (String arg : args) {
+			if (arg.equals("--record-scores")) {
+				record = true;
+			}
+			else {
+				port = Integer.parseInt(arg);
+			}
+		}
+		
+		Metrics.start();
+		GameServer gameServer = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 
+				DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_MILLIS);
+		gameServer.setRecordScores(record);
+		Runtime.getRuntime().addShutdownHook(new Thread(gameServer::stop, "GameServer shutdown"));
+		gameServer.start();
+		System.out.println("Listening on http://localhost:" + gameServer.getPort() + "/sessions");
+	}
+	
+	/**
+	 * Handles every request under /sessions.
+	 * @param exchange the request
+	 * @throws IOException if the reply can't be sent
+	 */
+	private void handleSessions(HttpExchange exchange) throws IOException {
+		
+		try (exchange) {
+			
+			String method = exchange.getRequestMethod();
+			String path = exchange.getRequestURI().getPath();
+			String id = path.length() > "/sessions/".length() ? path.substring("/sessions/".length()) : null;
+			
+			if (id == null) {
+				if (method.equals("POST")) {
+					createSession(exchange);
+				}
+				else {
+					sendError(exchange, 405, "Method not allowed");
+				}
+				return;
+			}
+			
+			switch (method) {
+				case "GET":
+					callSession(exchange, id, null);
+					break;
+				
+				case "POST":
+					byte[] body = readBody(exchange.getRequestBody());
+					if (body == null) {
+						sendError(exchange, 413, "Guess too long");
+					}
+					else {
+						callSession(exchange, id, new String(body, StandardCharsets.UTF_8).strip());
+					}
+					break;
+				
+				case "DELETE":
+					if (sessions.remove(id)) {
+						send(exchange, 200, GameSession.appendJsonString(new StringBuilder("{\"id\":"), id)
+								.append(",\"closed\":true}").toString());
+					}
+					else {
+						sendError(exchange, 404, "No such session");
+					}
+					break;
+				
+				default:
+					sendError(exchange, 405, "Method not allowed");
+					break;
+			}
+		}
+	}
+	
+	/**
+	 * Starts a game named in the query string and replies with its id and state.
+	 * @param exchange the request
+	 * @throws IOException if the reply can't be sent
+	 */
+	private void createSession(HttpExchange exchange) throws IOException {
+		
+		HashMap<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		String gameName = query.getOrDefault("game", "");
+		String user = recordScores ? query.get("user") : null;
+		
+		// Names go into the leaderboards, so they follow the same rules as the login screen's
+		if (user != null && !LoginFrame.validateUsername(user)) {
+			sendError(exchange, 400, "Invalid user");
+			return;
+		}
+		
+		LeaderboardStore store;
+		switch (gameName) {
+			case "wordle":
+				store = LeaderboardStore.WORDLE;
+				break;
+			case "hangman":
+			case "evilHangman":
+				store = LeaderboardStore.HANGMAN;
+				break;
+			case "quizBowl":
+				store = LeaderboardStore.QUIZ_BOWL;
+				break;
+			default:
+				sendError(exchange, 400, "Unknown game");
+				return;
+		}
+		
+		ServerSession session = sessions.create(id -> new ServerSession(id, newGame(gameName), store, user));
+		if (session == null) {
+			sendError(exchange, 503, "Too many sessions");
+			return;
+		}
+		callSession(exchange, session.getId(), null);
+	}
+	
+	/**
+	 * Makes a game that hasn't been started.
+	 * @param gameName wordle, hangman, evilHangman or quizBowl
+	 * @return the game
+	 */
+	private GameSession newGame(String gameName) {
+		switch (gameName) {
+			case "wordle":
+				return new WordleEngine(wordleScorer, new Random());
+			case "hangman":
+				return new HangmanEngine(hangmanWords, hangmanIndex, false, new Random());
+			case "evilHangman":
+				return new HangmanEngine(hangmanWords, hangmanIndex, true, new Random());
+			default:
+				return new QuizEngine(questions, scheduler);
+		}
+	}
+	
+	/**
+	 * Hands a guess to a session's thread, waits for it to be played, and sends back the 
+	 * result.
+	 * @param exchange the request
+	 * @param id the session's id
+	 * @param input the guess or answer, or null to only describe the game
+	 * @throws IOException if the reply can't be sent
+	 */
+	private void callSession(HttpExchange exchange, String id, String input) throws IOException {
+		
+		ServerSession session = sessions.get(id);
+		CompletableFuture<String> reply = session == null ? null : session.call(input);
+		if (reply == null) {
+			sendError(exchange, session == null ? 404 : 429, session == null ? "No such session" : "Session busy");
+			return;
+		}
+		
+		String json;
+		try {
+			json = reply.get(CALL_TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			sendError(exchange, 503, "Interrupted");
+			return;
+		}
+		catch (ExecutionException | TimeoutException e) {
+			sendError(exchange, 503, "Session didn't answer");
+			return;
+		}
+		
+		// The session was closed before it got to the guess
+		if (json == null) {
+			sendError(exchange, 404, "No such session");
+			return;
+		}
+		send(exchange, 200, json);
+	}
+	
+	/**
+	 * Handles GET /stats, counting the sessions.
+	 * @param exchange the request
+	 * @throws IOException if the reply can't be sent
+	 */
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			send(exchange, 200, "{\"sessions\":" + sessions.size() 
+					+ ",\"created\":" + sessions.getCreatedCount() 
+					+ ",\"evicted\":" + sessions.getEvictedCount() 
+					+ ",\"rejected\":" + sessions.getRejectedCount() + "}");
+		}
+	}
+	
+	/**
+	 * Handles GET /metrics, listing every metric as JSON.
+	 * @param exchange the request
+	 * @throws IOException if the reply can't be sent
+	 */
+	private void handleMetrics(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			send(exchange, 200, Metrics.appendJson(new StringBuilder()).toString());
+		}
+	}
+	
+	/**
+	 * Reads a request body, up to MAX_INPUT bytes.
+	 * @param in the body
+	 * @return the bytes, or null if the body is too long
+	 * @throws IOException if the body can't be read
+	 */
+	private static byte[] readBody(InputStream in) throws IOException {
+		byte[] body = in.readNBytes(MAX_INPUT + 1);
+		return body.length > MAX_INPUT ? null : body;
+	}
+	
+	/**
+	 * Splits a query string into its names and values.
+	 * @param rawQuery the query, still encoded, or null
+	 * @return the values by name
+	 */
+	private static HashMap<String, String> parseQuery(String rawQuery) {
+		
+		HashMap<String, String> query = new HashMap<>();
+		if (rawQuery == null) {
+			return query;
+		}
+		
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8), 
+						URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return query;
+	}
+	
+	/**
+	 * Sends an error as a JSON object.
+	 * @param exchange the request
+	 * @param status the HTTP status
+	 * @param message what went wrong
+	 * @throws IOException if the reply can't be sent
+	 */
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		send(exchange, status, GameSession.appendJsonString(new StringBuilder("{\"error\":"), message).append('}').toString());
+	}
+	
+	/**
+	 * Sends a JSON reply.
+	 * @param exchange the request
+	 * @param status the HTTP status
+	 * @param json the body
+	 * @throws IOException if the reply can't be sent
+	 */
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package dev.jacobeager;
+
+/**
+ * This interface establishes the rules of a whole game, from the first round until it's 
+ * over, without any windows. The game screens drive a session and only draw what it says, 
+ * so the same games can be played and tested without a display.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public interface GameSession {
+	
+	// Results of submitting a guess or answer
+	public static final int INVALID = 0;
+	public static final int CONTINUE = 1;
+	public static final int ROUND_WON = 2;
+	public static final int GAME_OVER = 3;
+	
+	/**
+	 * Starts a new game with a score of 0.
+	 */
+	public void start();
+	
+	/**
+	 * Submits a guess or answer. Winning a round adds one to the score and starts the next 
+	 * round straight away.
+	 * @param input the guess or answer
+	 * @return CONTINUE if the round goes on, ROUND_WON, GAME_OVER, or INVALID if the input 
+	 * was ignored (also once the game is over)
+	 */
+	public int submit(CharSequence input);
+	
+	/**
+	 * Returns the number of rounds won in this game.
+	 * @return the score
+	 */
+	public int getScore();
+	
+	/**
+	 * Returns whether the game is over.
+	 * @return true if no more input is taken
+	 */
+	public boolean isOver();
+	
+	/**
+	 * Writes what a player can see of the game as a JSON object, without giving away the 
+	 * answer while the game is going.
+	 * @param sb the builder to write to
+	 * @return the same builder
+	 */
+	public StringBuilder appendSnapshot(StringBuilder sb);
+	
+	/**
+	 * Returns the name of a result, as sent by the GameServer.
+	 * @param result INVALID, CONTINUE, ROUND_WON or GAME_OVER
+	 * @return the name, like "ROUND_WON"
+	 */
+	public static String resultName(int result) {
+		switch (result) {
+			case CONTINUE:
+				return "CONTINUE";
+			case ROUND_WON:
+				return "ROUND_WON";
+			case GAME_OVER:
+				return "GAME_OVER";
+			default:
+				return "INVALID";
+		}
+	}
+	
+	/**
+	 * Writes text as a JSON string, escaping quotes, backslashes and control characters.
+	 * @param sb the builder to write to
+	 * @param text the text
+	 * @return the same builder
+	 */
+	public static StringBuilder appendJsonString(StringBuilder sb, CharSequence text) {
+		
+		sb.append('"');
+		for (int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				default:
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					}
+					else {
+						sb.append(c);
+					}
+					break;
+			}
+		}
+		return sb.append('"');
+	}
+
+}
@@ -8,17 +8,11 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Random;
-import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -36,65 +30,56 @@ import javax.swing.Timer;
  */
 
 public class HangMan extends JFrame implements Game, ActionListener {
-
+	
 	// Version ID
 	private static final long serialVersionUID = 5459974948794379622L;
 	
-	/**
-	 * An ArrayList meant to contain all of the possible words. Is populated by calling 
-	 * readWordBank() which pulls from hangman.txt.
-	 */
-	private ArrayList<String> possibleWords = new ArrayList<String>();
-	
-	/**
-	 * An ArrayList that keeps track of what characters the user has guessed. Cleared 
-	 * every time a new round starts.
-	 */
-	private ArrayList<Character> usedChars = new ArrayList<Character>();
+	// How long handling a button press holds up the event dispatch thread
+	private static final LatencyHistogram EDT_TIME = Metrics.histogram("edt.hangman");
 	
+	// How many times the word bank couldn't be read
+	private static final LongAdder WORD_BANK_ERRORS = Metrics.counter("errors.wordBank");
 	
 	/**
-	 * The current hidden word to be guessed in the game. Chosen randomly from possibleWords 
-	 * when generateWord is called.
-	 */
-	private String currWord;
-	
-	/**
-	 * The current score. Increases by one for every word solved.
-	 */
-	private int score = 0;
-	
-	/**
-	 * The number of incorrect guesses. Picture advances with it and resets every new round.
+	 * The rules of the game. The frame only draws what the engine says.
 	 */
-	private int incorrectGuesses = 0;
+	private transient HangmanEngine engine;
 	
 	/**
-	 * A string that is shown to the user that represents what they have guessed so far.
+	 * The characters shown to the user that represent what they have guessed so far. Each 
+	 * position of the word takes two characters (the letter or an underscore, then a space).
 	 */
-	private String obscuredWord = "";
+	private char[] obscuredWord;
 	
 	// Components that interact with ActionListeners
 	private JButton submitButton;
 	private JTextField userInput, underscores;
 	private JTextArea lettersBox;
 	private JPanel topPanel, bottomPanel;
-	private JLabel hangmanImage;
+	private JLabel hangmanImage, wordsLeft;
+	
 	
-
 	/**
-	 * Constructor that creates the GUI and begins the game.
+	 * Constructor that creates the GUI and begins a classic game.
 	 */
 	public HangMan() {
+		this(false);
+	}
+	
+	/**
+	 * Constructor that creates the GUI and begins the game.
+	 * @param evilMode true to dodge the user's guesses instead of using a fixed word
+	 */
+	public HangMan(boolean evilMode) {
 		
-		// Gathers possible words in ArrayList and chooses one
-		readWordBank();
-		generateWord();
+		// Gets the word bank and starts the game
+		readWordBank(evilMode);
+		engine.start();
 		
 		// Formatting frame
 		this.setSize(new Dimension(450,650));
 		this.setResizable(false);
-		this.setTitle("Hangman");
+		this.setTitle(evilMode ? "Evil Hangman" : "Hangman");
 		this.getContentPane().setBackground(Color.WHITE);
 		this.setLayout(new FlowLayout(FlowLayout.CENTER));
 		
@@ -113,7 +98,7 @@ public class HangMan extends JFrame implements Game, ActionListener {
 		
 		// Sets up hangman picture for first stage
 		hangmanImage = new JLabel();
-		hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-0.png"));
+		hangmanImage.setIcon(AssetCache.getHangmanStage(0));
 		hangmanImage.setBackground(Color.WHITE);
 		constraints.gridx = 0;
 		constraints.gridy = 0;
@@ -121,10 +106,7 @@ public class HangMan extends JFrame implements Game, ActionListener {
 		
 		// Generates underscores to represent unguessed word
 		underscores = new JTextField();
-		for (int i = 0; i < currWord.length(); ++i) {
-			obscuredWord += "_ ";
-		}
-		underscores.setText(obscuredWord);
+		underscores.setText(resetObscuredWord());
 		underscores.setHorizontalAlignment(JTextField.CENTER);
 		underscores.setBackground(Color.WHITE);
 		underscores.setEditable(false);
@@ -168,6 +150,11 @@ public class HangMan extends JFrame implements Game, ActionListener {
 		submitButton.addActionListener(this);
 		submissionHolder.add(submitButton);
 		
+		// Shows how many words still fit what has been revealed
+		wordsLeft = new JLabel();
+		bottomPanel.add(wordsLeft);
+		updateWordsLeft();
+		
 		this.setVisible(true);
 	}
 	
@@ -179,137 +166,120 @@ public class HangMan extends JFrame implements Game, ActionListener {
 	
 	private void guess(String input) {
 		
-		// Standardizes input
-		input = input.toLowerCase();
-		
-		// Does nothing if input is invalid
-		if (input.length() > 1 || !Character.isLetter(input.charAt(0))) {
+		// Does nothing if input isn't a single letter that hasn't been guessed
+		int result = engine.submit(input);
+		if (result == GameSession.INVALID) {
 			return;
 		}
-		else {
-			// Checks if letter has already been guessed
-			for (char c : usedChars) {
-				if (input.charAt(0) == c) {
-					return;
-				}
-			}
-			
-			// Adds letter to the list of guessed letters and clears box
-			usedChars.add(input.charAt(0));
-			userInput.setText("");
+		
+		char c = Character.toLowerCase(input.charAt(0));
+		userInput.setText("");
+		
+		switch (engine.getLastResult()) {
 			
 			// Updates the visual representation of the unguessed word with new letter
-			if (currWord.contains(input)) {
-				updateUnderscores(input.charAt(0));
-			}
-			else {
-				// Advances to next stage, updates picture and number of incorrect guesses
-				++incorrectGuesses;
+			case HangmanRound.HIT:
+				
+				// If all letters are guessed, wins the round
+				if (result == GameSession.ROUND_WON) {
+					underscores.setText("");
+					win();
+				}
+				else {
+					updateUnderscores(c);
+					updateWordsLeft();
+				}
+				break;
+			
+			// Advances to next stage, updates picture and number of incorrect guesses
+			case HangmanRound.MISS:
 				updatePicture();
-				lettersBox.setText(lettersBox.getText() + " " + input.charAt(0));
+				lettersBox.setText(lettersBox.getText() + " " + c);
+				updateWordsLeft();
 				
 				// Ends game after a brief pause
-				if (incorrectGuesses >= 6) {
+				if (result == GameSession.GAME_OVER) {
 					userInput.setEditable(false);
 					Timer timer = new Timer(2000, new ActionListener() {
 					    public void actionPerformed(ActionEvent e) {
+					    	long start = System.nanoTime();
 					    	gameOver();
+					    	EDT_TIME.recordSince(start);
 					    }
 					});
 					timer.setRepeats(false);
 					timer.start();
-					
 				}
-			}
+				break;
+			
+			default:
+				break;
 		}
 	}
-
+	
 	/**
-	 * Takes in a character and updates the string obscuredWord, allowing the user to 
-	 * see where their correct guess is in the word. Also, if the guess fills in the 
-	 * last character, wins the round.
+	 * Sets up the characters shown for a new word: an underscore for every letter, and any 
+	 * other characters as they are.
+	 * @return the text to show
+	 */
+	private String resetObscuredWord() {
+		
+		String pattern = engine.getRound().getPattern();
+		obscuredWord = new char[pattern.length() * 2];
+		for (int i = 0; i < pattern.length(); ++i) {
+			obscuredWord[2 * i] = pattern.charAt(i);
+			obscuredWord[2 * i + 1] = ' ';
+		}
+		return new String(obscuredWord);
+	}
+	
+	/**
+	 * Takes in a character and fills it into the positions the last guess revealed, allowing 
+	 * the user to see where their correct guess is in the word.
 	 * @param c the guessed character
 	 */
 	private void updateUnderscores(char c) {
 		
-		int charCounter = -1; // Starts at -1 so the first character will be 0
-		
-		// Builds a string taking the obscured representation of the answer and adding in character
-		StringBuilder sb = new StringBuilder();
-		for (int i = 0; i < obscuredWord.length(); ++i) {
-			if (obscuredWord.charAt(i) != ' ') {
-				++charCounter;
-				if (c == currWord.charAt(charCounter)) {
-					sb.append(c);
-				}
-				else {
-					sb.append(obscuredWord.charAt(i));
-				}
-			}
-			else {
-				sb.append(obscuredWord.charAt(i));
-			}
+		// Only touches the positions that changed
+		long revealed = engine.getRound().getLastRevealed();
+		while (revealed != 0) {
+			int position = Long.numberOfTrailingZeros(revealed);
+			obscuredWord[2 * position] = c;
+			revealed &= revealed - 1;
 		}
-		obscuredWord = sb.toString();
-		underscores.setText(obscuredWord);
-		
-		// If all empty spaces are filled, wins the game
-		if (!obscuredWord.contains("_")) {
-			underscores.setText("");
-			win();
+		underscores.setText(new String(obscuredWord));
+	}
+	
+	/**
+	 * Asks the word index how many words fit the revealed letters and the incorrect guesses.
+	 */
+	private void updateWordsLeft() {
+		WordIndex wordIndex = engine.getWordIndex();
+		if (wordIndex != null) {
+			HangmanRound round = engine.getRound();
+			wordsLeft.setText("Possible words: " 
+					+ wordIndex.count(round.getPattern(), round.getMissedLetters()));
 		}
 	}
+	
 	/**
 	 * Updates the picture of the stick figure with every incorrect guess.
 	 */
 	private void updatePicture() {
 		
-		switch (incorrectGuesses) {
-				
-			case 1:
-				hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-1.png"));
-				break;
-				
-			case 2:
-				hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-2.png"));
-				break;
-				
-			case 3:
-				hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-3.png"));
-				break;
-				
-			case 4:
-				hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-4.png"));
-				break;
-				
-			case 5:
-				hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-5.png"));
-				break;
-				
-			case 6:
-				hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-6.png"));
-				break;
-		}
+		// Pictures are decoded once and shared, so this doesn't touch the disk
+		hangmanImage.setIcon(AssetCache.getHangmanStage(engine.getRound().getIncorrectGuesses()));
 	}
 	
 	/**
-	 * Updates the score and resets fields and GUI, starting a new round.
+	 * Resets fields and GUI for the round the engine started when the last word was solved.
 	 */
 	private void win() {
 		
-		// Updates score and resets fields
-		score += 1;
-		incorrectGuesses = 0;
-		obscuredWord = "";
-		usedChars.clear();
-		
 		// Clears content from page
 		this.remove(bottomPanel);
 		this.remove(topPanel);
 		
-		// Generates a new word
-		generateWord();
-
 		// Resets layout to default (identical to constructor)
 		topPanel = new JPanel();
 		topPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
@@ -323,17 +293,14 @@ public class HangMan extends JFrame implements Game, ActionListener {
 		topPanel.add(leftCenter);
 		
 		hangmanImage = new JLabel();
-		hangmanImage.setIcon(new ImageIcon("resources\\images\\Hangman-0.png"));
+		hangmanImage.setIcon(AssetCache.getHangmanStage(0));
 		hangmanImage.setBackground(Color.WHITE);
 		constraints.gridx = 0;
 		constraints.gridy = 0;
 		leftCenter.add(hangmanImage, constraints);
 		
 		underscores = new JTextField();
-		for (int i = 0; i < currWord.length(); ++i) {
-			obscuredWord += "_ ";
-		}
-		underscores.setText(obscuredWord);
+		underscores.setText(resetObscuredWord());
 		underscores.setHorizontalAlignment(JTextField.CENTER);
 		underscores.setBackground(Color.WHITE);
 		underscores.setEditable(false);
@@ -371,10 +338,14 @@ public class HangMan extends JFrame implements Game, ActionListener {
 		submitButton.addActionListener(this);
 		submissionHolder.add(submitButton);
 		
+		wordsLeft = new JLabel();
+		bottomPanel.add(wordsLeft);
+		updateWordsLeft();
+		
 		// Repaints and revalidates
 		this.repaint();
 		this.revalidate();
-		
+	
 	}
 	
 	/**
@@ -382,49 +353,39 @@ public class HangMan extends JFrame implements Game, ActionListener {
 	 */
 	@Override
 	public void actionPerformed(ActionEvent e) {
-		if (e.getSource() == submitButton) {
-			guess(userInput.getText());
+		long start = System.nanoTime();
+		try {
+			if (e.getSource() == submitButton) {
+				guess(userInput.getText());
+			}
+		}
+		finally {
+			EDT_TIME.recordSince(start);
 		}
-		
 	}
 	
 	/**
-	 * Reads from hangman.txt to populate the ArrayList possibleWords.
+	 * Gets hangman.txt from the word bank registry, building the word index the first time 
+	 * and whenever the file has changed, and sets up the engine with them.
+	 * @param evilMode true to dodge the user's guesses instead of using a fixed word
 	 */
-	private void readWordBank() {
+	private void readWordBank(boolean evilMode) {
 		
 		try {
-			FileInputStream fileByteStream = new FileInputStream("resources\\hangman.txt");
-			Scanner inFS = new Scanner(fileByteStream);
-			
-			if (!inFS.hasNext()) {
-				inFS.close();
-				throw new EmptyFileException();
-			}
-			
-			while (inFS.hasNext()) {
-				possibleWords.add(inFS.nextLine());
-			}
-			
-			inFS.close();
+			WordBank possibleWords = WordBankRegistry.get(WordBankRegistry.HANGMAN);
+			engine = new HangmanEngine(possibleWords, HangmanEngine.indexFor(possibleWords), evilMode, new Random());
 		}
 		
 		catch (EmptyFileException e){
+			WORD_BANK_ERRORS.increment();
 			e.printStackTrace();
 		} 
-		catch (FileNotFoundException e) {
+		catch (IOException e) {
+			WORD_BANK_ERRORS.increment();
 			e.printStackTrace();
 		}
 	}
 	
-	/**
-	 * Randomly chooses a word to be the hidden word and updates the field currWord
-	 */
-	private void generateWord() {
-		Random r = new Random();
-		currWord = possibleWords.get(r.nextInt(0,possibleWords.size()));
-	}
-	
 	/**
 	 * Signals to the user that the game is over, stopping the game and displaying 
 	 * the user's score.
@@ -442,21 +403,19 @@ public class HangMan extends JFrame implements Game, ActionListener {
 		// Sets layout to FlowLayout
 		this.setLayout(new FlowLayout(FlowLayout.CENTER));
 		
-		// Displays game over screen
-		this.add(new GameOverScreen(score));
+		// Displays game over screen, which adds the score to the leaderboard once the user's best is read
+		this.add(new GameOverScreen(engine.getScore(), PersonalBests.HANGMAN, 
+				Main.titleFrame.currUsername, this));
 		
 		// Repaints and revalidates
 		this.repaint();
 		this.revalidate();
-		
-		// Adds score to leaderboard
-		addHighScore(Main.titleFrame.currUsername, score);
-		
+	
 	}
 	
 	/**
 	 * When the game ends, takes the score and the current user logged in and records
-	 * it to the leaderboard text file. 
+	 * it to the game's leaderboard store in the background. 
 	 * 
 	 * @param user the username to be added
 	 * @param score the high score to be added
@@ -464,19 +423,7 @@ public class HangMan extends JFrame implements Game, ActionListener {
 	
 	@Override
 	public void addHighScore(String user, int score) {
-		try {
-			FileWriter outputStream = new FileWriter("resources\\images\\hangmanLeaderboard.txt", true);
-			BufferedWriter outFS = new BufferedWriter(outputStream);
-			outFS.write(user + "\n");
-			outFS.write(score + "\n");
-			outFS.close();
-			outputStream.close();
-			
-		} 
-		catch (IOException e) {
-			e.printStackTrace();
-		}
-		
+		ScoreSink.get().submit(LeaderboardStore.HANGMAN, user, score);
 	}
 
 }
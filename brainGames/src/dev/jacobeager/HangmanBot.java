@@ -0,0 +1,71 @@
+package dev.jacobeager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * This class plays hangman by letter frequency. It guesses the letter found in the most 
+ * words that still fit the revealed letters and the misses, or the most common letter in 
+ * English if no word in the index fits.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class HangmanBot implements GameBot {
+	
+	/**
+	 * Letters from most to least common in English.
+	 */
+	private static final String ENGLISH_ORDER = "etaoinshrdlcumwfgypbvkjxqz";
+	
+	private final WordIndex wordIndex;
+	
+	// Words containing each letter, reused for every guess
+	private final int[] letterCounts = new int[26];
+	
+	/**
+	 * Creates a bot.
+	 * @param wordIndex an index over the words the game picks from
+	 */
+	public HangmanBot(WordIndex wordIndex) {
+		this.wordIndex = wordIndex;
+	}
+	
+	@Override
+	public String nextInput(String snapshot) {
+		
+		String pattern = SnapshotReader.getString(snapshot, "pattern");
+		int missed = WordIndex.lettersMask(SnapshotReader.getString(snapshot, "missed"));
+		int guessed = missed | WordIndex.lettersMask(pattern);
+		
+		// Counts each letter once per word that still fits
+		Arrays.fill(letterCounts, 0);
+		BitSet matches = wordIndex.match(pattern, missed);
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+			for (int rest = WordIndex.lettersMask(wordIndex.wordAt(pattern.length(), i)) & ~guessed; rest != 0; rest &= rest - 1) {
+				++letterCounts[Integer.numberOfTrailingZeros(rest)];
+			}
+		}
+		
+		int best = -1;
+		for (int letter = 0; letter < 26; ++letter) {
+			if (letterCounts[letter] > 0 && (best < 0 || letterCounts[letter] > letterCounts[best])) {
+				best = letter;
+			}
+		}
+		if (best >= 0) {
+			return String.valueOf((char) ('a' + best));
+		}
+		
+		// No word fits, so falls back on how common letters are
+		for (int i = 0; i < ENGLISH_ORDER.length(); ++i) {
+			char c = ENGLISH_ORDER.charAt(i);
+			if ((guessed & (1 << (c - 'a'))) == 0) {
+				return String.valueOf(c);
+			}
+		}
+		return "a";
+	}
+}
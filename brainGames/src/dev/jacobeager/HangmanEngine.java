@@ -0,0 +1,203 @@
+package dev.jacobeager;
+
+import java.util.Random;
+
+
+/**
+ * This class is the rules of hangman without any windows. Each round a word is picked from 
+ * the word bank, or in evil mode only its length is, and the player guesses one letter at a 
+ * time until the word is filled in or the figure is finished.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class HangmanEngine implements GameSession {
+	
+	// How long a guess takes, including picking the next word when it wins
+	private static final LatencyHistogram GUESSES = Metrics.histogram("guess.hangman");
+	
+	/**
+	 * The index for the word bank last loaded, shared by every game until the bank changes.
+	 */
+	private static WordIndex sharedIndex;
+	private static WordBank indexedBank;
+	
+	private final WordBank possibleWords;
+	private final WordIndex wordIndex;
+	private final boolean evilMode;
+	private final Random random;
+	
+	/**
+	 * Keeps track of guessed letters and revealed positions for the current word. Replaced 
+	 * every time a new round starts.
+	 */
+	private HangmanRound round;
+	
+	/**
+	 * What the round said about the last letter guessed, from HangmanRound.
+	 */
+	private int lastResult = HangmanRound.INVALID;
+	
+	private int score = 0;
+	private boolean over = false;
+	
+	/**
+	 * Creates a game. start has to be called before it's played.
+	 * @param possibleWords the words to pick from
+	 * @param wordIndex an index over the words, needed for evil mode
+	 * @param evilMode true to dodge the player's guesses instead of using a fixed word
+	 * @param random picks the words
+	 */
+	public HangmanEngine(WordBank possibleWords, WordIndex wordIndex, boolean evilMode, Random random) {
+		this.possibleWords = possibleWords;
+		this.wordIndex = wordIndex;
+		this.evilMode = evilMode;
+		this.random = random;
+	}
+	
+	/**
+	 * Returns the index for a word bank, only building it again if the bank has changed 
+	 * since the last game.
+	 * @param bank the word bank
+	 * @return the index
+	 */
+	public static synchronized WordIndex indexFor(WordBank bank) {
+		if (bank != indexedBank) {
+			sharedIndex = new WordIndex(bank);
+			indexedBank = bank;
+		}
+		return sharedIndex;
+	}
+	
+	@Override
+	public void start() {
+		score = 0;
+		over = false;
+		lastResult = HangmanRound.INVALID;
+		startRound();
+	}
+	
+	@Override
+	public int submit(CharSequence input) {
+		long start = System.nanoTime();
+		int result = play(input);
+		GUESSES.recordSince(start);
+		return result;
+	}
+	
+	/**
+	 * Guesses a letter and moves the game on.
+	 * @param input the letter
+	 * @return the same results as submit
+	 */
+	private int play(CharSequence input) {
+		
+		// Only takes a single character
+		if (over || input.length() != 1) {
+			return INVALID;
+		}
+		
+		lastResult = round.guess(Character.toLowerCase(input.charAt(0)));
+		switch (lastResult) {
+			case HangmanRound.HIT:
+				if (round.isWon()) {
+					++score;
+					startRound();
+					return ROUND_WON;
+				}
+				return CONTINUE;
+			
+			case HangmanRound.MISS:
+				if (round.isLost()) {
+					over = true;
+					return GAME_OVER;
+				}
+				return CONTINUE;
+			
+			// The letter was already guessed or isn't a letter
+			default:
+				return INVALID;
+		}
+	}
+	
+	/**
+	 * Returns the current round. Once a round is won this is already the next one.
+	 * @return the round
+	 */
+	public HangmanRound getRound() {
+		return round;
+	}
+	
+	/**
+	 * Returns what the round said about the last letter guessed.
+	 * @return HangmanRound.HIT, MISS, ALREADY_GUESSED or INVALID
+	 */
+	public int getLastResult() {
+		return lastResult;
+	}
+	
+	/**
+	 * Returns the index over the word bank.
+	 * @return the index, or null if there isn't one
+	 */
+	public WordIndex getWordIndex() {
+		return wordIndex;
+	}
+	
+	@Override
+	public int getScore() {
+		return score;
+	}
+	
+	@Override
+	public boolean isOver() {
+		return over;
+	}
+	
+	@Override
+	public StringBuilder appendSnapshot(StringBuilder sb) {
+		
+		sb.append("{\"game\":\"hangman\",\"score\":").append(score);
+		sb.append(",\"over\":").append(over);
+		sb.append(",\"pattern\":");
+		GameSession.appendJsonString(sb, round.getPattern());
+		sb.append(",\"missed\":\"");
+		int missed = round.getMissedLetters();
+		while (missed != 0) {
+			sb.append((char) ('a' + Integer.numberOfTrailingZeros(missed)));
+			missed &= missed - 1;
+		}
+		sb.append("\",\"incorrect\":").append(round.getIncorrectGuesses());
+		
+		// The word is only given away once it can't be guessed any more
+		if (over) {
+			GameSession.appendJsonString(sb.append(",\"answer\":"), round.getWord());
+		}
+		return sb.append('}');
+	}
+	
+	/**
+	 * Randomly chooses a word to be the hidden word. In evil mode, only the word's length is 
+	 * used, and every word of that length starts as a candidate.
+	 */
+	private void startRound() {
+		
+		String word = possibleWords.randomWord(random);
+		while (word.length() > HangmanState.MAX_LENGTH) {
+			word = possibleWords.randomWord(random);
+		}
+		
+		if (evilMode && wordIndex != null) {
+			
+			// Needs a length the index has words for and that fits the engine's masks
+			while (!WordIndex.isIndexable(word) || word.length() > EvilHangman.MAX_LENGTH) {
+				word = possibleWords.randomWord(random);
+			}
+			round = EvilHangman.forLength(wordIndex, word.length());
+		}
+		else {
+			round = new HangmanState(word);
+		}
+	}
+}
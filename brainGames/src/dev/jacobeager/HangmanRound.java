@@ -0,0 +1,64 @@
+package dev.jacobeager;
+
+/**
+ * This interface establishes the rules of one round of hangman, so the game screen can play 
+ * a fixed hidden word or an adaptive one the same way.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public interface HangmanRound {
+	
+	// Results of a guess
+	public static final int INVALID = -1;
+	public static final int ALREADY_GUESSED = 0;
+	public static final int MISS = 1;
+	public static final int HIT = 2;
+	
+	/**
+	 * Guesses a letter.
+	 * @param c the guessed letter
+	 * @return HIT, MISS, ALREADY_GUESSED, or INVALID if c isn't a letter from a to z
+	 */
+	public int guess(char c);
+	
+	/**
+	 * Returns whether every letter in the word has been guessed.
+	 * @return true if the round is won
+	 */
+	public boolean isWon();
+	
+	/**
+	 * Returns whether the user is out of guesses.
+	 * @return true if the round is lost
+	 */
+	public boolean isLost();
+	
+	/**
+	 * Returns the positions revealed by the last guess, so only those need to be redrawn.
+	 * @return a mask with bit i set if position i was revealed
+	 */
+	public long getLastRevealed();
+	
+	/**
+	 * Returns the letters guessed that aren't in the word.
+	 * @return a mask with bit 0 set for a, up to bit 25 for z
+	 */
+	public int getMissedLetters();
+	
+	/**
+	 * Returns the word with every hidden position as an underscore, like "_a__e".
+	 * @return the pattern
+	 */
+	public String getPattern();
+	
+	public int getIncorrectGuesses();
+	
+	/**
+	 * Returns the hidden word. 
+	 * @return the word, in lower case
+	 */
+	public String getWord();
+
+}
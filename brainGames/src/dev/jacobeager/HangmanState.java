@@ -0,0 +1,188 @@
+package dev.jacobeager;
+
+/**
+ * This class keeps track of one round of hangman using bitmasks. Guessed letters are a 26-bit
+ * mask (bit 0 is a, bit 25 is z), and for each letter the positions it appears at in the word
+ * are worked out once, so a guess reveals its letters with a single OR and a win is a single
+ * mask compare.
+ *
+ * Characters in the word that aren't letters (like spaces) are revealed from the start.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class HangmanState implements HangmanRound {
+	
+	/**
+	 * The number of incorrect guesses that ends the round.
+	 */
+	public static final int MAX_INCORRECT = 6;
+	
+	/**
+	 * The longest word that can be played (one bit per position in a long).
+	 */
+	public static final int MAX_LENGTH = 64;
+	
+	/**
+	 * The hidden word, in lower case.
+	 */
+	private final String word;
+	
+	/**
+	 * The positions each letter appears at in the word.
+	 */
+	private final long[] letterPositions = new long[26];
+	
+	/**
+	 * The letters in the word.
+	 */
+	private final int wordLetters;
+	
+	/**
+	 * The letters guessed so far.
+	 */
+	private int guessedLetters = 0;
+	
+	/**
+	 * The positions shown to the user so far.
+	 */
+	private long revealedPositions = 0;
+	
+	/**
+	 * The positions revealed by the last guess.
+	 */
+	private long lastRevealed = 0;
+	
+	private int incorrectGuesses = 0;
+	
+	/**
+	 * Starts a round with a hidden word.
+	 * @param word the word to guess
+	 */
+	public HangmanState(String word) {
+		
+		this.word = word.toLowerCase();
+		if (this.word.length() > MAX_LENGTH) {
+			throw new IllegalArgumentException("Word too long: " + word);
+		}
+		
+		// Works out where each letter is, revealing anything that isn't a letter
+		int letters = 0;
+		for (int i = 0; i < this.word.length(); ++i) {
+			int letter = this.word.charAt(i) - 'a';
+			if (letter >= 0 && letter < 26) {
+				letterPositions[letter] |= 1L << i;
+				letters |= 1 << letter;
+			}
+			else {
+				revealedPositions |= 1L << i;
+			}
+		}
+		wordLetters = letters;
+	}
+	
+	/**
+	 * Guesses a letter.
+	 * @param c the guessed letter
+	 * @return HIT, MISS, ALREADY_GUESSED, or INVALID if c isn't a letter from a to z
+	 */
+	@Override
+	public int guess(char c) {
+		
+		int letter = Character.toLowerCase(c) - 'a';
+		if (letter < 0 || letter >= 26) {
+			return INVALID;
+		}
+		
+		int bit = 1 << letter;
+		if ((guessedLetters & bit) != 0) {
+			return ALREADY_GUESSED;
+		}
+		guessedLetters |= bit;
+		
+		lastRevealed = letterPositions[letter];
+		if (lastRevealed == 0) {
+			++incorrectGuesses;
+			return MISS;
+		}
+		
+		revealedPositions |= lastRevealed;
+		return HIT;
+	}
+	
+	/**
+	 * Returns whether every letter in the word has been guessed.
+	 * @return true if the round is won
+	 */
+	@Override
+	public boolean isWon() {
+		return (guessedLetters & wordLetters) == wordLetters;
+	}
+	
+	/**
+	 * Returns whether the user is out of guesses.
+	 * @return true if the round is lost
+	 */
+	@Override
+	public boolean isLost() {
+		return incorrectGuesses >= MAX_INCORRECT;
+	}
+	
+	/**
+	 * Returns the positions revealed by the last guess, so only those need to be redrawn.
+	 * @return a mask with bit i set if position i was revealed
+	 */
+	@Override
+	public long getLastRevealed() {
+		return lastRevealed;
+	}
+	
+	/**
+	 * Returns every position shown to the user so far.
+	 * @return a mask with bit i set if position i is shown
+	 */
+	public long getRevealedPositions() {
+		return revealedPositions;
+	}
+	
+	/**
+	 * Returns the letters guessed so far.
+	 * @return a mask with bit 0 set for a, up to bit 25 for z
+	 */
+	public int getGuessedLetters() {
+		return guessedLetters;
+	}
+	
+	/**
+	 * Returns the letters guessed that aren't in the word.
+	 * @return a mask with bit 0 set for a, up to bit 25 for z
+	 */
+	@Override
+	public int getMissedLetters() {
+		return guessedLetters & ~wordLetters;
+	}
+	
+	/**
+	 * Returns the word with every hidden position as an underscore, like "_a__e".
+	 * @return the pattern
+	 */
+	@Override
+	public String getPattern() {
+		char[] pattern = new char[word.length()];
+		for (int i = 0; i < pattern.length; ++i) {
+			pattern[i] = (revealedPositions & (1L << i)) != 0 ? word.charAt(i) : '_';
+		}
+		return new String(pattern);
+	}
+	
+	@Override
+	public int getIncorrectGuesses() {
+		return incorrectGuesses;
+	}
+	
+	@Override
+	public String getWord() {
+		return word;
+	}
+}
@@ -0,0 +1,23 @@
+package dev.jacobeager;
+
+/**
+ * This record is used to make objects which track high scores and their associated users together.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+record HighScore(String user, int score) implements Comparable<HighScore> {
+	
+	@Override
+	public String toString() {
+		String stringRep = user + ": " + score;
+		return stringRep;
+	}
+	
+	@Override
+	public int compareTo(HighScore other) {
+		return Integer.compare(other.score, this.score);
+	}
+
+}
@@ -0,0 +1,147 @@
+package dev.jacobeager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * This class counts how long something takes, in nanoseconds, so percentiles can be read 
+ * back without keeping every value. Like an HDR histogram, values are put in buckets that 
+ * are a power of two wide split into 32 sub-buckets, so every value is kept to within about 
+ * 3% whether it's a microsecond or a minute. Recording is a few shifts and one atomic add, 
+ * and never allocates, so it can be called from many threads on hot paths.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class LatencyHistogram {
+	
+	// Each power of two is split into 2^SUB_BITS sub-buckets
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	
+	/**
+	 * Values below this are counted exactly.
+	 */
+	private static final int EXACT_LIMIT = 2 * SUB_COUNT;
+	
+	private static final int BUCKETS = 64 * SUB_COUNT;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	
+	/**
+	 * Records one value.
+	 * @param nanos the value, in nanoseconds; negative values are counted as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(indexOf(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+	
+	/**
+	 * Records the time since a start time.
+	 * @param startNanos the start time, from System.nanoTime
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+	
+	public long getCount() {
+		return count.sum();
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * Returns the mean of every value recorded.
+	 * @return the mean, in nanoseconds, or 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+	
+	/**
+	 * Returns the value that a percentage of the values recorded are at or below.
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the highest value in that value's bucket, in nanoseconds, or 0 if nothing has 
+	 * been recorded
+	 */
+	public long getPercentile(double percentile) {
+		
+		// Counts are read one by one, so this is only exact if nothing is recorded meanwhile
+		long total = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; ++i) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; ++i) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+	
+	/**
+	 * Clears every value recorded.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; ++i) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+	
+	/**
+	 * Finds the bucket a value goes in.
+	 * @param value the value, at least 0
+	 * @return the bucket
+	 */
+	private static int indexOf(long value) {
+		
+		if (value < EXACT_LIMIT) {
+			return (int) value;
+		}
+		
+		// Keeps the top SUB_BITS + 1 bits of the value
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return shift * SUB_COUNT + (int) (value >>> shift);
+	}
+	
+	/**
+	 * Returns the highest value that goes in a bucket.
+	 * @param index the bucket
+	 * @return the value
+	 */
+	private static long highestValueOf(int index) {
+		
+		if (index < EXACT_LIMIT) {
+			return index;
+		}
+		
+		int shift = index / SUB_COUNT - 1;
+		long sub = index % SUB_COUNT + SUB_COUNT;
+		return ((sub + 1) << shift) - 1;
+	}
+}
@@ -1,36 +1,73 @@
 package dev.jacobeager;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.io.FileInputStream;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
 
 
 /**
  * This class is used to gather text from the leaderboard files and display them in a new GUI.
- * 
+ *
  * @author Jacob Eager
  * @version 1.0
  */
 
 public class Leaderboard extends JFrame {
-
+	
 	// Version ID
 	private static final long serialVersionUID = -2254063038026625723L;
-
+	
+	// How long reading a leaderboard's top scores takes, and how often it fails
+	private static final LatencyHistogram LOADS = Metrics.histogram("load.leaderboard");
+	private static final LongAdder ERRORS = Metrics.counter("errors.leaderboard");
+	
+	/**
+	 * The number of scores shown on each tab.
+	 */
+	private static final int DISPLAY_LIMIT = 100;
+	
+	/**
+	 * The number of rows added to a tab at a time while it loads.
+	 */
+	private static final int CHUNK_SIZE = 20;
+	
+	/**
+	 * Each game's store, in the same order as the games in PersonalBests.
+	 */
+	private static final LeaderboardStore[] STORES = {
+			LeaderboardStore.QUIZ_BOWL, LeaderboardStore.HANGMAN, LeaderboardStore.WORDLE};
+	
 	/**
-	 * Constructor that creates the GUI.
+	 * Background loaders for the three tabs, cancelled when the window closes.
+	 */
+	private final ArrayList<TabLoader> loaders = new ArrayList<TabLoader>();
+	
+	// The text area and rank label of each tab, in the same order as STORES
+	private final JTextArea[] scoreTexts = new JTextArea[PersonalBests.GAMES];
+	private final JLabel[] rankLabels = new JLabel[PersonalBests.GAMES];
+	
+	/**
+	 * Constructor that creates the GUI. The scores are loaded in the background after the
+	 * window is shown.
 	 */
 	public Leaderboard() {
 		
@@ -38,6 +75,7 @@ public class Leaderboard extends JFrame {
 		this.setSize(new Dimension (400, 500));
 		this.setResizable(false);
 		this.setTitle("Leaderboard");
+		this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 		
 		// Panel containing quiz bowl high scores
 		JPanel quizBowlPanel = new JPanel();
@@ -47,17 +85,22 @@ public class Leaderboard extends JFrame {
 		scoreLabel1.setFont(new Font("Comic Sans MS", Font.BOLD, 20));
 		quizBowlPanel.add(scoreLabel1);
 		
-		// Makes scrollable pane
+		// Makes scrollable pane (fixed size so it doesn't jump around while loading)
 		JScrollPane quizBowlScores = new JScrollPane();
+		quizBowlScores.setPreferredSize(new Dimension(350, 360));
 		quizBowlPanel.add(quizBowlScores);
 		
 		// Adds text area to scroll pane
 		JTextArea quizBowlText = new JTextArea(0,30);
-		quizBowlText.setText(getScoreboardText("resources\\quizLeaderboard.txt"));
+		quizBowlText.setText("Loading...");
 		quizBowlText.setCaretColor(Color.WHITE);
 		quizBowlText.setEditable(false);
 		quizBowlScores.setViewportView(quizBowlText);
 		
+		// Shows the current user's rank once it's known
+		JLabel rankLabel1 = new JLabel(" ");
+		quizBowlPanel.add(rankLabel1);
+		
 		// Panel containing hangman high scores
 		JPanel hangmanPanel = new JPanel();
 		
@@ -68,15 +111,20 @@ public class Leaderboard extends JFrame {
 		
 		// Makes scrollable pane
 		JScrollPane hangmanScores = new JScrollPane();
+		hangmanScores.setPreferredSize(new Dimension(350, 360));
 		hangmanPanel.add(hangmanScores);
 		
 		// Adds text area to scroll pane
 		JTextArea hangmanText = new JTextArea(0,30);
-		hangmanText.setText(getScoreboardText("resources\\hangmanLeaderboard.txt"));
+		hangmanText.setText("Loading...");
 		hangmanText.setCaretColor(Color.WHITE);
 		hangmanText.setEditable(false);
 		hangmanScores.setViewportView(hangmanText);
 		
+		// Shows the current user's rank once it's known
+		JLabel rankLabel2 = new JLabel(" ");
+		hangmanPanel.add(rankLabel2);
+		
 		// Panel containing wordle scores
 		JPanel wordlePanel = new JPanel();
 		
@@ -87,15 +135,20 @@ public class Leaderboard extends JFrame {
 		
 		// Makes scrollable pane
 		JScrollPane wordleScores = new JScrollPane();
+		wordleScores.setPreferredSize(new Dimension(350, 360));
 		wordlePanel.add(wordleScores);
 		
 		// Adds text area to scroll pane
 		JTextArea wordleText = new JTextArea(0,30);
-		wordleText.setText(getScoreboardText("resources\\wordleLeaderboard.txt"));
+		wordleText.setText("Loading...");
 		wordleText.setCaretColor(Color.WHITE);
 		wordleText.setEditable(false);
 		wordleScores.setViewportView(wordleText);
 		
+		// Shows the current user's rank once it's known
+		JLabel rankLabel3 = new JLabel(" ");
+		wordlePanel.add(rankLabel3);
+		
 		// Adds the three panels to the menu tab
 		JTabbedPane menuTab = new JTabbedPane();
 		menuTab.setBounds(50,50,300,300);
@@ -104,77 +157,137 @@ public class Leaderboard extends JFrame {
 		menuTab.add("Wordle",wordlePanel);
 		this.add(menuTab);
 		
+		// Switches between every score and each player's best score
+		JCheckBox bestPerUser = new JCheckBox("One row per player");
+		bestPerUser.addActionListener(e -> loadTabs(bestPerUser.isSelected()));
+		this.add(bestPerUser, BorderLayout.SOUTH);
+		
+		scoreTexts[PersonalBests.QUIZ_BOWL] = quizBowlText;
+		scoreTexts[PersonalBests.HANGMAN] = hangmanText;
+		scoreTexts[PersonalBests.WORDLE] = wordleText;
+		rankLabels[PersonalBests.QUIZ_BOWL] = rankLabel1;
+		rankLabels[PersonalBests.HANGMAN] = rankLabel2;
+		rankLabels[PersonalBests.WORDLE] = rankLabel3;
+		
+		// Stops loading if the window is closed first
+		this.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				cancelLoaders();
+			}
+		});
+		
 		this.setVisible(true);
+		
+		loadTabs(false);
 	}
 	
 	/**
-	 * Takes the data from a given text path and turns it into a string to be displayed.
-	 * @param filePath the path of the leaderboard file
-	 * @return a text representation of the sorted leaderboard
+	 * Loads the three tabs at the same time, off the event dispatch thread, replacing
+	 * whatever they were showing.
+	 * @param bestPerUser true to show only each player's best score, from PersonalBests
 	 */
-	public String getScoreboardText(String filePath) {
+	private void loadTabs(boolean bestPerUser) {
 		
-		// ArrayList for HighScore objects (contain user and score)
-		ArrayList<HighScore> scores = new ArrayList<HighScore>();
+		cancelLoaders();
 		
-		String user;
-		String scoreNum;
+		String user = Main.titleFrame.currUsername;
+		for (int game = 0; game < STORES.length; ++game) {
+			scoreTexts[game].setText("Loading...");
+			rankLabels[game].setText(" ");
+			loaders.add(new TabLoader(game, scoreTexts[game], rankLabels[game], user, bestPerUser));
+		}
+		for (TabLoader loader : loaders) {
+			loader.execute();
+		}
+	}
+	
+	/**
+	 * Stops every tab that is still loading. The loaders aren't interrupted, since an 
+	 * interrupt would close files the stores share with ScoreSink; each one checks whether 
+	 * it was cancelled instead.
+	 */
+	private void cancelLoaders() {
+		for (TabLoader loader : loaders) {
+			loader.cancel(false);
+		}
+		loaders.clear();
+	}
+	
+	/**
+	 * Takes the best scores from a leaderboard store and turns them into a string to be displayed.
+	 * @param store the store holding the game's high scores
+	 * @return a text representation of the sorted leaderboard
+	 */
+	public String getScoreboardText(LeaderboardStore store) {
 		
 		String text = "";
 		
 		try {
-			FileInputStream fileByteStream = new FileInputStream(filePath);
-			Scanner inFS = new Scanner(fileByteStream);
+			// The store reads its sorted index, so only the shown rows are read
+			long start = System.nanoTime();
+			ArrayList<HighScore> scores = store.top(DISPLAY_LIMIT);
+			LOADS.recordSince(start);
 			
-			// Checks if leaderboard file is empty
-			if (!inFS.hasNextLine()) {
-				inFS.close();
+			// Checks if leaderboard is empty
+			if (scores.isEmpty()) {
 				throw new EmptyFileException();
 			}
 			
-			while (inFS.hasNextLine()) {
-				user = inFS.nextLine().trim();
-				// Checks for valid username
-				if (LoginFrame.validateUsername(user)) {
-					if (inFS.hasNextLine()) {
-						scoreNum = inFS.nextLine().trim();
-						
-						// Checks for valid score and adds both to array
-						if (Pattern.matches("\\d{1,}", scoreNum)) {
-							scores.add(new HighScore(user,Integer.parseInt(scoreNum)));
-							text = sortScores(scores);
-						}
-						else {
-							inFS.close();
-							// Throws exception if no score
-							throw new InvalidFormatException();
-						}
-					}
-				}
-				else {
-					inFS.close();
-					// Throws exception if username is invalid
-					throw new InvalidFormatException();
-				}
+			// Puts the user's rank above the scores if they have one
+			String rankText = getRankText(store, Main.titleFrame.currUsername);
+			if (!rankText.isEmpty()) {
+				text = rankText + "\n\n";
 			}
-			
-			inFS.close();
+			text += sortScores(scores);
 		}
-		catch (EmptyFileException e) {
-			text = "File is empty!";
+		catch (Exception e) {
+			text = getErrorText(e);
 		}
-		catch (InvalidFormatException e) {
-			text = "Leaderboard file is incorrectly formatted";
+		
+		return text;
+	}
+	
+	/**
+	 * Turns an exception from reading a leaderboard into a message to be displayed.
+	 * @param e the exception thrown
+	 * @return the message to display instead of the scores
+	 */
+	private static String getErrorText(Exception e) {
+		
+		if (e instanceof EmptyFileException) {
+			return "File is empty!";
 		}
-		catch (FileNotFoundException e) {
-			text = "File not found!";
+		
+		ERRORS.increment();
+		if (e instanceof InvalidFormatException) {
+			return "Leaderboard file is incorrectly formatted";
 		}
-		catch (Exception e) {
-			text = "Unknown error occurred!";
-			e.printStackTrace();
+		if (e instanceof FileNotFoundException) {
+			return "File not found!";
 		}
 		
-		return text;
+		e.printStackTrace();
+		return "Unknown error occurred!";
+	}
+	
+	/**
+	 * Finds where a user's best score places on a leaderboard.
+	 * @param store the store holding the game's high scores
+	 * @param user the username to look up
+	 * @return a line showing the user's rank, or an empty string if they have no scores
+	 * @throws IOException if the store can't be read
+	 * @throws InvalidFormatException if the store is malformed
+	 */
+	public String getRankText(LeaderboardStore store, String user)
+			throws IOException, InvalidFormatException {
+		
+		// The store keeps its ranking, so only scores recorded since the last look are read
+		int rank = store.rankOf(user);
+		if (rank == 0) {
+			return "";
+		}
+		return "Your rank: #" + rank + " (best " + store.bestOf(user) + ")";
 	}
 	
 	/**
@@ -183,35 +296,146 @@ public class Leaderboard extends JFrame {
 	 * @return text of sorted scores and users
 	 */
 	public String sortScores (ArrayList<HighScore> scores) {
-		String text = "";
-		scores.sort(null);
 		
-		for (int i = 0; i < scores.size(); ++i) {
-			text += (i+1) + ". " + scores.get(i).toString() + "\n";
+		// Takes in each row once and writes the ranked text in one pass
+		ScoreRanking ranking = new ScoreRanking(scores.size());
+		for (HighScore highScore : scores) {
+			ranking.offer(highScore);
 		}
-		return text;
+		return ranking.appendTo(new StringBuilder()).toString();
 	}
-
+	
 	
 	/**
-	 * This record is used to make objects which track high scores and their associated users together. 
-	 * 
+	 * This inner class loads one tab of the leaderboard in the background. The best scores are
+	 * added to the tab a chunk at a time as soon as they are read from the sorted index, and
+	 * the user's rank is shown after. The store keeps the ranking between loads, so only the 
+	 * first load reads every score. With one row per player, the
+	 * rows and rank come from PersonalBests instead, so no scores are read.
+	 *
 	 * @author Jacob Eager
 	 * @version 1.0
 	 */
-
-	private record HighScore(String user, int score) implements Comparable<HighScore> {
-
+	
+	private class TabLoader extends SwingWorker<String, String> {
+		
+		private final int game;
+		private final LeaderboardStore store;
+		private final JTextArea scoreText;
+		private final JLabel rankLabel;
+		private final String user;
+		private final boolean bestPerUser;
+		
+		// Whether the "Loading..." text has been replaced yet
+		private boolean started = false;
+		
+		/**
+		 * Creates a loader for one tab.
+		 * @param game the game in PersonalBests
+		 * @param scoreText the text area the scores go in
+		 * @param rankLabel the label the user's rank goes in
+		 * @param user the username to find the rank of
+		 * @param bestPerUser true to show only each player's best score
+		 */
+		private TabLoader(int game, JTextArea scoreText, JLabel rankLabel, String user, 
+				boolean bestPerUser) {
+			this.game = game;
+			this.store = STORES[game];
+			this.scoreText = scoreText;
+			this.rankLabel = rankLabel;
+			this.user = user;
+			this.bestPerUser = bestPerUser;
+		}
+		
+		/**
+		 * Reads the scores, publishing them in chunks, and returns the rank text.
+		 */
 		@Override
-		public String toString() {
-			String stringRep = user + ": " + score;
-			return stringRep;
+		protected String doInBackground() throws Exception {
+			
+			ArrayList<HighScore> scores;
+			if (bestPerUser) {
+				scores = PersonalBests.get().top(game, DISPLAY_LIMIT);
+			}
+			else {
+				scores = store.top(DISPLAY_LIMIT);
+			}
+			
+			// Checks if leaderboard is empty
+			if (scores.isEmpty()) {
+				throw new EmptyFileException();
+			}
+			
+			// Rows come out already ranked
+			StringBuilder chunk = new StringBuilder();
+			for (int i = 0; i < scores.size(); ++i) {
+				chunk.append(i + 1).append(". ").append(scores.get(i)).append('\n');
+				if ((i + 1) % CHUNK_SIZE == 0 || i == scores.size() - 1) {
+					if (isCancelled()) {
+						return "";
+					}
+					publish(chunk.toString());
+					chunk.setLength(0);
+				}
+			}
+			
+			// Finding the rank can read the whole log, so a replaced tab skips it
+			if (isCancelled()) {
+				return "";
+			}
+			
+			if (bestPerUser) {
+				PersonalBests bests = PersonalBests.get();
+				int rank = bests.rankOf(game, user);
+				if (rank == 0) {
+					return "";
+				}
+				return "Your rank: #" + rank + " (best " + bests.getBest(game, user) + ")";
+			}
+			return getRankText(store, user);
 		}
-
+		
+		/**
+		 * Adds published rows to the text area.
+		 */
+		@Override
+		protected void process(List<String> chunks) {
+			
+			// The tab is being loaded again by a newer loader
+			if (isCancelled()) {
+				return;
+			}
+			
+			// Replaces the loading text with the first rows
+			if (!started) {
+				scoreText.setText("");
+				started = true;
+			}
+			for (String chunk : chunks) {
+				scoreText.append(chunk);
+			}
+		}
+		
+		/**
+		 * Shows the rank, or an error message in place of the scores.
+		 */
 		@Override
-		public int compareTo(HighScore other) {
-			return Integer.compare(other.score, this.score);
+		protected void done() {
+			try {
+				rankLabel.setText(get());
+			}
+			catch (CancellationException | InterruptedException e) {
+				// Window was closed, nothing left to show
+			}
+			catch (ExecutionException e) {
+				Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				if (started) {
+					rankLabel.setText(getErrorText(cause));
+				}
+				else {
+					scoreText.setText(getErrorText(cause));
+				}
+			}
 		}
-
 	}
 }
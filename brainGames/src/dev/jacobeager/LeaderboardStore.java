@@ -0,0 +1,506 @@
+package dev.jacobeager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Pattern;
+
+
+/**
+ * This class stores the high scores of one game. Scores are kept in a binary append-only
+ * log (a .dat file) so recording a score never has to read the file, and a sorted index
+ * (a .idx file) holds the best scores so the leaderboard can be read without scanning
+ * every score ever recorded. The log is a WriteAheadLog, so a score that was only partly
+ * written when the program died is dropped the next time the log is opened instead of
+ * breaking the leaderboard.
+ *
+ * The first time a store is used, the scores in the old two-line text file are copied into
+ * the log. A log from before records were checksummed is converted the same way.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class LeaderboardStore {
+	
+	/**
+	 * Store for the quiz bowl high scores.
+	 */
+	public static final LeaderboardStore QUIZ_BOWL = new LeaderboardStore("resources\\quizLeaderboard");
+	
+	/**
+	 * Store for the hangman high scores.
+	 */
+	public static final LeaderboardStore HANGMAN = new LeaderboardStore("resources\\hangmanLeaderboard");
+	
+	/**
+	 * Store for the wordle high scores.
+	 */
+	public static final LeaderboardStore WORDLE = new LeaderboardStore("resources\\wordleLeaderboard");
+	
+	/**
+	 * The most entries kept in the sorted index. Scores below the last indexed entry can
+	 * never be shown, so they are left out of it.
+	 */
+	public static final int INDEX_CAPACITY = 1000;
+	
+	// File headers ("BGLB" and "BGIX")
+	private static final int LOG_MAGIC = 0x42474C42;
+	private static final int INDEX_MAGIC = 0x42474958;
+	private static final short VERSION = 2;
+	
+	// Version of the log before records were checksummed
+	private static final short BARE_LOG_VERSION = 1;
+	
+	// Size of the log header in bytes (magic and version)
+	private static final int LOG_HEADER_SIZE = WriteAheadLog.HEADER_SIZE;
+	
+	// Files used by this store
+	private final File logFile, indexFile, textFile;
+	
+	/**
+	 * The open log, or null until the store is first used.
+	 */
+	private WriteAheadLog log;
+	
+	/**
+	 * Every score in the log up to rankedLength, for looking up ranks, or null until a rank is 
+	 * first asked for. The log is only ever added to, so it's kept and only the scores 
+	 * recorded since are read.
+	 */
+	private ScoreRanking ranking;
+	private long rankedLength;
+	
+	/**
+	 * Creates a store from the path of its files, without the file extension.
+	 * @param basePath path shared by the .dat, .idx and .txt files
+	 */
+	public LeaderboardStore(String basePath) {
+		logFile = new File(basePath + ".dat");
+		indexFile = new File(basePath + ".idx");
+		textFile = new File(basePath + ".txt");
+	}
+	
+	/**
+	 * Adds a score to the end of the log and waits until it's on disk. Only the new record
+	 * is written.
+	 * @param user the username to be added
+	 * @param score the score to be added
+	 * @throws IOException if the log can't be written
+	 * @throws InvalidFormatException if the log needed migrating and is malformed
+	 */
+	public void append(String user, int score) throws IOException, InvalidFormatException {
+		appendBatch(List.of(new HighScore(user, score)), true);
+	}
+	
+	/**
+	 * Adds several scores to the end of the log. Scores added by other threads at the same
+	 * time are written with them, with one write and at most one force to disk.
+	 * @param scores the scores to be added, in order
+	 * @param force true to wait until the scores are on disk
+	 * @throws IOException if the log can't be written
+	 * @throws InvalidFormatException if the log needed migrating and is malformed
+	 */
+	public void appendBatch(List<HighScore> scores, boolean force) 
+			throws IOException, InvalidFormatException {
+		
+		// Encodes every record up front so the batch goes out in one write
+		ArrayList<byte[]> records = new ArrayList<byte[]>(scores.size());
+		for (HighScore score : scores) {
+			records.add(encodeRecord(score.user(), score.score()));
+		}
+		
+		WriteAheadLog openLog;
+		long end;
+		synchronized (this) {
+			openLog = openLog();
+			end = openLog.append(records);
+		}
+		
+		// Commits outside the lock so other threads can add to the group being written
+		openLog.commit(end, force);
+	}
+	
+	/**
+	 * Returns the best scores, highest first. Scores that are tied stay in the order they
+	 * were recorded. Any records added since the index was last written are merged into it
+	 * first.
+	 * @param n the number of scores wanted (at most INDEX_CAPACITY are available)
+	 * @return the top n scores
+	 * @throws IOException if the files can't be read
+	 * @throws InvalidFormatException if a file is malformed
+	 */
+	public synchronized ArrayList<HighScore> top(int n) throws IOException, InvalidFormatException {
+		
+		openLog();
+		
+		SortedIndex index = readIndex();
+		
+		// Brings the index up to date with the end of the log
+		if (index.coveredLength < log.getWrittenLength()) {
+			index.coveredLength = log.forEach(index.coveredLength,
+					(offset, record) -> index.insert(scoreOf(record), offset));
+			writeIndex(index);
+		}
+		
+		// Reads the names of the top n records
+		int count = Math.min(n, index.count);
+		ArrayList<HighScore> scores = new ArrayList<HighScore>(count);
+		for (int i = 0; i < count; ++i) {
+			scores.add(decodeRecord(ByteBuffer.wrap(log.read(index.offsets[i]))));
+		}
+		
+		return scores;
+	}
+	
+	/**
+	 * Reads every record in the log, in the order they were recorded, into a ranking.
+	 * Stops with an InterruptedIOException if the reading thread is interrupted.
+	 * @param ranking the ranking to add the records to
+	 * @throws IOException if the log can't be read
+	 * @throws InvalidFormatException if the log is malformed
+	 */
+	public void scan(ScoreRanking ranking) throws IOException, InvalidFormatException {
+		scan(ranking::offer);
+	}
+	
+	/**
+	 * Gives every record in the log, in the order they were recorded, to a visitor.
+	 * Stops with an InterruptedIOException if the reading thread is interrupted.
+	 * @param visitor takes the username and score of each record
+	 * @throws IOException if the log can't be read
+	 * @throws InvalidFormatException if the log is malformed
+	 */
+	public synchronized void scan(ObjIntConsumer<String> visitor) throws IOException, InvalidFormatException {
+		
+		openLog();
+		
+		log.forEach(LOG_HEADER_SIZE, (offset, record) -> {
+			
+			// Lets a cancelled reader stop partway through a long log
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException();
+			}
+			
+			HighScore score = decodeRecord(record);
+			visitor.accept(score.user(), score.score());
+		});
+	}
+	
+	/**
+	 * Finds where a user's best score places among every score in the log. Rows with the same 
+	 * score share a rank. Only the scores recorded since the last call are read.
+	 * @param user the username to look up
+	 * @return the rank, starting at 1, or 0 if the user has no scores
+	 * @throws IOException if the log can't be read
+	 * @throws InvalidFormatException if the log is malformed
+	 */
+	public synchronized int rankOf(String user) throws IOException, InvalidFormatException {
+		return updateRanking().rankOf(user);
+	}
+	
+	/**
+	 * Returns a user's best score in the log. Only the scores recorded since the last call 
+	 * are read.
+	 * @param user the username to look up
+	 * @return the best score, or -1 if the user has no scores
+	 * @throws IOException if the log can't be read
+	 * @throws InvalidFormatException if the log is malformed
+	 */
+	public synchronized int bestOf(String user) throws IOException, InvalidFormatException {
+		return updateRanking().bestOf(user);
+	}
+	
+	/**
+	 * Adds every score recorded since the ranking was last brought up to date. If reading is 
+	 * stopped partway, the ranking is thrown away and built again next time, since it can't 
+	 * be told which scores it took.
+	 * @return the ranking
+	 * @throws IOException if the log can't be read
+	 * @throws InvalidFormatException if the log is malformed
+	 */
+	private ScoreRanking updateRanking() throws IOException, InvalidFormatException {
+		
+		openLog();
+		if (ranking == null) {
+			ranking = new ScoreRanking(0);
+			rankedLength = LOG_HEADER_SIZE;
+		}
+		
+		try {
+			rankedLength = log.forEach(rankedLength, (offset, record) -> {
+				
+				// Lets a cancelled reader stop partway through a long log
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException();
+				}
+				
+				HighScore score = decodeRecord(record);
+				ranking.offer(score.user(), score.score());
+			});
+		}
+		catch (IOException | InvalidFormatException e) {
+			ranking = null;
+			throw e;
+		}
+		return ranking;
+	}
+	
+	/**
+	 * Encodes one record: the length of the name, the name, and the score.
+	 * @param user the username
+	 * @param score the score
+	 * @return the record
+	 */
+	private static byte[] encodeRecord(String user, int score) {
+		byte[] nameBytes = user.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(1 + nameBytes.length + 4);
+		record.put((byte) nameBytes.length);
+		record.put(nameBytes);
+		record.putInt(score);
+		return record.array();
+	}
+	
+	/**
+	 * Decodes one record.
+	 * @param record the record
+	 * @return the username and score
+	 */
+	private static HighScore decodeRecord(ByteBuffer record) {
+		int nameLength = Byte.toUnsignedInt(record.get(record.position()));
+		String user = new String(record.array(), record.arrayOffset() + record.position() + 1, nameLength,
+				StandardCharsets.UTF_8);
+		return new HighScore(user, scoreOf(record));
+	}
+	
+	/**
+	 * Returns the score in a record without decoding the name.
+	 * @param record the record
+	 * @return the score
+	 */
+	private static int scoreOf(ByteBuffer record) {
+		return record.getInt(record.limit() - 4);
+	}
+	
+	/**
+	 * Opens the log the first time the store is used, migrating the older files into it.
+	 * Opening the log cuts off any record that was only partly written.
+	 * @return the log
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if a file is malformed
+	 */
+	private synchronized WriteAheadLog openLog() throws IOException, InvalidFormatException {
+		if (log == null) {
+			migrateIfNeeded();
+			log = new WriteAheadLog(logFile, LOG_MAGIC);
+		}
+		return log;
+	}
+	
+	/**
+	 * Creates the log if it doesn't exist yet, copying over any scores from the old
+	 * text file, or converts a log from before records were checksummed.
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if the old file is malformed
+	 */
+	private void migrateIfNeeded() throws IOException, InvalidFormatException {
+		
+		ArrayList<byte[]> records = new ArrayList<byte[]>();
+		
+		if (logFile.exists()) {
+			if (WriteAheadLog.readVersion(logFile, LOG_MAGIC) != BARE_LOG_VERSION) {
+				return;
+			}
+			readBareLog(records);
+		}
+		else if (textFile.exists()) {
+			try (Scanner inFS = new Scanner(new FileInputStream(textFile))) {
+				while (inFS.hasNextLine()) {
+					String user = inFS.nextLine().trim();
+					
+					// Skips blank lines at the end of the file
+					if (user.isEmpty() && !inFS.hasNextLine()) {
+						break;
+					}
+					
+					// Username has to be valid and followed by a score
+					if (!LoginFrame.validateUsername(user) || !inFS.hasNextLine()) {
+						throw new InvalidFormatException();
+					}
+					
+					String scoreNum = inFS.nextLine().trim();
+					if (!Pattern.matches("\\d{1,9}", scoreNum)) {
+						throw new InvalidFormatException();
+					}
+					
+					records.add(encodeRecord(user, Integer.parseInt(scoreNum)));
+				}
+			}
+		}
+		
+		WriteAheadLog.create(logFile, LOG_MAGIC, records);
+		indexFile.delete();
+	}
+	
+	/**
+	 * Reads the records of a log from before records were checksummed. A record cut off at
+	 * the end of the file is dropped.
+	 * @param records the list to add the records to
+	 * @throws IOException if the log can't be read
+	 */
+	private void readBareLog(ArrayList<byte[]> records) throws IOException {
+		
+		try (DataInputStream inFS = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(logFile)))) {
+			inFS.skipNBytes(LOG_HEADER_SIZE);
+			
+			byte[] nameBytes = new byte[255];
+			while (true) {
+				int nameLength = inFS.read();
+				if (nameLength < 0) {
+					break;
+				}
+				inFS.readFully(nameBytes, 0, nameLength);
+				records.add(encodeRecord(new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8),
+						inFS.readInt()));
+			}
+		}
+		catch (EOFException e) {
+			// Drops the torn record at the end
+		}
+	}
+	
+	/**
+	 * Reads the sorted index. If the index is missing or doesn't match the log, an empty
+	 * index covering only the log header is returned so the whole log gets merged.
+	 * @return the index
+	 * @throws IOException if the index can't be read
+	 */
+	private SortedIndex readIndex() throws IOException {
+		
+		SortedIndex index = new SortedIndex();
+		
+		if (!indexFile.exists()) {
+			return index;
+		}
+		
+		try (DataInputStream inFS = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(indexFile)))) {
+			
+			if (inFS.readInt() != INDEX_MAGIC || inFS.readShort() != VERSION) {
+				return index;
+			}
+			
+			long coveredLength = inFS.readLong();
+			int count = inFS.readInt();
+			
+			// An index past the end of the log belongs to an older log
+			if (coveredLength > log.getWrittenLength() || count > INDEX_CAPACITY) {
+				return index;
+			}
+			
+			for (int i = 0; i < count; ++i) {
+				index.scores[i] = inFS.readInt();
+				index.offsets[i] = inFS.readLong();
+			}
+			index.count = count;
+			index.coveredLength = coveredLength;
+		}
+		catch (EOFException e) {
+			// A cut off index is rebuilt from the log
+			return new SortedIndex();
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Writes the sorted index, replacing the old one in a single move.
+	 * @param index the index to write
+	 * @throws IOException if the index can't be written
+	 */
+	private void writeIndex(SortedIndex index) throws IOException {
+		
+		File tempFile = new File(indexFile.getPath() + ".tmp");
+		
+		try (DataOutputStream outFS = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			outFS.writeInt(INDEX_MAGIC);
+			outFS.writeShort(VERSION);
+			outFS.writeLong(index.coveredLength);
+			outFS.writeInt(index.count);
+			for (int i = 0; i < index.count; ++i) {
+				outFS.writeInt(index.scores[i]);
+				outFS.writeLong(index.offsets[i]);
+			}
+		}
+		
+		Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	
+	/**
+	 * The best INDEX_CAPACITY scores and where their records are in the log, highest first.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private static class SortedIndex {
+		
+		private final int[] scores = new int[INDEX_CAPACITY];
+		private final long[] offsets = new long[INDEX_CAPACITY];
+		private int count = 0;
+		private long coveredLength = LOG_HEADER_SIZE;
+		
+		/**
+		 * Adds a record, keeping the arrays sorted. Tied scores go after the ones already
+		 * there, and a full index drops its lowest score.
+		 * @param score the score of the record
+		 * @param offset where the record starts in the log
+		 */
+		private void insert(int score, long offset) {
+			
+			// Too low to be indexed
+			if (count == INDEX_CAPACITY && score <= scores[count - 1]) {
+				return;
+			}
+			
+			// Binary search for the first lower score
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (scores[mid] >= score) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			
+			// Shifts lower scores down by one
+			int moved = Math.min(count, INDEX_CAPACITY - 1) - low;
+			System.arraycopy(scores, low, scores, low + 1, moved);
+			System.arraycopy(offsets, low, offsets, low + 1, moved);
+			scores[low] = score;
+			offsets[low] = offset;
+			count = Math.min(count + 1, INDEX_CAPACITY);
+		}
+	}
+}
@@ -0,0 +1,359 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.management.ThreadMXBean;
+
+
+/**
+ * This class plays the games with bots as fast as it can, to find out how many players one 
+ * machine can take. Each player is a thread that plays one game after another until time 
+ * is up: a WordleBot for Wordle, a HangmanBot for hangman, and a QuizBot for 
+ * Quiz Bowl. Games are played on the engines here, or on a GameServer if one is given. The 
+ * Wordle and hangman bots rarely lose, so a player walks away from a game after winning a 
+ * number of rounds, which ends it like losing would.
+ * 
+ * Every step is timed in a LatencyHistogram, and the report gives the throughput and the 
+ * 50th, 99th and 99.9th percentile of each, and how fast memory was allocated. With 
+ * --record-scores, each finished game's score is recorded through Game.addHighScore, the 
+ * same way the game screens do, so writing scores is tested under load too. Those scores 
+ * go into the real leaderboards and personal bests under the names bot0, bot1 and so on, 
+ * unless --scratch-scores is given, which records them in new leaderboards in a temporary 
+ * directory instead. Against a server, the server records them instead, if it was started 
+ * with --record-scores, but only for games that were lost.
+ * 
+ * Run from the brainGames directory so the banks in resources are found:
+ * 
+ * java -cp target/brainGames-1.0.jar dev.jacobeager.LoadDriver --players 256 --seconds 30
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class LoadDriver {
+	
+	/**
+	 * The games played, in the order players take turns at them.
+	 */
+	public static final String[] GAMES = {"wordle", "hangman", "quizBowl"};
+	
+	// Settings, changed by command line options
+	private int players = 64;
+	private int seconds = 30;
+	private String serverUrl = null;
+	private boolean recordScores = false;
+	private boolean scratchScores = false;
+	private double quizAccuracy = 0.8;
+	private int maxRounds = 10;
+	
+	// Banks shared by every player
+	private WordleScorer wordleScorer;
+	private WordBank hangmanWords;
+	private WordIndex hangmanIndex;
+	private QuestionBank questions;
+	private QuestionScheduler scheduler;
+	
+	// Leaderboards the games' scores go in, indexed like GAMES
+	private LeaderboardStore[] stores = {
+			LeaderboardStore.WORDLE, LeaderboardStore.HANGMAN, LeaderboardStore.QUIZ_BOWL};
+	private Path scratchDirectory = null;
+	
+	private HttpClient client;
+	
+	/**
+	 * Timings of each step, by name, like "wordle.submit".
+	 */
+	private final LinkedHashMap<String, LatencyHistogram> timings = new LinkedHashMap<>();
+	
+	private final LongAdder gamesPlayed = new LongAdder();
+	private final LongAdder moves = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	
+	/**
+	 * Plays the games and prints the report.
+	 * @param args --players N, --seconds N, --server URL, --record-scores, --scratch-scores 
+	 * (record scores, but in temporary leaderboards), --accuracy P (how often the Quiz Bowl 
+	 * bot is right, from 0 to 1), and --rounds N (how many rounds a player wins before 
+	 * walking away)
+	 * @throws Exception if the banks can't be loaded or the players are interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		LoadDriver driver = new LoadDriver();
+		for (int i = 0; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--players":
+					driver.players = Integer.parseInt(args[++i]);
+					break;
+				case "--seconds":
+					driver.seconds = Integer.parseInt(args[++i]);
+					break;
+				case "--server":
+					driver.serverUrl = args[++i];
+					break;
+				case "--record-scores":
+					driver.recordScores = true;
+					break;
+				case "--scratch-scores":
+					driver.recordScores = true;
+					driver.scratchScores = true;
+					break;
+				case "--accuracy":
+					driver.quizAccuracy = Double.parseDouble(args[++i]);
+					break;
+				case "--rounds":
+					driver.maxRounds = Integer.parseInt(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		
+		Metrics.start();
+		driver.run();
+	}
+	
+	/**
+	 * Loads the banks, runs every player until time is up, and prints the report.
+	 * @throws IOException if a bank can't be read
+	 * @throws EmptyFileException if a word bank is empty
+	 * @throws InvalidFormatException if the question files are malformed
+	 * @throws InterruptedException if interrupted while waiting for the players
+	 */
+	public void run() throws IOException, EmptyFileException, InvalidFormatException, InterruptedException {
+		
+		wordleScorer = WordleEngine.scorerFor(WordBankRegistry.get(WordBankRegistry.WORDLE));
+		hangmanWords = WordBankRegistry.get(WordBankRegistry.HANGMAN);
+		hangmanIndex = HangmanEngine.indexFor(hangmanWords);
+		questions = QuestionBank.get();
+		scheduler = QuestionScheduler.get(questions);
+		
+		// Keeps the bots out of the real leaderboards. PersonalBests skips these stores too
+		if (recordScores && scratchScores && serverUrl == null) {
+			scratchDirectory = Files.createTempDirectory("brainGames-scores");
+			for (int game = 0; game < GAMES.length; ++game) {
+				stores[game] = new LeaderboardStore(scratchDirectory.resolve(GAMES[game]).toString());
+			}
+		}
+		
+		if (serverUrl != null) {
+			client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		}
+		
+		for (String game : GAMES) {
+			for (String step : new String[] {"start", "think", "submit", "snapshot"}) {
+				timings.put(game + "." + step, new LatencyHistogram());
+			}
+		}
+		timings.put("score.submit", new LatencyHistogram());
+		
+		// Works out the opening Wordle guess before the clock starts
+		new WordleBot(wordleScorer).nextInput(new WordleEngine(wordleScorer, new Random())
+				.appendSnapshot(new StringBuilder()).toString());
+		
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+		long start = System.nanoTime();
+		long deadline = start + seconds * 1_000_000_000L;
+		
+		// Players here never wait on anything, and a virtual thread that does wait can't get 
+		// its turn back from ones that don't, so they only get virtual threads against a server
+		Thread.Builder builder = serverUrl == null ? Thread.ofPlatform() : Thread.ofVirtual();
+		ArrayList<Thread> playerThreads = new ArrayList<>();
+		for (int player = 0; player < players; ++player) {
+			int number = player;
+			playerThreads.add(builder.name("bot" + number).start(() -> play(number, deadline)));
+		}
+		for (Thread thread : playerThreads) {
+			thread.join();
+		}
+		
+		long elapsed = System.nanoTime() - start;
+		long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+		
+		// Waits for every score to be written, so the time to write them shows up
+		if (recordScores && serverUrl == null) {
+			ScoreSink.get().flush();
+		}
+		
+		report(elapsed, allocatedBefore < 0 ? -1 : allocated);
+	}
+	
+	/**
+	 * Plays games as one player until time is up.
+	 * @param player the player's number
+	 * @param deadline when to stop, from System.nanoTime
+	 */
+	private void play(int player, long deadline) {
+		
+		Random random = new Random(player);
+		BotPlayer botPlayer = new BotPlayer("bot" + player);
+		
+		for (int turn = player; System.nanoTime() < deadline; ++turn) {
+			int game = turn % GAMES.length;
+			try {
+				botPlayer.playGame(game, random, deadline);
+			}
+			catch (UncheckedIOException e) {
+				errors.increment();
+			}
+		}
+	}
+	
+	/**
+	 * Prints each step's throughput and percentiles, then the totals.
+	 * @param elapsedNanos how long the players ran
+	 * @param allocatedBytes the bytes allocated meanwhile, or -1 if that isn't known
+	 */
+	private void report(long elapsedNanos, long allocatedBytes) {
+		
+		double seconds = elapsedNanos / 1e9;
+		System.out.printf("%d players for %.1f s against %s%n%n", players, seconds, 
+				serverUrl == null ? "the engines" : serverUrl);
+		System.out.printf("%-18s %10s %10s %10s %10s %10s %10s%n", 
+				"step", "count", "per sec", "p50 us", "p99 us", "p99.9 us", "max us");
+		
+		for (Map.Entry<String, LatencyHistogram> entry : timings.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			if (histogram.getCount() == 0) {
+				continue;
+			}
+			System.out.printf("%-18s %10d %10.0f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), 
+					histogram.getCount(), histogram.getCount() / seconds, 
+					histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3, 
+					histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
+		}
+		
+		System.out.printf("%ngames %d (%.0f per sec), moves %d (%.0f per sec), errors %d%n", 
+				gamesPlayed.sum(), gamesPlayed.sum() / seconds, moves.sum(), moves.sum() / seconds, errors.sum());
+		if (allocatedBytes >= 0) {
+			System.out.printf("allocated %.1f MB per sec, %.0f bytes per move%n", 
+					allocatedBytes / seconds / 1e6, moves.sum() == 0 ? 0.0 : (double) allocatedBytes / moves.sum());
+		}
+		
+		if (recordScores && serverUrl == null) {
+			ScoreSink sink = ScoreSink.get();
+			System.out.printf("scores written %d in %d batches (largest %d), waited for room %d times, lost %d%n", 
+					sink.getRecordCount(), sink.getBatchCount(), sink.getLargestBatch(), 
+					sink.getBlockedSubmits(), sink.getFailedCount());
+			if (scratchDirectory != null) {
+				System.out.println("scores recorded in " + scratchDirectory);
+			}
+		}
+	}
+	
+	
+	/**
+	 * This inner class is one bot playing one game after another. It records its scores 
+	 * the way the game screens do, through Game.
+	 */
+	private class BotPlayer implements Game {
+		
+		private final String user;
+		
+		// The game being played
+		private int game;
+		private GameSession session;
+		
+		BotPlayer(String user) {
+			this.user = user;
+		}
+		
+		/**
+		 * Plays one game until it's over or time is up.
+		 * @param game the index of the game in GAMES
+		 * @param random picks the words and the Quiz Bowl bot's wrong answers
+		 * @param deadline when to stop, from System.nanoTime
+		 */
+		void playGame(int game, Random random, long deadline) {
+			
+			this.game = game;
+			String name = GAMES[game];
+			LatencyHistogram startTime = timings.get(name + ".start");
+			LatencyHistogram thinkTime = timings.get(name + ".think");
+			LatencyHistogram submitTime = timings.get(name + ".submit");
+			LatencyHistogram snapshotTime = timings.get(name + ".snapshot");
+			
+			GameBot bot;
+			switch (game) {
+				case 0:
+					session = serverUrl == null ? new WordleEngine(wordleScorer, random) : null;
+					bot = new WordleBot(wordleScorer);
+					break;
+				case 1:
+					session = serverUrl == null ? new HangmanEngine(hangmanWords, hangmanIndex, false, random) : null;
+					bot = new HangmanBot(hangmanIndex);
+					break;
+				default:
+					session = serverUrl == null ? new QuizEngine(questions, scheduler) : null;
+					bot = new QuizBot(questions, quizAccuracy, random);
+					break;
+			}
+			if (session == null) {
+				session = new RemoteSession(client, serverUrl, name, recordScores ? user : null);
+			}
+			
+			long t = System.nanoTime();
+			session.start();
+			startTime.recordSince(t);
+			
+			StringBuilder sb = new StringBuilder(512);
+			try {
+				while (!session.isOver() && session.getScore() < maxRounds && System.nanoTime() < deadline) {
+					
+					t = System.nanoTime();
+					sb.setLength(0);
+					String snapshot = session.appendSnapshot(sb).toString();
+					snapshotTime.recordSince(t);
+					
+					t = System.nanoTime();
+					String input = bot.nextInput(snapshot);
+					thinkTime.recordSince(t);
+					
+					t = System.nanoTime();
+					session.submit(input);
+					submitTime.recordSince(t);
+					moves.increment();
+				}
+			}
+			finally {
+				if (session instanceof RemoteSession remote) {
+					remote.close();
+				}
+			}
+			
+			if (session.isOver() || session.getScore() >= maxRounds) {
+				gamesPlayed.increment();
+				gameOver();
+			}
+		}
+		
+		/**
+		 * Records the score of the game that just ended, if scores are being recorded here. 
+		 * A GameServer records its own.
+		 */
+		@Override
+		public void gameOver() {
+			if (recordScores && serverUrl == null) {
+				addHighScore(user, session.getScore());
+			}
+		}
+		
+		@Override
+		public void addHighScore(String user, int score) {
+			long t = System.nanoTime();
+			ScoreSink.get().submit(stores[game], user, score);
+			timings.get("score.submit").recordSince(t);
+		}
+	}
+}
@@ -6,12 +6,8 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 
 import javax.swing.JButton;
@@ -21,6 +17,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPasswordField;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
 
 
 /**
@@ -35,6 +32,9 @@ public class LoginFrame extends JFrame implements ActionListener {
 	// Version ID to get rid of warning
 	private static final long serialVersionUID = 6915777422804804723L;
 	
+	// How long handling a button press holds up the event dispatch thread
+	private static final LatencyHistogram EDT_TIME = Metrics.histogram("edt.loginFrame");
+	
 	// Username and password strings for possible storage/validation later
 	protected static final String DEFAULT_USERNAME = "Guest";
 	
@@ -99,7 +99,7 @@ public class LoginFrame extends JFrame implements ActionListener {
 		this.setSize(400,225);
 		this.setResizable(false);
 		this.setVisible(true);
-		
+	
 	}
 	
 	/**
@@ -107,34 +107,38 @@ public class LoginFrame extends JFrame implements ActionListener {
 	 */
 	@Override
 	public void actionPerformed(ActionEvent e) {
-		
-		// Closes when exit button is pressed
-		if (e.getSource() == exitButton) {
-			this.dispose();
-		}
-		
-		if (e.getSource() == submitButton) {
+		long start = System.nanoTime();
+		try {
+			// Closes when exit button is pressed
+			if (e.getSource() == exitButton) {
+				this.dispose();
+			}
 			
-			// If the username and password both have input, 
-			// stores values and moves on to profile creation
-			if (validateUsername(usernameField.getText()) 
-					&& validatePassword(new String(passwordField.getPassword()))) {
-
-				checkLoginDetails(usernameField.getText(), new String(passwordField.getPassword()));
+			if (e.getSource() == submitButton) {
 				
-				if (loginSuccessful) {
-					this.dispose();
-				}
+				// If the username and password both have input, 
+				// stores values and moves on to profile creation
+				if (validateUsername(usernameField.getText()) 
+						&& validatePassword(new String(passwordField.getPassword()))) {
+					
+					// Logs in and closes the frame once the details are checked
+					checkLoginDetails(usernameField.getText(), passwordField.getPassword());
 				
-			}
-			// If one of the text fields is empty, displays an error
-			else {
-				JOptionPane.showMessageDialog(null, "Please enter a username between 3 and 16"
-						+ " alphanumeric \ncharacters long and a password"
-						+ " at least 8 characters long.", "Warning", JOptionPane.WARNING_MESSAGE);
+				}
+				// If one of the text fields is empty, displays an error
+				else {
+					JOptionPane.showMessageDialog(null, "Please enter a username between 3 and 16"
+							+ " alphanumeric \ncharacters long and a password"
+							+ " at least 8 characters long.", "Warning", JOptionPane.WARNING_MESSAGE);
+					
+					// A modal dialog keeps handling events while it's open, so that time isn't counted
+					start = System.nanoTime();
+				}
 			}
 		}
-		
+		finally {
+			EDT_TIME.recordSince(start);
+		}
 	}
 	/**
 	 * Validates a password using regex according to the stated criteria (at least 8 characters long)
@@ -155,90 +159,101 @@ public class LoginFrame extends JFrame implements ActionListener {
 	}
 	
 	/**
-	 * Reads login details from loginDetails.txt, if the input matches, user gets logged in, if
-	 * the input does not, asks if the user would like to create a new account and adds new login 
-	 * data to loginDetails.txt.
+	 * Checks the login details against the credential store in the background. If they match,
+	 * the user gets logged in. If the username doesn't exist, asks if the user would like to
+	 * create a new account and adds it to the store.
 	 * @param username
 	 * @param password
 	 */
-	@SuppressWarnings("resource")
-	private void checkLoginDetails(String username, String password) {
+	private void checkLoginDetails(String username, char[] password) {
 		
-		Scanner scnr = new Scanner(System.in);
-        boolean loginMatches = false;
-        
-		try {
-        	// Opens file
-        	FileInputStream fileByteStream = new FileInputStream("resources\\loginDetails.txt");
-            Scanner inFS = new Scanner(fileByteStream);
-            
-            if (!inFS.hasNextLine()) {
-            	inFS.close();
-            	throw new EmptyFileException();
-            }
-            
-            // Searches through list for valid username/password combination
-            while (inFS.hasNextLine()) {
-                if (inFS.hasNextLine()) { 
-                    String currUser = inFS.nextLine().trim();
-                    if (inFS.hasNextLine()) {
-                        String currPwd = inFS.nextLine().trim();
-                        if (username.equals(currUser) && password.equals(currPwd)) {
-                            loginMatches = true;
-                            Main.titleFrame.setUsername(username);
-                            inFS.close();
-                            this.dispose();
-                            break;
-                        }
-                    }
-                }
-            }
-
-            inFS.close(); 
-
-            /* If the login doesn't match anything in the file, 
-            * asks user if they want to create a new account */
-                
-            if (!loginMatches) {
-                if (JOptionPane.showConfirmDialog(null, "Login combination not found. Would you "
-                    		+ "like to create a new account?", "Warning",
-                    		JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
-                    	
-                	FileWriter outputStream = new FileWriter("resources\\loginDetails.txt", true);
-                    BufferedWriter outFS = new BufferedWriter(outputStream);
-                    	
-                    outFS.write(username + "\n");
-                   	outFS.write(password + "\n");
-                   	outFS.close();
-                   	outputStream.close();
-                    	
-                   	Main.titleFrame.setUsername(username);
-                   	this.dispose();
-                  
-                }
-                else {
-                	loginSuccessful = false;
-                }
-            }
-            scnr.close();
-        }
-        
-        catch (FileNotFoundException e) {
-        	System.out.println("File not found, exiting program");
-        	e.printStackTrace();
-        }
-        
-        catch (EmptyFileException e) {
-        	System.out.println("File is empty, exiting program");
-        	e.printStackTrace();
-        }
+		// Stops the user from submitting again while the password is checked
+		submitButton.setEnabled(false);
 		
-		catch (IOException e) {
-			System.out.println("IO Exception");
-			e.printStackTrace();
-		}
+		// Password hashing is slow on purpose, so it's kept off the event dispatch thread
+		SwingWorker<Boolean, Void> verifier = new SwingWorker<Boolean, Void>() {
+			
+			private CredentialStore store;
+			
+			@Override
+			protected Boolean doInBackground() throws Exception {
+				store = CredentialStore.get();
+				return store.verify(username, password);
+			}
+			
+			@Override
+			protected void done() {
+				try {
+					if (get()) {
+						loginSuccessful = true;
+						Arrays.fill(password, '\0');
+						Main.titleFrame.setUsername(username);
+						dispose();
+					}
+					else if (store.contains(username)) {
+						Arrays.fill(password, '\0');
+						JOptionPane.showMessageDialog(null, "Incorrect password.", "Warning",
+								JOptionPane.WARNING_MESSAGE);
+						submitButton.setEnabled(true);
+					}
+					
+					/* If the username isn't in the store, 
+					 * asks user if they want to create a new account */
+					else if (JOptionPane.showConfirmDialog(null, "Login combination not found. Would you "
+							+ "like to create a new account?", "Warning",
+							JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
+						createAccount(username, password);
+					}
+					else {
+						Arrays.fill(password, '\0');
+						loginSuccessful = false;
+						submitButton.setEnabled(true);
+					}
+				}
+				catch (InterruptedException | ExecutionException e) {
+					System.out.println("Could not read login details");
+					e.printStackTrace();
+					submitButton.setEnabled(true);
+				}
+			}
+		};
+		verifier.execute();
 	}
 	
+	/**
+	 * Adds a new account to the credential store in the background and logs the user in.
+	 * @param username
+	 * @param password
+	 */
+	private void createAccount(String username, char[] password) {
+		
+		SwingWorker<Void, Void> creator = new SwingWorker<Void, Void>() {
+			
+			@Override
+			protected Void doInBackground() throws Exception {
+				CredentialStore.get().add(username, password);
+				return null;
+			}
+			
+			@Override
+			protected void done() {
+				Arrays.fill(password, '\0');
+				try {
+					get();
+					loginSuccessful = true;
+					Main.titleFrame.setUsername(username);
+					dispose();
+				}
+				catch (InterruptedException | ExecutionException e) {
+					System.out.println("Could not save account");
+					e.printStackTrace();
+					submitButton.setEnabled(true);
+				}
+			}
+		};
+		creator.execute();
+	}
+
 }
 
 
@@ -7,14 +7,23 @@ package dev.jacobeager;
  */
 
 public class Main {
-
+	
 	// Declared as a static field for usage in other classes
 	public static TitleFrame titleFrame;
 	
 	public static void main(String[] args) {
 		
+		// Publishes the metrics over JMX, and dumps them to a file if asked to
+		Metrics.start();
+		
+		// Decodes images in the background while the title screen opens
+		AssetCache.warmUp();
+		
+		// Loads the personal bests in the background so game over screens don't wait for them
+		PersonalBests.warmUp();
+		
 		// Starts program with the title screen
 		titleFrame = new TitleFrame();
-		
+	
 	}
 }
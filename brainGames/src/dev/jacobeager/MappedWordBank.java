@@ -0,0 +1,281 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+
+/**
+ * This class reads a word bank straight out of a memory mapped file, for dictionaries too big
+ * to keep on the heap. Nothing is copied when the file is opened.
+ *
+ * A random word is picked without knowing where any of the words are: a random byte of the
+ * file is chosen, the line around it is found, and the line is kept with a chance inversely
+ * proportional to its length (otherwise another byte is tried). Long lines are more likely
+ * to be landed on but less likely to be kept, so every word is equally likely, and picking
+ * one only decodes that word.
+ *
+ * Going through the words in order doesn't need any extra memory either. Only get (picking a
+ * word by its index) builds a table of where each word starts, the first time it's called.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class MappedWordBank extends WordBank {
+	
+	/**
+	 * The shortest a line with a word can be: one letter and a newline.
+	 */
+	private static final int MIN_LINE = 2;
+	
+	/**
+	 * The file's contents.
+	 */
+	private final MappedByteBuffer buffer;
+	
+	/**
+	 * The length of the file, plus one if the last line doesn't end with a newline (so every
+	 * line is counted with its newline when picking random bytes).
+	 */
+	private final long span;
+	
+	/**
+	 * Where each line with a word starts. Built by the first call to get.
+	 */
+	private int[] lineStarts;
+	
+	/**
+	 * The number of words, or -1 if they haven't been counted.
+	 */
+	private int size = -1;
+	
+	private MappedWordBank(MappedByteBuffer buffer) {
+		this.buffer = buffer;
+		int limit = buffer.limit();
+		span = limit > 0 && buffer.get(limit - 1) != '\n' ? limit + 1L : limit;
+	}
+	
+	/**
+	 * Maps a word bank file. The file shouldn't be changed while it's mapped.
+	 * @param file the word bank
+	 * @return the word bank
+	 * @throws IOException if the file can't be mapped
+	 */
+	public static MappedWordBank map(Path file) throws IOException {
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Word bank too large to map: " + file);
+			}
+			return new MappedWordBank(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * Returns the file's contents, for checksumming.
+	 * @return a read only view of the file
+	 */
+	public ByteBuffer contents() {
+		return buffer.asReadOnlyBuffer();
+	}
+	
+	@Override
+	public String randomWord(Random r) {
+		
+		if (isEmpty()) {
+			throw new NoSuchElementException("Word bank is empty");
+		}
+		
+		while (true) {
+			int position = (int) Math.min(r.nextLong(span), buffer.limit());
+			int lineStart = lineStart(position);
+			int lineEnd = lineEnd(lineStart);
+			
+			// The line's share of the span, counting its newline
+			int lineSpan = lineEnd - lineStart + 1;
+			if (r.nextInt(lineSpan) >= MIN_LINE) {
+				continue;
+			}
+			
+			int start = skipBlanks(lineStart, lineEnd);
+			if (start < lineEnd) {
+				return decode(start, trimEnd(start, lineEnd));
+			}
+		}
+	}
+	
+	@Override
+	public String get(int index) {
+		int[] starts = lineStarts();
+		if (index < 0 || index >= starts.length) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		int lineEnd = lineEnd(starts[index]);
+		int start = skipBlanks(starts[index], lineEnd);
+		return decode(start, trimEnd(start, lineEnd));
+	}
+	
+	@Override
+	public int lengthOf(int index) {
+		return get(index).length();
+	}
+	
+	/**
+	 * Counts the words, scanning the file the first time.
+	 * @return the number of words
+	 */
+	@Override
+	public synchronized int size() {
+		if (size < 0) {
+			int count = 0;
+			for (int lineStart = 0; lineStart < buffer.limit(); ) {
+				int lineEnd = lineEnd(lineStart);
+				if (skipBlanks(lineStart, lineEnd) < lineEnd) {
+					++count;
+				}
+				lineStart = lineEnd + 1;
+			}
+			size = count;
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns whether there are no words, stopping at the first one found.
+	 * @return true if the file is blank
+	 */
+	@Override
+	public boolean isEmpty() {
+		return skipBlanks(0, buffer.limit()) == buffer.limit();
+	}
+	
+	/**
+	 * Goes through the words in the order they are in the file, without building the table
+	 * of where they start.
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		
+		return new Iterator<String>() {
+			
+			// Where the next line to look at starts
+			private int position = 0;
+			
+			@Override
+			public boolean hasNext() {
+				position = skipBlanks(position, buffer.limit());
+				return position < buffer.limit();
+			}
+			
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int lineEnd = lineEnd(position);
+				String word = decode(position, trimEnd(position, lineEnd));
+				position = lineEnd + 1;
+				return word;
+			}
+		};
+	}
+	
+	/**
+	 * Finds where every line with a word starts.
+	 * @return the starts, one per word
+	 */
+	private synchronized int[] lineStarts() {
+		
+		if (lineStarts == null) {
+			int[] starts = new int[1024];
+			int count = 0;
+			for (int lineStart = 0; lineStart < buffer.limit(); ) {
+				int lineEnd = lineEnd(lineStart);
+				if (skipBlanks(lineStart, lineEnd) < lineEnd) {
+					if (count == starts.length) {
+						starts = Arrays.copyOf(starts, count * 2);
+					}
+					starts[count++] = lineStart;
+				}
+				lineStart = lineEnd + 1;
+			}
+			lineStarts = Arrays.copyOf(starts, count);
+			size = count;
+		}
+		return lineStarts;
+	}
+	
+	/**
+	 * Finds the start of the line a byte is on.
+	 * @param position the byte's position
+	 * @return the position of the line's first byte
+	 */
+	private int lineStart(int position) {
+		while (position > 0 && buffer.get(position - 1) != '\n') {
+			--position;
+		}
+		return position;
+	}
+	
+	/**
+	 * Finds the end of a line.
+	 * @param position a position on the line
+	 * @return the position of the line's newline, or the end of the file
+	 */
+	private int lineEnd(int position) {
+		int limit = buffer.limit();
+		while (position < limit && buffer.get(position) != '\n') {
+			++position;
+		}
+		return position;
+	}
+	
+	/**
+	 * Skips spaces, tabs, carriage returns and newlines.
+	 * @param position where to start
+	 * @param end where to stop
+	 * @return the position of the first other byte, or end if there isn't one
+	 */
+	private int skipBlanks(int position, int end) {
+		while (position < end && (buffer.get(position) & 0xFF) <= ' ') {
+			++position;
+		}
+		return position;
+	}
+	
+	/**
+	 * Trims trailing spaces, tabs and carriage returns off a line.
+	 * @param start the start of the word
+	 * @param end the end of the line
+	 * @return the end of the word
+	 */
+	private int trimEnd(int start, int end) {
+		while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+			--end;
+		}
+		return end;
+	}
+	
+	/**
+	 * Decodes one word.
+	 * @param start the position of the word's first byte
+	 * @param end the position after its last byte
+	 * @return the word, in lower case
+	 */
+	private String decode(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+	}
+}
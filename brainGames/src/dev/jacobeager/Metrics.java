@@ -0,0 +1,386 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+
+/**
+ * This class keeps the program's counters, latency histograms and gauges by name, so any
+ * class can count or time something without knowing who reads it. A counter is a LongAdder
+ * and a histogram is a LatencyHistogram, so both can be updated from many threads without
+ * locking; a gauge is read when the metrics are. Callers look a metric up once and keep it
+ * in a static field, so updating it is never more than an atomic add.
+ *
+ * start publishes every metric over JMX as dev.jacobeager:type=Metrics, so they can be
+ * watched in JConsole or VisualVM. If the braingames.metrics.dump property names a file,
+ * every metric is also written to it every few seconds, as JSON if the name ends in .json
+ * and as text otherwise:
+ *
+ * java -Dbraingames.metrics.dump=metrics.json -Dbraingames.metrics.period=5000 ...
+ *
+ * Latencies are in nanoseconds in the JSON and over JMX, and in microseconds in the text.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class Metrics {
+	
+	/**
+	 * The name the metrics are published under over JMX.
+	 */
+	public static final String OBJECT_NAME = "dev.jacobeager:type=Metrics";
+	
+	/**
+	 * The system property naming the file the metrics are dumped to.
+	 */
+	public static final String DUMP_PROPERTY = "braingames.metrics.dump";
+	
+	/**
+	 * The system property giving how often the metrics are dumped, in milliseconds.
+	 */
+	public static final String PERIOD_PROPERTY = "braingames.metrics.period";
+	
+	public static final long DEFAULT_PERIOD = 10_000;
+	
+	// What each histogram attribute ends in over JMX, and the percentile it reads (-1 if none)
+	private static final String[] HISTOGRAM_FIELDS = {"count", "mean", "p50", "p99", "p999", "max"};
+	private static final double[] HISTOGRAM_PERCENTILES = {-1, -1, 50, 99, 99.9, -1};
+	
+	private static final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+	
+	private static boolean started = false;
+	
+	private Metrics() {
+	}
+	
+	/**
+	 * Returns a counter, making it the first time its name is used.
+	 * @param name the name, like "errors.wordBank"
+	 * @return the counter
+	 */
+	public static LongAdder counter(String name) {
+		return counters.computeIfAbsent(name, key -> new LongAdder());
+	}
+	
+	/**
+	 * Returns a latency histogram, making it the first time its name is used.
+	 * @param name the name, like "load.wordBank"
+	 * @return the histogram
+	 */
+	public static LatencyHistogram histogram(String name) {
+		return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+	}
+	
+	/**
+	 * Sets a gauge, replacing any gauge already set with its name. The supplier is called
+	 * each time the metrics are read, from whatever thread reads them, so it has to be
+	 * quick and thread safe.
+	 * @param name the name, like "scoreSink.queueDepth"
+	 * @param supplier reads the gauge's value
+	 */
+	public static void gauge(String name, LongSupplier supplier) {
+		gauges.put(name, supplier);
+	}
+	
+	/**
+	 * Publishes the metrics over JMX, and starts dumping them to a file if the dump property
+	 * is set. Only the first call does anything.
+	 */
+	public static synchronized void start() {
+		
+		if (started) {
+			return;
+		}
+		started = true;
+		
+		// The metrics are still kept if they can't be published
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+		}
+		catch (JMException e) {
+			e.printStackTrace();
+		}
+		
+		String dumpPath = System.getProperty(DUMP_PROPERTY);
+		if (dumpPath != null && !dumpPath.isBlank()) {
+			startDump(Paths.get(dumpPath), Long.getLong(PERIOD_PROPERTY, DEFAULT_PERIOD));
+		}
+	}
+	
+	/**
+	 * Starts a daemon thread that dumps the metrics to a file every period. Like the
+	 * ScoreSink writer, it's a platform thread, so it still runs when busy virtual threads
+	 * hold every carrier.
+	 * @param file where the metrics go
+	 * @param periodMillis how long to wait between dumps, in milliseconds
+	 * @return the thread
+	 */
+	public static Thread startDump(Path file, long periodMillis) {
+		return Thread.ofPlatform().daemon().name("Metrics dump").start(() -> {
+			while (true) {
+				try {
+					Thread.sleep(periodMillis);
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				try {
+					dump(file);
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Writes every metric to a file, as JSON if its name ends in .json and as text
+	 * otherwise. The file is written beside the old one and moved over it, so a reader
+	 * never sees half a dump.
+	 * @param file where the metrics go
+	 * @throws IOException if the file can't be written
+	 */
+	public static void dump(Path file) throws IOException {
+		
+		StringBuilder sb = new StringBuilder();
+		if (file.toString().endsWith(".json")) {
+			appendJson(sb).append('\n');
+		}
+		else {
+			appendText(sb);
+		}
+		
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.writeString(tempFile, sb, StandardCharsets.UTF_8);
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Appends every metric as text, one per line, in order of name.
+	 * @param sb where the text goes
+	 * @return sb
+	 */
+	public static StringBuilder appendText(StringBuilder sb) {
+		
+		for (String name : sorted(counters)) {
+			sb.append(String.format("%-28s %12d%n", name, counters.get(name).sum()));
+		}
+		for (String name : sorted(gauges)) {
+			sb.append(String.format("%-28s %12d%n", name, readGauge(gauges.get(name))));
+		}
+		
+		if (!histograms.isEmpty()) {
+			sb.append(String.format("%n%-28s %10s %10s %10s %10s %10s %10s%n",
+					"latency", "count", "mean us", "p50 us", "p99 us", "p99.9 us", "max us"));
+		}
+		for (String name : sorted(histograms)) {
+			LatencyHistogram histogram = histograms.get(name);
+			sb.append(String.format("%-28s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", name,
+					histogram.getCount(), histogram.getMean() / 1e3,
+					histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+					histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3));
+		}
+		return sb;
+	}
+	
+	/**
+	 * Appends every metric as a JSON object with counters, gauges and histograms keyed by
+	 * name.
+	 * @param sb where the JSON goes
+	 * @return sb
+	 */
+	public static StringBuilder appendJson(StringBuilder sb) {
+		
+		sb.append("{\"time\":").append(System.currentTimeMillis()).append(",\"counters\":{");
+		String separator = "";
+		for (String name : sorted(counters)) {
+			GameSession.appendJsonString(sb.append(separator), name).append(':').append(counters.get(name).sum());
+			separator = ",";
+		}
+		
+		sb.append("},\"gauges\":{");
+		separator = "";
+		for (String name : sorted(gauges)) {
+			GameSession.appendJsonString(sb.append(separator), name).append(':').append(readGauge(gauges.get(name)));
+			separator = ",";
+		}
+		
+		sb.append("},\"histograms\":{");
+		separator = "";
+		for (String name : sorted(histograms)) {
+			LatencyHistogram histogram = histograms.get(name);
+			GameSession.appendJsonString(sb.append(separator), name).append(":{");
+			for (int field = 0; field < HISTOGRAM_FIELDS.length; ++field) {
+				sb.append(field == 0 ? "\"" : ",\"").append(HISTOGRAM_FIELDS[field]).append("\":")
+						.append(readHistogram(histogram, field));
+			}
+			sb.append('}');
+			separator = ",";
+		}
+		return sb.append("}}");
+	}
+	
+	/**
+	 * Reads one field of a histogram.
+	 * @param histogram the histogram
+	 * @param field the index of the field in HISTOGRAM_FIELDS
+	 * @return the value, a Double for the mean and a Long otherwise
+	 */
+	private static Number readHistogram(LatencyHistogram histogram, int field) {
+		switch (HISTOGRAM_FIELDS[field]) {
+			case "count":
+				return histogram.getCount();
+			case "mean":
+				return histogram.getMean();
+			case "max":
+				return histogram.getMax();
+			default:
+				return histogram.getPercentile(HISTOGRAM_PERCENTILES[field]);
+		}
+	}
+	
+	/**
+	 * Reads a gauge, so one that fails doesn't stop the rest from being read.
+	 * @param supplier the gauge
+	 * @return the value, or -1 if it couldn't be read
+	 */
+	private static long readGauge(LongSupplier supplier) {
+		try {
+			return supplier.getAsLong();
+		}
+		catch (RuntimeException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Returns the names in a map in order.
+	 * @param map the map
+	 * @return the names
+	 */
+	private static ArrayList<String> sorted(Map<String, ?> map) {
+		ArrayList<String> names = new ArrayList<String>(map.keySet());
+		Collections.sort(names);
+		return names;
+	}
+	
+	
+	/**
+	 * This class publishes the metrics over JMX. Each counter and gauge is a read only
+	 * attribute with its own name, and each histogram is one attribute per field, like
+	 * "load.wordBank.p99". The attributes are listed again every time they're asked for,
+	 * so metrics made after start are published too.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private static class MetricsBean implements DynamicMBean {
+		
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			
+			LongAdder counter = counters.get(attribute);
+			if (counter != null) {
+				return counter.sum();
+			}
+			LongSupplier gauge = gauges.get(attribute);
+			if (gauge != null) {
+				return readGauge(gauge);
+			}
+			
+			// Histogram attributes are the histogram's name, a dot, and the field
+			int dot = attribute.lastIndexOf('.');
+			LatencyHistogram histogram = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+			if (histogram != null) {
+				for (int field = 0; field < HISTOGRAM_FIELDS.length; ++field) {
+					if (HISTOGRAM_FIELDS[field].equals(attribute.substring(dot + 1))) {
+						return readHistogram(histogram, field);
+					}
+				}
+			}
+			throw new AttributeNotFoundException(attribute);
+		}
+		
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			AttributeList list = new AttributeList();
+			for (String attribute : attributes) {
+				try {
+					list.add(new Attribute(attribute, getAttribute(attribute)));
+				}
+				catch (AttributeNotFoundException e) {
+					// Left out, as JMX expects
+				}
+			}
+			return list;
+		}
+		
+		@Override
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+			throw new AttributeNotFoundException(attribute.getName() + " is read only");
+		}
+		
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+		
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) 
+				throws ReflectionException {
+			
+			// The metrics only have attributes
+			throw new ReflectionException(new NoSuchMethodException(actionName));
+		}
+		
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			
+			ArrayList<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+			for (String name : sorted(counters)) {
+				attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "Counter", true, false, false));
+			}
+			for (String name : sorted(gauges)) {
+				attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "Gauge", true, false, false));
+			}
+			for (String name : sorted(histograms)) {
+				for (String field : HISTOGRAM_FIELDS) {
+					attributes.add(new MBeanAttributeInfo(name + "." + field,
+							field.equals("mean") ? "java.lang.Double" : "java.lang.Long",
+							field.equals("count") ? "Values recorded" : "Latency in nanoseconds", true, false, false));
+				}
+			}
+			
+			return new MBeanInfo(Metrics.class.getName(), "Counters, gauges and latencies of the games",
+					attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+		}
+	}
+}
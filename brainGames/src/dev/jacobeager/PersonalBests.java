@@ -0,0 +1,390 @@
+package dev.jacobeager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * This class keeps every user's best score in each game, so a best score can be looked up
+ * without reading a leaderboard. The bests are held in an open addressing table keyed by
+ * username, with one int per game in each slot, so a lookup is one hash and a few array
+ * reads.
+ *
+ * ScoreSink's writer records each score here once it's in its leaderboard, so every score 
+ * counts no matter which game screen, server session or bot it came from. Only a score that 
+ * beats the user's best is saved, as one record appended to a WriteAheadLog. When the file 
+ * is loaded the records are replayed, and the file is rewritten with one record per best if 
+ * it has built up too many replaced ones. The first time the bests are used, they're found 
+ * by reading each game's leaderboard once, which warmUp does in the background at startup.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class PersonalBests {
+	
+	// Games, the same for every user
+	public static final int QUIZ_BOWL = 0;
+	public static final int HANGMAN = 1;
+	public static final int WORDLE = 2;
+	
+	/**
+	 * The number of games.
+	 */
+	public static final int GAMES = 3;
+	
+	/**
+	 * Returned for a user with no score in a game.
+	 */
+	public static final int NONE = -1;
+	
+	/**
+	 * Where the bests are saved.
+	 */
+	public static final String PATH = "resources\\personalBests.dat";
+	
+	// File header ("BGPB")
+	private static final int MAGIC = 0x42475042;
+	
+	// How many replaced records can build up before the file is rewritten
+	private static final int COMPACT_SLACK = 64;
+	
+	/**
+	 * The bests shared by every game, or null if they haven't been loaded.
+	 */
+	private static PersonalBests instance;
+	
+	private final File file;
+	private WriteAheadLog log;
+	
+	// Open addressing table of usernames, with GAMES bests per slot (NONE if not set)
+	private String[] users = new String[64];
+	private int[] bests = newBests(64);
+	private int userCount = 0;
+	
+	/**
+	 * Loads the bests from a file, or from the leaderboards if the file doesn't exist yet.
+	 * @param file where the bests are saved
+	 * @param stores each game's leaderboard, indexed by game, used to fill a new file
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if a file is malformed
+	 */
+	public PersonalBests(File file, LeaderboardStore[] stores) throws IOException, InvalidFormatException {
+		
+		this.file = file;
+		
+		if (file.exists()) {
+			load();
+		}
+		else {
+			for (int game = 0; game < GAMES; ++game) {
+				int currentGame = game;
+				stores[game].scan((user, score) -> improve(currentGame, user, score));
+			}
+			rewrite();
+		}
+	}
+	
+	/**
+	 * Returns the bests shared by every game, loading them the first time.
+	 * @return the bests
+	 * @throws IOException if a file can't be read or written
+	 * @throws InvalidFormatException if a file is malformed
+	 */
+	public static synchronized PersonalBests get() throws IOException, InvalidFormatException {
+		
+		// Scores still waiting to be written are recorded by ScoreSink's writer once they're 
+		// in their leaderboards, so they don't have to be flushed before reading them
+		if (instance == null) {
+			instance = new PersonalBests(new File(PATH), new LeaderboardStore[] {
+					LeaderboardStore.QUIZ_BOWL, LeaderboardStore.HANGMAN, LeaderboardStore.WORDLE});
+		}
+		return instance;
+	}
+	
+	/**
+	 * Returns a user's best score in a game.
+	 * @param game QUIZ_BOWL, HANGMAN or WORDLE
+	 * @param user the username
+	 * @return the best score, or NONE if the user has no score in the game
+	 */
+	public synchronized int getBest(int game, String user) {
+		int slot = find(user);
+		return users[slot] == null ? NONE : bests[slot * GAMES + game];
+	}
+	
+	/**
+	 * Returns the bests if they've been loaded, without loading them.
+	 * @return the bests, or null if they haven't been loaded yet
+	 */
+	public static synchronized PersonalBests peek() {
+		return instance;
+	}
+	
+	/**
+	 * Starts loading the bests on a background thread, so the first game over screen 
+	 * doesn't have to wait for the leaderboards to be read.
+	 */
+	public static void warmUp() {
+		Thread warmer = new Thread(() -> {
+			try {
+				get();
+			}
+			catch (IOException | InvalidFormatException e) {
+				e.printStackTrace();
+			}
+		}, "PersonalBests warm-up");
+		warmer.setDaemon(true);
+		warmer.start();
+	}
+	
+	/**
+	 * Returns the game a leaderboard store holds the scores of.
+	 * @param store the store
+	 * @return QUIZ_BOWL, HANGMAN or WORDLE, or -1 if it isn't one of the games' stores
+	 */
+	public static int gameOf(LeaderboardStore store) {
+		if (store == LeaderboardStore.QUIZ_BOWL) {
+			return QUIZ_BOWL;
+		}
+		if (store == LeaderboardStore.HANGMAN) {
+			return HANGMAN;
+		}
+		return store == LeaderboardStore.WORDLE ? WORDLE : -1;
+	}
+	
+	/**
+	 * Records scores, saving the ones that are new bests with one write. The memory is 
+	 * updated straight away, and this waits until the new bests are on disk, so it's only 
+	 * called from ScoreSink's writer.
+	 * @param game QUIZ_BOWL, HANGMAN or WORDLE
+	 * @param scores the scores, in the order they were recorded
+	 * @throws IOException if the bests can't be written
+	 */
+	public void record(int game, List<HighScore> scores) throws IOException {
+		
+		ArrayList<byte[]> records = new ArrayList<byte[]>();
+		long end;
+		synchronized (this) {
+			for (HighScore score : scores) {
+				if (score.score() > getBest(game, score.user())) {
+					improve(game, score.user(), score.score());
+					records.add(encodeRecord(game, score.user(), score.score()));
+				}
+			}
+			if (records.isEmpty()) {
+				return;
+			}
+			end = log.append(records);
+		}
+		
+		log.commit(end, true);
+	}
+	
+	/**
+	 * Returns the best score of each user in a game, highest first. Tied scores are in no
+	 * particular order.
+	 * @param game QUIZ_BOWL, HANGMAN or WORDLE
+	 * @param n the most rows wanted
+	 * @return up to n rows, one per user
+	 */
+	public synchronized ArrayList<HighScore> top(int game, int n) {
+		
+		ArrayList<HighScore> rows = new ArrayList<HighScore>();
+		for (int slot = 0; slot < users.length; ++slot) {
+			if (users[slot] != null && bests[slot * GAMES + game] != NONE) {
+				rows.add(new HighScore(users[slot], bests[slot * GAMES + game]));
+			}
+		}
+		
+		Collections.sort(rows);
+		if (rows.size() > n) {
+			rows.subList(n, rows.size()).clear();
+		}
+		return rows;
+	}
+	
+	/**
+	 * Finds where a user's best places among every user's best in a game. Users with the
+	 * same best share a rank.
+	 * @param game QUIZ_BOWL, HANGMAN or WORDLE
+	 * @param user the username
+	 * @return the rank, starting at 1, or 0 if the user has no score in the game
+	 */
+	public synchronized int rankOf(int game, String user) {
+		
+		int best = getBest(game, user);
+		if (best == NONE) {
+			return 0;
+		}
+		
+		int higher = 0;
+		for (int slot = 0; slot < users.length; ++slot) {
+			if (users[slot] != null && bests[slot * GAMES + game] > best) {
+				++higher;
+			}
+		}
+		return higher + 1;
+	}
+	
+	/**
+	 * Raises a user's best in memory if the score beats it.
+	 * @param game the game
+	 * @param user the username
+	 * @param score the score
+	 */
+	private void improve(int game, String user, int score) {
+		
+		int slot = find(user);
+		if (users[slot] == null) {
+			
+			// Keeps the table at most half full so probes stay short
+			if ((userCount + 1) * 2 > users.length) {
+				grow();
+				slot = find(user);
+			}
+			users[slot] = user;
+			++userCount;
+		}
+		
+		bests[slot * GAMES + game] = Math.max(bests[slot * GAMES + game], score);
+	}
+	
+	/**
+	 * Finds the slot holding a user, or the empty slot where they'd go.
+	 * @param user the username
+	 * @return the slot
+	 */
+	private int find(String user) {
+		int mask = users.length - 1;
+		int slot = mix(user.hashCode()) & mask;
+		while (users[slot] != null && !users[slot].equals(user)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Doubles the size of the table.
+	 */
+	private void grow() {
+		
+		String[] oldUsers = users;
+		int[] oldBests = bests;
+		users = new String[oldUsers.length * 2];
+		bests = newBests(users.length);
+		
+		for (int oldSlot = 0; oldSlot < oldUsers.length; ++oldSlot) {
+			if (oldUsers[oldSlot] != null) {
+				int slot = find(oldUsers[oldSlot]);
+				users[slot] = oldUsers[oldSlot];
+				System.arraycopy(oldBests, oldSlot * GAMES, bests, slot * GAMES, GAMES);
+			}
+		}
+	}
+	
+	/**
+	 * Replays every record in the file, rewriting it if most of them have been replaced.
+	 * @throws IOException if the file can't be read or written
+	 * @throws InvalidFormatException if the file is malformed
+	 */
+	private void load() throws IOException, InvalidFormatException {
+		
+		log = new WriteAheadLog(file, MAGIC);
+		
+		int[] records = {0};
+		log.forEach(WriteAheadLog.HEADER_SIZE, (offset, record) -> {
+			int game = record.get();
+			byte[] nameBytes = new byte[Byte.toUnsignedInt(record.get())];
+			record.get(nameBytes);
+			int score = record.getInt();
+			if (game >= 0 && game < GAMES) {
+				improve(game, new String(nameBytes, StandardCharsets.UTF_8), score);
+			}
+			++records[0];
+		});
+		
+		if (records[0] > countBests() * 2 + COMPACT_SLACK) {
+			log.close();
+			rewrite();
+		}
+	}
+	
+	/**
+	 * Replaces the file with one record per best and opens it for appending.
+	 * @throws IOException if the file can't be written
+	 * @throws InvalidFormatException if the new file can't be opened
+	 */
+	private void rewrite() throws IOException, InvalidFormatException {
+		
+		ArrayList<byte[]> records = new ArrayList<byte[]>();
+		for (int slot = 0; slot < users.length; ++slot) {
+			for (int game = 0; users[slot] != null && game < GAMES; ++game) {
+				if (bests[slot * GAMES + game] != NONE) {
+					records.add(encodeRecord(game, users[slot], bests[slot * GAMES + game]));
+				}
+			}
+		}
+		
+		WriteAheadLog.create(file, MAGIC, records);
+		log = new WriteAheadLog(file, MAGIC);
+	}
+	
+	/**
+	 * Counts the bests set across every user and game.
+	 * @return the number of bests
+	 */
+	private int countBests() {
+		int count = 0;
+		for (int best : bests) {
+			if (best != NONE) {
+				++count;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Encodes one record: the game, the length of the name, the name, and the score.
+	 * @param game the game
+	 * @param user the username
+	 * @param score the score
+	 * @return the record
+	 */
+	private static byte[] encodeRecord(int game, String user, int score) {
+		byte[] nameBytes = user.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(2 + nameBytes.length + 4);
+		record.put((byte) game);
+		record.put((byte) nameBytes.length);
+		record.put(nameBytes);
+		record.putInt(score);
+		return record.array();
+	}
+	
+	/**
+	 * Makes a bests array for a table size, with every best unset.
+	 * @param slots the number of slots
+	 * @return the array
+	 */
+	private static int[] newBests(int slots) {
+		int[] newBests = new int[slots * GAMES];
+		Arrays.fill(newBests, NONE);
+		return newBests;
+	}
+	
+	/**
+	 * Spreads the bits of a hash code so similar usernames don't land in neighbouring slots.
+	 * @param hash the hash code
+	 * @return the mixed hash
+	 */
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,412 @@
+package dev.jacobeager;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+
+/**
+ * This class holds every quiz bowl question. The two question files are parsed and checked
+ * once, then saved as a binary snapshot, so later launches load every question with a single
+ * read instead of parsing the text again. Questions are only turned into objects when they
+ * are asked for.
+ *
+ * The snapshot starts with a header (magic, version, the size and last modified time of each
+ * question file, and the number of each type of question), followed by a table with the
+ * offset of every question and then the questions themselves. Every string is stored as an
+ * unsigned short length followed by that many bytes of UTF-8. A multiple choice question is
+ * its question, four answers and the index of the correct answer, and a text question is its
+ * question and answer. If either question file changes, the snapshot is rebuilt.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class QuestionBank {
+	
+	/**
+	 * The multiple choice questions: a question, four answers and the letter of the correct
+	 * answer, one per line.
+	 */
+	public static final String MULTIPLE_CHOICE_PATH = "resources\\multipleChoiceQuestions.txt";
+	
+	/**
+	 * The text questions: a question and its answer, one per line.
+	 */
+	public static final String TEXT_PATH = "resources\\textQuestions.txt";
+	
+	/**
+	 * The snapshot of both files.
+	 */
+	public static final String SNAPSHOT_PATH = "resources\\questions.bank";
+	
+	// File header ("BGQB")
+	private static final int MAGIC = 0x42475142;
+	private static final short VERSION = 1;
+	
+	// Size of the header in bytes (magic, version, two sizes, two times and two counts)
+	private static final int HEADER_SIZE = 46;
+	
+	// Letters of the multiple choice answers
+	private static final char[] LETTERS = {'A', 'B', 'C', 'D'};
+	
+	/**
+	 * The bank shared by every game, or null if it hasn't been loaded.
+	 */
+	private static QuestionBank instance;
+	
+	// How long loading the questions takes, from the snapshot or the question files
+	private static final LatencyHistogram LOADS = Metrics.histogram("load.questions");
+	
+	/**
+	 * The snapshot.
+	 */
+	private final ByteBuffer snapshot;
+	
+	private final int multipleChoiceCount, textCount;
+	
+	/**
+	 * Where the questions start in the snapshot. Offsets in the table are counted from here.
+	 */
+	private final int dataStart;
+	
+	/**
+	 * Reads a snapshot.
+	 * @param snapshot the whole snapshot
+	 * @throws InvalidFormatException if the snapshot is malformed
+	 */
+	private QuestionBank(byte[] snapshot) throws InvalidFormatException {
+		
+		this.snapshot = ByteBuffer.wrap(snapshot);
+		if (snapshot.length < HEADER_SIZE || this.snapshot.getInt(0) != MAGIC
+				|| this.snapshot.getShort(4) != VERSION) {
+			throw new InvalidFormatException();
+		}
+		
+		multipleChoiceCount = this.snapshot.getInt(HEADER_SIZE - 8);
+		textCount = this.snapshot.getInt(HEADER_SIZE - 4);
+		long tableEnd = HEADER_SIZE + 4L * multipleChoiceCount + 4L * textCount;
+		if (multipleChoiceCount < 0 || textCount < 0 || tableEnd > snapshot.length) {
+			throw new InvalidFormatException();
+		}
+		dataStart = (int) tableEnd;
+		
+		// Makes sure a cut off snapshot is caught now rather than when a question is read
+		for (int i = 0; i < multipleChoiceCount + textCount; ++i) {
+			int offset = this.snapshot.getInt(HEADER_SIZE + 4 * i);
+			if (offset < 0 || offset >= snapshot.length - dataStart) {
+				throw new InvalidFormatException();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the question bank, loading it the first time and again if either question file
+	 * has changed.
+	 * @return the question bank
+	 * @throws IOException if a file can't be read
+	 * @throws EmptyFileException if a question file is empty
+	 * @throws InvalidFormatException if a question file is malformed
+	 */
+	public static synchronized QuestionBank get()
+			throws IOException, EmptyFileException, InvalidFormatException {
+		
+		File multipleChoiceFile = new File(MULTIPLE_CHOICE_PATH);
+		File textFile = new File(TEXT_PATH);
+		
+		if (instance == null || !instance.isSnapshotOf(multipleChoiceFile, textFile)) {
+			long start = System.nanoTime();
+			try {
+				instance = load(multipleChoiceFile, textFile, new File(SNAPSHOT_PATH));
+			}
+			finally {
+				LOADS.recordSince(start);
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Loads questions from a snapshot, or from the question files if the snapshot is missing
+	 * or out of date, saving a new snapshot.
+	 * @param multipleChoiceFile the multiple choice questions
+	 * @param textFile the text questions
+	 * @param snapshotFile the snapshot
+	 * @return the question bank
+	 * @throws IOException if a file can't be read
+	 * @throws EmptyFileException if a question file is empty
+	 * @throws InvalidFormatException if a question file is malformed
+	 */
+	public static QuestionBank load(File multipleChoiceFile, File textFile, File snapshotFile)
+			throws IOException, EmptyFileException, InvalidFormatException {
+		
+		if (!multipleChoiceFile.exists() || !textFile.exists()) {
+			throw new FileNotFoundException(
+					(multipleChoiceFile.exists() ? textFile : multipleChoiceFile).getPath());
+		}
+		
+		// Uses the snapshot if it was made from the files as they are now
+		if (snapshotFile.exists()) {
+			try {
+				QuestionBank bank = new QuestionBank(Files.readAllBytes(snapshotFile.toPath()));
+				if (bank.isSnapshotOf(multipleChoiceFile, textFile)) {
+					return bank;
+				}
+			}
+			catch (InvalidFormatException e) {
+				// Rebuilt below
+			}
+		}
+		
+		QuestionBank bank = new QuestionBank(parse(multipleChoiceFile, textFile));
+		
+		// The questions can still be used if the snapshot can't be saved
+		File tempFile = new File(snapshotFile.getPath() + ".tmp");
+		try (FileOutputStream outFS = new FileOutputStream(tempFile)) {
+			outFS.write(bank.snapshot.array());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return bank;
+		}
+		Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		return bank;
+	}
+	
+	public int getMultipleChoiceCount() {
+		return multipleChoiceCount;
+	}
+	
+	public int getTextCount() {
+		return textCount;
+	}
+	
+	/**
+	 * Returns a multiple choice question.
+	 * @param index the index of the question, from 0 to getMultipleChoiceCount() - 1
+	 * @return the question
+	 */
+	public MultipleChoiceQuestion getMultipleChoice(int index) {
+		
+		if (index < 0 || index >= multipleChoiceCount) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		
+		int position = dataStart + snapshot.getInt(HEADER_SIZE + 4 * index);
+		String question = readString(position);
+		position += 2 + (snapshot.getShort(position) & 0xFFFF);
+		
+		// Lists the answers the way they are shown
+		StringBuilder answers = new StringBuilder();
+		for (int i = 0; i < LETTERS.length; ++i) {
+			answers.append(LETTERS[i]).append(". ").append(readString(position)).append('\n');
+			position += 2 + (snapshot.getShort(position) & 0xFFFF);
+		}
+		
+		return new MultipleChoiceQuestion(question, answers.toString(), LETTERS[snapshot.get(position)]);
+	}
+	
+	/**
+	 * Returns a text question.
+	 * @param index the index of the question, from 0 to getTextCount() - 1
+	 * @return the question
+	 */
+	public TextQuestion getText(int index) {
+		
+		if (index < 0 || index >= textCount) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		
+		int position = dataStart + snapshot.getInt(HEADER_SIZE + 4 * (multipleChoiceCount + index));
+		String question = readString(position);
+		position += 2 + (snapshot.getShort(position) & 0xFFFF);
+		
+		return new TextQuestion(question, readString(position));
+	}
+	
+	/**
+	 * Returns whether this bank was made from the question files as they are now.
+	 * @param multipleChoiceFile the multiple choice questions
+	 * @param textFile the text questions
+	 * @return true if neither file has changed
+	 */
+	private boolean isSnapshotOf(File multipleChoiceFile, File textFile) {
+		return snapshot.getLong(6) == multipleChoiceFile.length()
+				&& snapshot.getLong(14) == multipleChoiceFile.lastModified()
+				&& snapshot.getLong(22) == textFile.length()
+				&& snapshot.getLong(30) == textFile.lastModified();
+	}
+	
+	/**
+	 * Reads a length-prefixed string from the snapshot.
+	 * @param position the position of the length
+	 * @return the string
+	 */
+	private String readString(int position) {
+		int length = snapshot.getShort(position) & 0xFFFF;
+		return new String(snapshot.array(), position + 2, length, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Parses and checks both question files, building a snapshot of them.
+	 * @param multipleChoiceFile the multiple choice questions
+	 * @param textFile the text questions
+	 * @return the snapshot
+	 * @throws IOException if a file can't be read
+	 * @throws EmptyFileException if a file has no questions
+	 * @throws InvalidFormatException if a question is missing a line or has no correct answer
+	 */
+	private static byte[] parse(File multipleChoiceFile, File textFile)
+			throws IOException, EmptyFileException, InvalidFormatException {
+		
+		// Stamps are read first, so a file changed while parsing makes the snapshot out of date
+		long multipleChoiceLength = multipleChoiceFile.length();
+		long multipleChoiceModified = multipleChoiceFile.lastModified();
+		long textLength = textFile.length();
+		long textModified = textFile.lastModified();
+		
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		DataOutputStream dataFS = new DataOutputStream(data);
+		IntList offsets = new IntList();
+		
+		// Multiple choice questions, six lines each
+		int multipleChoiceCount = 0;
+		try (BufferedReader inFS = Files.newBufferedReader(multipleChoiceFile.toPath())) {
+			String question;
+			while ((question = nextQuestion(inFS)) != null) {
+				offsets.add(dataFS.size());
+				writeString(dataFS, question);
+				for (int i = 0; i < LETTERS.length; ++i) {
+					writeString(dataFS, requireLine(inFS));
+				}
+				
+				// The correct answer has to be one of the four letters
+				String correct = requireLine(inFS).trim().toUpperCase();
+				if (correct.length() != 1 || correct.charAt(0) < 'A' || correct.charAt(0) > 'D') {
+					throw new InvalidFormatException();
+				}
+				dataFS.writeByte(correct.charAt(0) - 'A');
+				++multipleChoiceCount;
+			}
+		}
+		
+		// Text questions, two lines each
+		int textCount = 0;
+		try (BufferedReader inFS = Files.newBufferedReader(textFile.toPath())) {
+			String question;
+			while ((question = nextQuestion(inFS)) != null) {
+				offsets.add(dataFS.size());
+				writeString(dataFS, question);
+				writeString(dataFS, requireLine(inFS));
+				++textCount;
+			}
+		}
+		
+		if (multipleChoiceCount == 0 || textCount == 0) {
+			throw new EmptyFileException();
+		}
+		
+		// Puts the header and offset table in front of the questions
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream(
+				HEADER_SIZE + 4 * offsets.size() + data.size());
+		DataOutputStream outFS = new DataOutputStream(snapshot);
+		outFS.writeInt(MAGIC);
+		outFS.writeShort(VERSION);
+		outFS.writeLong(multipleChoiceLength);
+		outFS.writeLong(multipleChoiceModified);
+		outFS.writeLong(textLength);
+		outFS.writeLong(textModified);
+		outFS.writeInt(multipleChoiceCount);
+		outFS.writeInt(textCount);
+		for (int i = 0; i < offsets.size(); ++i) {
+			outFS.writeInt(offsets.get(i));
+		}
+		data.writeTo(outFS);
+		
+		return snapshot.toByteArray();
+	}
+	
+	/**
+	 * Reads the line a question starts on, skipping blank lines between questions.
+	 * @param inFS the question file
+	 * @return the question, or null at the end of the file
+	 * @throws IOException if the file can't be read
+	 */
+	private static String nextQuestion(BufferedReader inFS) throws IOException {
+		String line = inFS.readLine();
+		while (line != null && line.isBlank()) {
+			line = inFS.readLine();
+		}
+		return line;
+	}
+	
+	/**
+	 * Reads a line that has to be there.
+	 * @param inFS the question file
+	 * @return the line
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if the file ends
+	 */
+	private static String requireLine(BufferedReader inFS) throws IOException, InvalidFormatException {
+		String line = inFS.readLine();
+		if (line == null) {
+			throw new InvalidFormatException();
+		}
+		return line;
+	}
+	
+	/**
+	 * Writes a string as its length and then its UTF-8 bytes.
+	 * @param outFS where to write
+	 * @param s the string
+	 * @throws IOException if it can't be written
+	 * @throws InvalidFormatException if the string is too long to store
+	 */
+	private static void writeString(DataOutputStream outFS, String s) throws IOException, InvalidFormatException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new InvalidFormatException();
+		}
+		outFS.writeShort(bytes.length);
+		outFS.write(bytes);
+	}
+	
+	
+	/**
+	 * This inner class is a growable list of ints, for the offset table.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private static class IntList {
+		
+		private int[] values = new int[64];
+		private int size = 0;
+		
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+		
+		private int get(int index) {
+			return values[index];
+		}
+		
+		private int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package dev.jacobeager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ * This class decides which quiz bowl question comes next. Each type of question is a deck
+ * that is dealt in a shuffled order, so no question repeats until every question of its
+ * type has been asked. The deck is shuffled as it's dealt (one step of a Fisher-Yates
+ * shuffle per question), so drawing a question takes constant time and doesn't allocate,
+ * and the questions themselves are never copied.
+ *
+ * Which type comes next is picked at random using a weight for each type. The weights and
+ * where each deck is up to are saved, so the next session carries on where this one left off
+ * instead of starting the questions over.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class QuestionScheduler {
+	
+	// Types of question
+	public static final int MULTIPLE_CHOICE = 0;
+	public static final int TEXT = 1;
+	
+	/**
+	 * Where the weights and deck positions are saved.
+	 */
+	public static final String STATE_PATH = "resources\\quizSchedule.dat";
+	
+	// File header ("BGQS")
+	private static final int MAGIC = 0x42475153;
+	private static final short VERSION = 1;
+	
+	// Default weights (three multiple choice questions for every text question)
+	private static final int[] DEFAULT_WEIGHTS = {3, 1};
+	
+	/**
+	 * The scheduler shared by every game, or null if it hasn't been made.
+	 */
+	private static QuestionScheduler instance;
+	
+	private final File stateFile;
+	
+	// One deck and weight per type
+	private final Deck[] decks;
+	private final int[] weights;
+	
+	/**
+	 * Picks the type of each question and the seed of each new shuffle.
+	 */
+	private final SplittableRandom random = new SplittableRandom();
+	
+	/**
+	 * Creates a scheduler, carrying on from the saved state if it was for decks of the same
+	 * sizes.
+	 * @param multipleChoiceCount the number of multiple choice questions
+	 * @param textCount the number of text questions
+	 * @param stateFile where the state is saved
+	 */
+	public QuestionScheduler(int multipleChoiceCount, int textCount, File stateFile) {
+		
+		this.stateFile = stateFile;
+		decks = new Deck[] {new Deck(multipleChoiceCount), new Deck(textCount)};
+		weights = Arrays.copyOf(DEFAULT_WEIGHTS, DEFAULT_WEIGHTS.length);
+		
+		try {
+			restore();
+		}
+		catch (IOException | InvalidFormatException e) {
+			// Starts fresh
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Returns the scheduler for the question bank, making a new one if the bank has changed.
+	 * @param bank the question bank
+	 * @return the scheduler
+	 */
+	public static synchronized QuestionScheduler get(QuestionBank bank) {
+		if (instance == null || instance.decks[MULTIPLE_CHOICE].size != bank.getMultipleChoiceCount()
+				|| instance.decks[TEXT].size != bank.getTextCount()) {
+			instance = new QuestionScheduler(bank.getMultipleChoiceCount(), bank.getTextCount(),
+					new File(STATE_PATH));
+		}
+		return instance;
+	}
+	
+	/**
+	 * Sets how often a type of question comes up compared to the others. A weight of 0 means
+	 * it never comes up.
+	 * @param type MULTIPLE_CHOICE or TEXT
+	 * @param weight the weight
+	 */
+	public synchronized void setWeight(int type, int weight) {
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight can't be negative: " + weight);
+		}
+		weights[type] = weight;
+	}
+	
+	public synchronized int getWeight(int type) {
+		return weights[type];
+	}
+	
+	/**
+	 * Picks the type of the next question using the weights. Types with no questions are
+	 * skipped.
+	 * @return MULTIPLE_CHOICE or TEXT
+	 */
+	public synchronized int nextType() {
+		
+		int total = 0;
+		for (int type = 0; type < decks.length; ++type) {
+			if (decks[type].size > 0) {
+				total += weights[type];
+			}
+		}
+		if (total == 0) {
+			throw new IllegalStateException("No questions can be scheduled");
+		}
+		
+		int pick = random.nextInt(total);
+		for (int type = 0; type < decks.length; ++type) {
+			if (decks[type].size > 0) {
+				pick -= weights[type];
+				if (pick < 0) {
+					return type;
+				}
+			}
+		}
+		return decks.length - 1;
+	}
+	
+	/**
+	 * Deals the next question of a type.
+	 * @param type MULTIPLE_CHOICE or TEXT
+	 * @return the index of the question in the question bank
+	 */
+	public synchronized int next(int type) {
+		return decks[type].deal();
+	}
+	
+	/**
+	 * Saves the weights and where each deck is up to.
+	 * @throws IOException if the file can't be written
+	 */
+	public synchronized void save() throws IOException {
+		
+		File tempFile = new File(stateFile.getPath() + ".tmp");
+		
+		try (DataOutputStream outFS = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			outFS.writeInt(MAGIC);
+			outFS.writeShort(VERSION);
+			outFS.writeInt(decks.length);
+			for (int type = 0; type < decks.length; ++type) {
+				outFS.writeInt(weights[type]);
+				outFS.writeInt(decks[type].size);
+				outFS.writeLong(decks[type].seed);
+				outFS.writeInt(decks[type].position);
+			}
+		}
+		
+		Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Loads the saved state. A deck whose size has changed starts a new shuffle.
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if the file is malformed
+	 */
+	private void restore() throws IOException, InvalidFormatException {
+		
+		if (!stateFile.exists()) {
+			return;
+		}
+		
+		try (DataInputStream inFS = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(stateFile)))) {
+			
+			if (inFS.readInt() != MAGIC || inFS.readShort() != VERSION || inFS.readInt() != decks.length) {
+				throw new InvalidFormatException();
+			}
+			
+			for (int type = 0; type < decks.length; ++type) {
+				int weight = inFS.readInt();
+				int size = inFS.readInt();
+				long seed = inFS.readLong();
+				int position = inFS.readInt();
+				if (weight < 0 || position < 0 || position > size) {
+					throw new InvalidFormatException();
+				}
+				
+				weights[type] = weight;
+				if (size == decks[type].size) {
+					decks[type].resume(seed, position);
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * This inner class deals the questions of one type in a shuffled order. The shuffle is
+	 * done one step at a time: dealing the question at position p swaps a random later
+	 * question into p. Only the first shuffle of the deck allocates anything.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private class Deck {
+		
+		private final int size;
+		
+		/**
+		 * The order of the questions. A 0 means the question at that position hasn't been
+		 * moved; otherwise it holds the index of the question there, plus one. This means the
+		 * deck never has to be filled in before it's shuffled.
+		 */
+		private int[] order;
+		
+		// The seed the current shuffle started from, and the random numbers it has used
+		private long seed;
+		private SplittableRandom shuffle;
+		
+		/**
+		 * The number of questions dealt from the current shuffle.
+		 */
+		private int position;
+		
+		private Deck(int size) {
+			this.size = size;
+			position = size;
+		}
+		
+		/**
+		 * Deals the next question, starting a new shuffle if the deck has run out.
+		 * @return the index of the question
+		 */
+		private int deal() {
+			
+			if (size == 0) {
+				throw new IllegalStateException("No questions of this type");
+			}
+			if (position == size) {
+				startShuffle(random.nextLong());
+			}
+			
+			// Swaps a random question from the rest of the deck into the next position
+			int pick = position + shuffle.nextInt(size - position);
+			int question = at(pick);
+			order[pick] = at(position) + 1;
+			order[position] = question + 1;
+			++position;
+			return question;
+		}
+		
+		/**
+		 * Carries on a saved shuffle, dealing the questions already dealt again so the
+		 * deck is in the same order.
+		 * @param savedSeed the seed the shuffle started from
+		 * @param savedPosition the number of questions dealt from it
+		 */
+		private void resume(long savedSeed, int savedPosition) {
+			startShuffle(savedSeed);
+			while (position < savedPosition) {
+				deal();
+			}
+		}
+		
+		/**
+		 * Puts every question back and starts a new shuffle.
+		 * @param newSeed the seed for the shuffle
+		 */
+		private void startShuffle(long newSeed) {
+			if (order == null) {
+				order = new int[size];
+			}
+			else {
+				Arrays.fill(order, 0);
+			}
+			seed = newSeed;
+			shuffle = new SplittableRandom(newSeed);
+			position = 0;
+		}
+		
+		/**
+		 * Returns the question at a position in the deck.
+		 * @param index the position
+		 * @return the index of the question
+		 */
+		private int at(int index) {
+			return order[index] == 0 ? index : order[index] - 1;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package dev.jacobeager;
+
+import java.util.HashMap;
+import java.util.Random;
+
+
+/**
+ * This class answers Quiz Bowl questions. It knows every answer from the question bank, 
+ * like an oracle, but only gives the right one some of the time, answering at random 
+ * otherwise, so its games end after a realistic number of questions. An accuracy of 0 
+ * answers everything at random.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class QuizBot implements GameBot {
+	
+	private static final String OPTIONS = "ABCD";
+	
+	// Answers to each question, by the question's text
+	private final HashMap<String, String> multipleChoiceAnswers = new HashMap<>();
+	private final HashMap<String, String> textAnswers = new HashMap<>();
+	
+	private final double accuracy;
+	private final Random random;
+	
+	/**
+	 * Creates a bot.
+	 * @param questions every question the game can ask
+	 * @param accuracy how often the right answer is given, from 0 to 1
+	 * @param random picks the wrong answers
+	 */
+	public QuizBot(QuestionBank questions, double accuracy, Random random) {
+		
+		this.accuracy = accuracy;
+		this.random = random;
+		
+		for (int i = 0; i < questions.getMultipleChoiceCount(); ++i) {
+			MultipleChoiceQuestion question = questions.getMultipleChoice(i);
+			multipleChoiceAnswers.put(question.getQuestion(), String.valueOf(question.getCorrectAnswer()));
+		}
+		for (int i = 0; i < questions.getTextCount(); ++i) {
+			TextQuestion question = questions.getText(i);
+			textAnswers.put(question.getQuestion(), question.getAnswer());
+		}
+	}
+	
+	@Override
+	public String nextInput(String snapshot) {
+		
+		String question = SnapshotReader.getString(snapshot, "question");
+		boolean multipleChoice = "multipleChoice".equals(SnapshotReader.getString(snapshot, "type"));
+		
+		if (random.nextDouble() < accuracy) {
+			String answer = (multipleChoice ? multipleChoiceAnswers : textAnswers).get(question);
+			if (answer != null) {
+				return answer;
+			}
+		}
+		
+		// Guesses, which is almost always wrong for a text question
+		return multipleChoice ? String.valueOf(OPTIONS.charAt(random.nextInt(OPTIONS.length()))) : "?";
+	}
+}
@@ -1,5 +1,6 @@
 package dev.jacobeager;
 
+import java.awt.CardLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
@@ -7,14 +8,10 @@ import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Random;
-import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -23,6 +20,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.border.Border;
 
 
 /**
@@ -32,28 +30,53 @@ import javax.swing.JTextField;
  */
 
 public class QuizBowl extends JFrame implements Game {
-
+	
 	// Version ID
 	private static final long serialVersionUID = 14567746546353678L;
 	
-	/**
-	 * The current score. Increases by one for every question solved.
-	 */
-	private int score = 0;
+	// How many times the questions couldn't be loaded
+	private static final LongAdder QUESTION_ERRORS = Metrics.counter("errors.questions");
 	
 	/**
-	 * An ArrayList that stores the text file data for all multiple choice questions.
+	 * Decides which question comes next, so questions don't repeat until every one has been 
+	 * asked.
 	 */
-	private ArrayList<MultipleChoiceQuestion> multQuestions = new ArrayList<MultipleChoiceQuestion>();
+	private transient QuestionScheduler scheduler;
 	
 	/**
-	 * An ArrayList that stores the text file data for all text questions.
+	 * The rules of the game, or null if the questions couldn't be loaded. The frame only 
+	 * draws what the engine says.
 	 */
-	private ArrayList<TextQuestion> textQuestions = new ArrayList<TextQuestion>();
+	private transient QuizEngine engine;
+	
+	// Colors, fonts and borders shared by every question
+	private static final Color BACKGROUND = Color.decode("#46178f");
+	private static final Color[] OPTION_COLORS = {
+			Color.decode("#eb21b3c"), Color.decode("#1368ce"), 
+			Color.decode("#26890c"), Color.decode("#ffa602")};
+	private static final Color ENTER_COLOR = Color.decode("#45a3e5");
+	private static final Font MULT_QUESTION_FONT = new Font("Comic Sans MS", Font.BOLD, 40);
+	private static final Font TEXT_QUESTION_FONT = new Font("Comic Sans MS", Font.BOLD, 50);
+	private static final Font ANSWERS_FONT = new Font("Arial", Font.PLAIN, 20);
+	private static final Font OPTION_FONT = new Font("Arial", Font.BOLD, 50);
+	private static final Font ANSWER_BOX_FONT = new Font("Arial", Font.PLAIN, 18);
+	private static final Font ENTER_FONT = new Font("Arial", Font.BOLD, 20);
+	private static final Border OPTION_BORDER = BorderFactory.createLineBorder(Color.WHITE, 3, true);
+	private static final Border ENTER_BORDER = BorderFactory.createLineBorder(Color.WHITE, 3);
+	
+	// Names of the layouts for each type of question
+	private static final String MULT_CARD = "multipleChoice";
+	private static final String TEXT_CARD = "text";
 	
-	// Declared as fields because their contents change depending on question type
+	// Each half of the frame holds the layout for both types of question, only showing one
 	private JPanel upperPanel, lowerPanel;
-
+	private CardLayout upperCards, lowerCards;
+	
+	// Components whose text changes with each question
+	private JLabel multQuestionLabel, textQuestionLabel;
+	private JTextArea answersLabel;
+	private JTextField answerBox;
+	
 	/**
 	 * Constructor that creates the GUI and begins the game.
 	 */
@@ -66,315 +89,222 @@ public class QuizBowl extends JFrame implements Game {
 		this.setLayout(new GridLayout(2,1));
 		
 		// Top half of the background
-		upperPanel = new JPanel();
-		upperPanel.setBackground(Color.decode("#46178f"));
+		upperCards = new CardLayout();
+		upperPanel = new JPanel(upperCards);
+		upperPanel.setBackground(BACKGROUND);
 		this.add(upperPanel);
 		
 		// Bottom half of the background
-		lowerPanel = new JPanel();
-		lowerPanel.setBackground(Color.decode("#46178f"));
+		lowerCards = new CardLayout();
+		lowerPanel = new JPanel(lowerCards);
+		lowerPanel.setBackground(BACKGROUND);
 		this.add(lowerPanel);
 		
+		// Builds both layouts once, so each question only changes text
+		buildMultipleChoiceView();
+		buildTextView();
+		
 		this.setVisible(true);
 		
+		// Loads the questions, parsing the question files only if they've changed
+		try {
+			QuestionBank questions = QuestionBank.get();
+			scheduler = QuestionScheduler.get(questions);
+			engine = new QuizEngine(questions, scheduler);
+		}
+		catch (IOException | EmptyFileException | InvalidFormatException e) {
+			QUESTION_ERRORS.increment();
+			e.printStackTrace();
+		}
+		
+		// Saves the scheduler's place if the window is closed mid game
+		this.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				saveSchedule();
+			}
+		});
+		
 		// Generates a question and starts the game
-		generateQuestion();
+		if (engine != null) {
+			engine.start();
+			showQuestion();
+		}
 	}
 	
 	/**
-	 * Randomly selects either a multiple choice question or a text question. 
-	 * 3/4 chance of multiple choice question 
-	 * 1/4 chance of text question
+	 * Shows the question the engine is asking, which is either a multiple choice question or 
+	 * a text question, picked using the scheduler's weights for each type (by default a 3/4 
+	 * chance of multiple choice and a 1/4 chance of text).
 	 */
-	private void generateQuestion() {
+	private void showQuestion() {
 		
-		Random r = new Random();
-
-		if (r.nextInt(4) < 3) {
-			MultipleChoiceQuestion multQ = getMultipleChoiceQuestion();
-		    displayQuestion(multQ);
+		if (engine.getQuestionType() == QuestionScheduler.MULTIPLE_CHOICE) {
+		    displayQuestion(engine.getMultipleChoice());
 		} 
 		else {
-		   TextQuestion textQ = getTextQuestion();
-		   displayQuestion(textQ);
+		   displayQuestion(engine.getText());
 		}
 	}
-
+	
 	/**
-	 * Sets up the GUI to display a multiple choice question and takes in the user's answer. 
-	 * @param questionObject the question displayed
+	 * Gives an answer to the engine, showing the next question if it was right and ending 
+	 * the game if it was wrong.
+	 * @param answer the letter or text answered
 	 */
-	private void displayQuestion(MultipleChoiceQuestion questionObject) {
+	private void answer(String answer) {
 		
-		// Takes the necessary variables from the question object for simplicity
-		String question = questionObject.getQuestion();
-		String answers = questionObject.getAnswers();
-		char correctAnswer = questionObject.getCorrectAnswer();
+		if (engine == null) {
+			return;
+		}
 		
-		// Clears former contents and sets layout
-		upperPanel.removeAll();
-		upperPanel.setLayout(new FlowLayout(FlowLayout.CENTER,0,50));
+		switch (engine.submit(answer)) {
+			case GameSession.ROUND_WON:
+				showQuestion(); // Continues game
+				break;
+			
+			case GameSession.GAME_OVER:
+				gameOver(); // Ends game
+				break;
+			
+			default:
+				break;
+		}
+	}
+	
+	/**
+	 * Builds the layout for multiple choice questions: the question and its answers on top, 
+	 * and a button for each answer on the bottom.
+	 */
+	private void buildMultipleChoiceView() {
 		
 		// JPanel for containing question and answer
+		JPanel upperCard = new JPanel(new FlowLayout(FlowLayout.CENTER,0,50));
+		upperCard.setBackground(BACKGROUND);
+		upperPanel.add(upperCard, MULT_CARD);
+		
 		JPanel qAndA = new JPanel();
 		qAndA.setLayout(new GridBagLayout());
-		qAndA.setBackground(Color.decode("#46178f"));
+		qAndA.setBackground(BACKGROUND);
 		GridBagConstraints constraints = new GridBagConstraints();
-		upperPanel.add(qAndA);
+		upperCard.add(qAndA);
 		
 		// Displays question
-		JLabel questionLabel = new JLabel(question);
-		questionLabel.setFont(new Font("Comic Sans MS", Font.BOLD, 40));
-		questionLabel.setForeground(Color.WHITE);
+		multQuestionLabel = new JLabel();
+		multQuestionLabel.setFont(MULT_QUESTION_FONT);
+		multQuestionLabel.setForeground(Color.WHITE);
 		constraints.gridx = 0;
 		constraints.gridy = 0;
-		qAndA.add(questionLabel, constraints);
+		qAndA.add(multQuestionLabel, constraints);
 		
-		// Displays answer
-		JTextArea answersLabel = new JTextArea(answers);
-		answersLabel.setFont(new Font("Arial", Font.PLAIN, 20));
+		// Displays answers
+		answersLabel = new JTextArea();
+		answersLabel.setFont(ANSWERS_FONT);
 		answersLabel.setForeground(Color.WHITE);
 		answersLabel.setEditable(false);
 		answersLabel.setOpaque(false);
 		constraints.gridy = 1;
 		qAndA.add(answersLabel, constraints);
 		
-		// Revalidates/repaints the upper panel (formatting gets wonky if this doesn't happen)
-		upperPanel.revalidate();
-		upperPanel.repaint();
-		
-		// Clears former contents and sets layout
-		lowerPanel.removeAll();
-		lowerPanel.setLayout(new GridLayout(2, 2));
-		
 		// Adds the four buttons to the grid
-		for (char option : new char[]{'A', 'B', 'C', 'D'}) {
+		JPanel lowerCard = new JPanel(new GridLayout(2, 2));
+		lowerCard.setBackground(BACKGROUND);
+		lowerPanel.add(lowerCard, MULT_CARD);
+		
+		char[] options = {'A', 'B', 'C', 'D'};
+		for (int i = 0; i < options.length; ++i) {
+			
+			char option = options[i];
+			
+			// Formats button, with its color depending on letter
+			JButton button = new JButton(String.valueOf(option));
+			button.setBorder(OPTION_BORDER);
+			button.setFont(OPTION_FONT);
+			button.setForeground(Color.WHITE);
+			button.setBackground(OPTION_COLORS[i]);
 			
-			// Formats button
-		    JButton button = new JButton(String.valueOf(option));
-		    button.setBorder(BorderFactory.createLineBorder(Color.WHITE, 3, true));
-		    button.setFont(new Font("Arial", Font.BOLD, 50));
-		    button.setForeground(Color.WHITE);
-		    
-		    // Sets color of button depending on letter
-		    switch (option) {
-        		case 'A':
-        			button.setBackground(Color.decode("#eb21b3c"));
-        			break;
-        		
-        		case 'B':
-        			button.setBackground(Color.decode("#1368ce"));
-        			break;
-        		
-        		case 'C':
-        			button.setBackground(Color.decode("#26890c"));
-        			break;
-        		
-        		case 'D':
-        			button.setBackground(Color.decode("#ffa602"));
-        			break;
-		    }
-		    
-		    // Adds action listener and logic
-		    button.addActionListener(e -> {
-		        if (option == correctAnswer) {
-		            ++score;
-		            generateQuestion(); // Continues game
-		        } else {
-		            gameOver(); // Ends game
-		        }
-		    });
-		    lowerPanel.add(button);
+			// Checks the answer to whichever question is showing
+			button.addActionListener(e -> answer(String.valueOf(option)));
+			lowerCard.add(button);
 		}
-		// Revalidates and repaints lower panel
-		lowerPanel.revalidate();
-		lowerPanel.repaint();
 	}
-
+	
 	/**
-	 * Sets up the GUI to display a text question and takes in the user's answer. 
-	 * @param questionObject the question displayed
+	 * Builds the layout for text questions: the question on top, and a box to type the 
+	 * answer in and an enter button on the bottom.
 	 */
-	private void displayQuestion(TextQuestion questionObject) {
-		
-		// Takes the necessary variables from the question object for simplicity
-		String question = questionObject.getQuestion();
-		String answer = questionObject.getAnswer();
-		
-		// Clears and reformats upper panel
-		upperPanel.removeAll();
-		upperPanel.setLayout(new FlowLayout(FlowLayout.CENTER,0,100));
+	private void buildTextView() {
 		
 		// Displays question
-		JLabel questionLabel = new JLabel(question);
-		questionLabel.setFont(new Font("Comic Sans MS", Font.BOLD, 50));
-		questionLabel.setForeground(Color.WHITE);
-		upperPanel.add(questionLabel);
+		JPanel upperCard = new JPanel(new FlowLayout(FlowLayout.CENTER,0,100));
+		upperCard.setBackground(BACKGROUND);
+		upperPanel.add(upperCard, TEXT_CARD);
 		
-		// Repaints and revalidates upper panel
-		upperPanel.revalidate();
-		upperPanel.repaint();
+		textQuestionLabel = new JLabel();
+		textQuestionLabel.setFont(TEXT_QUESTION_FONT);
+		textQuestionLabel.setForeground(Color.WHITE);
+		upperCard.add(textQuestionLabel);
+		
+		JPanel lowerCard = new JPanel(new FlowLayout(FlowLayout.CENTER,50,50));
+		lowerCard.setBackground(BACKGROUND);
+		lowerPanel.add(lowerCard, TEXT_CARD);
 		
-		// Clears and reformats lower panel
-		lowerPanel.removeAll();
-		lowerPanel.setLayout(new FlowLayout(FlowLayout.CENTER,50,50));
-
 		// Textbox for answer
-		JTextField answerBox = new JTextField();
-		answerBox.setFont(new Font("Arial", Font.PLAIN, 18));
+		answerBox = new JTextField();
+		answerBox.setFont(ANSWER_BOX_FONT);
 		answerBox.setPreferredSize(new Dimension(600,100));
-		lowerPanel.add(answerBox);
+		lowerCard.add(answerBox);
 		
 		// Enter button
 		JButton enter = new JButton("Enter");
 		enter.setPreferredSize(new Dimension(300,100));
-		enter.setFont(new Font("Arial", Font.BOLD, 20));
-		enter.setBackground(Color.decode("#45a3e5"));
+		enter.setFont(ENTER_FONT);
+		enter.setBackground(ENTER_COLOR);
 		enter.setForeground(Color.WHITE);
-		enter.setBorder(BorderFactory.createLineBorder(Color.WHITE, 3));
-		enter.addActionListener(e -> {
-			if (answerBox.getText().equalsIgnoreCase(answer)) {
-				score++;
-				generateQuestion();
-			} 
-			else {
-				gameOver();
-			}
-		});
-		lowerPanel.add(enter);
-		
-		// Repaints and revalidates lower panel
-		lowerPanel.revalidate();
-		lowerPanel.repaint();
-
+		enter.setBorder(ENTER_BORDER);
+		enter.addActionListener(e -> answer(answerBox.getText()));
+		lowerCard.add(enter);
 	}
 	
 	/**
-	 * Pulls a random multiple choice question from the ArrayList.
-	 * @return the question selected
+	 * Shows a multiple choice question in the retained layout and takes in the user's answer. 
+	 * @param questionObject the question displayed
 	 */
-	private MultipleChoiceQuestion getMultipleChoiceQuestion() {
-		
-		Random r = new Random();
-		
-		String question = "";
-		String answers = "";
-		char correctAnswer = 'Z'; // Impossible answer for debug purposes
-		char[] possibleAnswers = {'A','B','C','D'};
-		
-		// Checks if the array of multiple choice questions is filled, and if it's empty, fills it
-		if (multQuestions.size() == 0) {
-			try {
-				FileInputStream fileByteStream = new FileInputStream("resources\\multipleChoiceQuestions.txt");
-				Scanner inFS = new Scanner(fileByteStream);
-				
-				// Checks if file is empty
-				if (!inFS.hasNextLine()) {
-					inFS.close();
-					throw new EmptyFileException();
-				}
-				
-				while (inFS.hasNextLine()) {
-					answers = "";
-					
-					// Gathers question
-					question = inFS.nextLine();
-					
-					// Gathers possible answers
-					for (int i = 0; i < 4; ++i) {
-						if (inFS.hasNextLine()) {
-							answers += possibleAnswers[i] + ". " + inFS.nextLine() + "\n";
-						}
-						else {
-							// If there are less than 4 answers, throws exception
-							inFS.close();
-							throw new InvalidFormatException();
-						}
-					}
-					if (inFS.hasNextLine()) {
-						
-						// Gathers correct answer character
-						correctAnswer = inFS.nextLine().charAt(0);
-						
-						// Only adds question if it has an answer
-						multQuestions.add(new MultipleChoiceQuestion(question, answers, correctAnswer));
-					}
-				}
-				inFS.close();
-			}
-			catch (FileNotFoundException e) {
-				e.printStackTrace();
-				return null;
-			}
-			catch (EmptyFileException e) {
-				e.printStackTrace();
-				return null;
-			}
-			catch (InvalidFormatException e) {
-				e.printStackTrace();
-				return null;
-			}
-		}
+	private void displayQuestion(MultipleChoiceQuestion questionObject) {
 		
-		// Selects a random question from the ArrayList
-		return multQuestions.get(r.nextInt(0, multQuestions.size()));
+		// Only the text changes; the layout was built once
+		multQuestionLabel.setText(questionObject.getQuestion());
+		answersLabel.setText(questionObject.getAnswers());
 		
+		upperCards.show(upperPanel, MULT_CARD);
+		lowerCards.show(lowerPanel, MULT_CARD);
 	}
+	
 	/**
-	 * Pulls a random text question from the ArrayList.
-	 * @return the question selected
+	 * Shows a text question in the retained layout and takes in the user's answer. 
+	 * @param questionObject the question displayed
 	 */
-	private TextQuestion getTextQuestion() {
+	private void displayQuestion(TextQuestion questionObject) {
 		
-		Random r = new Random();
+		textQuestionLabel.setText(questionObject.getQuestion());
+		answerBox.setText("");
 		
-		String question = "";
-		String answer = "";
-
-		// Checks if the array of text questions is filled, and if it's empty, fills it
-		if (textQuestions.size() == 0) {
+		upperCards.show(upperPanel, TEXT_CARD);
+		lowerCards.show(lowerPanel, TEXT_CARD);
+	}
+	
+	/**
+	 * Saves where the scheduler is up to, so the next game doesn't repeat these questions.
+	 */
+	private void saveSchedule() {
+		if (scheduler != null) {
 			try {
-				FileInputStream fileByteStream = new FileInputStream("resources\\textQuestions.txt");
-				Scanner inFS = new Scanner(fileByteStream);
-				
-				// Checks if file is empty
-				if (!inFS.hasNextLine()) {
-					inFS.close();
-					throw new EmptyFileException();
-				}
-				// Gets questions and answers
-				while (inFS.hasNextLine()) {
-					question = inFS.nextLine();
-					if (inFS.hasNextLine()) {
-						answer = inFS.nextLine();
-						textQuestions.add(new TextQuestion(question, answer));
-					}
-					else {
-						inFS.close();
-						
-						// Throws exception if a question is missing an answer
-						throw new InvalidFormatException();
-					}
-				}
-				inFS.close();
+				scheduler.save();
 			}
-			catch (FileNotFoundException e) {
+			catch (IOException e) {
 				e.printStackTrace();
-				return null;
-			}
-			catch (EmptyFileException e) {
-				e.printStackTrace();
-				return null;
-			}
-			catch (InvalidFormatException e) {
-				e.printStackTrace();
-				return null;
 			}
 		}
-		
-		// Selects a random question from the ArrayList
-		return textQuestions.get(r.nextInt(0, textQuestions.size()));
-		
 	}
 	
 	/**
@@ -392,20 +322,22 @@ public class QuizBowl extends JFrame implements Game {
 		// Centers
 		this.setLayout(new FlowLayout(FlowLayout.CENTER));
 		
-		// Adds game over screen
-		this.add(new GameOverScreen(score));
+		// Adds game over screen, which adds the score to the leaderboard once the user's best is read
+		int score = engine == null ? 0 : engine.getScore();
+		this.add(new GameOverScreen(score, PersonalBests.QUIZ_BOWL, 
+				Main.titleFrame.currUsername, this));
 		
 		// Repaints and revalidates
 		this.repaint();
 		this.revalidate();
 		
-		// Adds high score to .txt file
-		addHighScore(Main.titleFrame.currUsername, score);
+		// Remembers which questions have been asked
+		saveSchedule();
 	}
 	
 	/**
 	 * When the game ends, takes the score and the current user logged in and records
-	 * it to the leaderboard text file. 
+	 * it to the game's leaderboard store in the background. 
 	 * 
 	 * @param user the username to be added
 	 * @param score the high score to be added
@@ -413,20 +345,7 @@ public class QuizBowl extends JFrame implements Game {
 	
 	@Override
 	public void addHighScore(String user, int score) {
-		
-		try {
-			FileWriter outputStream = new FileWriter("resources\\quizLeaderboard.txt", true);
-			BufferedWriter outFS = new BufferedWriter(outputStream);
-			outFS.write(user + "\n");
-			outFS.write(score + "\n");
-			outFS.close();
-			outputStream.close();
-			
-		} 
-		catch (IOException e) {
-			e.printStackTrace();
-		}
-
+		ScoreSink.get().submit(LeaderboardStore.QUIZ_BOWL, user, score);
 	}
 
 }
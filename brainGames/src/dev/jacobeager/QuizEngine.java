@@ -0,0 +1,163 @@
+package dev.jacobeager;
+
+
+/**
+ * This class is the rules of Quiz Bowl without any windows. Questions are dealt by a 
+ * QuestionScheduler and the game goes on until a question is answered wrong. A multiple 
+ * choice question is answered with its letter, and a text question with its answer in any 
+ * case.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class QuizEngine implements GameSession {
+	
+	// How long checking an answer takes, including picking the next question
+	private static final LatencyHistogram ANSWERS = Metrics.histogram("guess.quizBowl");
+	
+	private final QuestionBank questions;
+	private final QuestionScheduler scheduler;
+	
+	/**
+	 * The type of the question being asked, QuestionScheduler.MULTIPLE_CHOICE or TEXT.
+	 */
+	private int questionType;
+	
+	// The question being asked; only the one of the current type is set
+	private MultipleChoiceQuestion multipleChoice;
+	private TextQuestion text;
+	
+	private int score = 0;
+	private boolean over = false;
+	
+	/**
+	 * Creates a game. start has to be called before it's played.
+	 * @param questions every question
+	 * @param scheduler decides which question comes next
+	 */
+	public QuizEngine(QuestionBank questions, QuestionScheduler scheduler) {
+		this.questions = questions;
+		this.scheduler = scheduler;
+	}
+	
+	@Override
+	public void start() {
+		score = 0;
+		over = false;
+		nextQuestion();
+	}
+	
+	@Override
+	public int submit(CharSequence input) {
+		long start = System.nanoTime();
+		int result = play(input);
+		ANSWERS.recordSince(start);
+		return result;
+	}
+	
+	/**
+	 * Checks an answer and moves the game on.
+	 * @param input the answer
+	 * @return the same results as submit
+	 */
+	private int play(CharSequence input) {
+		
+		if (over) {
+			return INVALID;
+		}
+		
+		boolean correct;
+		if (questionType == QuestionScheduler.MULTIPLE_CHOICE) {
+			
+			// Only takes one of the four letters
+			if (input.length() != 1) {
+				return INVALID;
+			}
+			char option = Character.toUpperCase(input.charAt(0));
+			if (option < 'A' || option > 'D') {
+				return INVALID;
+			}
+			correct = option == multipleChoice.getCorrectAnswer();
+		}
+		else {
+			correct = text.getAnswer().equalsIgnoreCase(input.toString());
+		}
+		
+		if (correct) {
+			++score;
+			nextQuestion();
+			return ROUND_WON;
+		}
+		over = true;
+		return GAME_OVER;
+	}
+	
+	/**
+	 * Returns the type of the question being asked.
+	 * @return QuestionScheduler.MULTIPLE_CHOICE or TEXT
+	 */
+	public int getQuestionType() {
+		return questionType;
+	}
+	
+	/**
+	 * Returns the question being asked if it's multiple choice.
+	 * @return the question, or null if it's a text question
+	 */
+	public MultipleChoiceQuestion getMultipleChoice() {
+		return multipleChoice;
+	}
+	
+	/**
+	 * Returns the question being asked if it's a text question.
+	 * @return the question, or null if it's multiple choice
+	 */
+	public TextQuestion getText() {
+		return text;
+	}
+	
+	@Override
+	public int getScore() {
+		return score;
+	}
+	
+	@Override
+	public boolean isOver() {
+		return over;
+	}
+	
+	@Override
+	public StringBuilder appendSnapshot(StringBuilder sb) {
+		
+		sb.append("{\"game\":\"quizBowl\",\"score\":").append(score);
+		sb.append(",\"over\":").append(over);
+		if (questionType == QuestionScheduler.MULTIPLE_CHOICE) {
+			GameSession.appendJsonString(sb.append(",\"type\":\"multipleChoice\",\"question\":"), 
+					multipleChoice.getQuestion());
+			GameSession.appendJsonString(sb.append(",\"answers\":"), multipleChoice.getAnswers());
+		}
+		else {
+			GameSession.appendJsonString(sb.append(",\"type\":\"text\",\"question\":"), 
+					text.getQuestion());
+		}
+		return sb.append('}');
+	}
+	
+	/**
+	 * Selects either a multiple choice question or a text question, using the scheduler's 
+	 * weights for each type.
+	 */
+	private void nextQuestion() {
+		
+		questionType = scheduler.nextType();
+		if (questionType == QuestionScheduler.MULTIPLE_CHOICE) {
+			multipleChoice = questions.getMultipleChoice(scheduler.next(QuestionScheduler.MULTIPLE_CHOICE));
+			text = null;
+		}
+		else {
+			text = questions.getText(scheduler.next(QuestionScheduler.TEXT));
+			multipleChoice = null;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * This class is a game played on a GameServer, so it can be played the same way as a game 
+ * played here. Each call is one HTTP request, and the state is whatever the server last 
+ * sent back.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class RemoteSession implements GameSession {
+	
+	private final HttpClient client;
+	private final String baseUrl;
+	private final String game;
+	private final String user;
+	
+	/**
+	 * The session's id, or null until it's started.
+	 */
+	private String id;
+	
+	/**
+	 * The last reply from the server.
+	 */
+	private String reply;
+	
+	/**
+	 * Creates a game. start has to be called before it's played.
+	 * @param client the client to send requests with
+	 * @param baseUrl the server, like http://localhost:8080
+	 * @param game wordle, hangman, evilHangman or quizBowl
+	 * @param user the username the server records the score under, or null for none
+	 */
+	public RemoteSession(HttpClient client, String baseUrl, String game, String user) {
+		this.client = client;
+		this.baseUrl = baseUrl;
+		this.game = game;
+		this.user = user;
+	}
+	
+	/**
+	 * Starts the game on the server.
+	 * @throws UncheckedIOException if the server can't be reached or turns the game down
+	 */
+	@Override
+	public void start() {
+		String query = "?game=" + URLEncoder.encode(game, StandardCharsets.UTF_8)
+				+ (user == null ? "" : "&user=" + URLEncoder.encode(user, StandardCharsets.UTF_8));
+		reply = send(HttpRequest.newBuilder(URI.create(baseUrl + "/sessions" + query))
+				.POST(HttpRequest.BodyPublishers.noBody()));
+		id = SnapshotReader.getString(reply, "id");
+	}
+	
+	/**
+	 * Sends a guess or answer to the server.
+	 * @throws UncheckedIOException if the server can't be reached or doesn't know the session
+	 */
+	@Override
+	public int submit(CharSequence input) {
+		
+		reply = send(HttpRequest.newBuilder(URI.create(baseUrl + "/sessions/" + id))
+				.POST(HttpRequest.BodyPublishers.ofString(input.toString())));
+		
+		String result = SnapshotReader.getString(reply, "result");
+		for (int i = CONTINUE; i <= GAME_OVER; ++i) {
+			if (GameSession.resultName(i).equals(result)) {
+				return i;
+			}
+		}
+		return INVALID;
+	}
+	
+	/**
+	 * Ends the game on the server, so it doesn't wait to be closed for being idle.
+	 */
+	public void close() {
+		if (id != null) {
+			try {
+				client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/sessions/" + id)).DELETE().build(), 
+						HttpResponse.BodyHandlers.discarding());
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			id = null;
+		}
+	}
+	
+	@Override
+	public int getScore() {
+		return SnapshotReader.getInt(reply, "score", 0);
+	}
+	
+	@Override
+	public boolean isOver() {
+		return SnapshotReader.getBoolean(reply, "over");
+	}
+	
+	@Override
+	public StringBuilder appendSnapshot(StringBuilder sb) {
+		
+		// The state is the last object in the reply
+		int start = SnapshotReader.valueStart(reply, "state", 0);
+		return sb.append(reply, start, reply.length() - 1);
+	}
+	
+	/**
+	 * Sends a request and returns the reply.
+	 * @param request the request
+	 * @return the body of the reply
+	 * @throws UncheckedIOException if the request fails or the reply isn't a success
+	 */
+	private String send(HttpRequest.Builder request) {
+		
+		HttpResponse<String> response;
+		try {
+			response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException());
+		}
+		
+		if (response.statusCode() != 200) {
+			throw new UncheckedIOException(new IOException("Server replied " + response.statusCode() 
+					+ ": " + response.body()));
+		}
+		return response.body();
+	}
+}
@@ -0,0 +1,273 @@
+package dev.jacobeager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+
+/**
+ * This class ranks high scores as they are read, one row at a time. Only the best rows are
+ * kept (in a bounded min-heap), along with a count of how many rows had each score and each
+ * user's best score, so the rank of any user can be found without keeping every row.
+ *
+ * Tied scores are ranked in the order they were given to the ranking.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class ScoreRanking {
+	
+	// Marks an empty slot in the score counts table (scores are never negative)
+	private static final int EMPTY = Integer.MIN_VALUE;
+	
+	/**
+	 * The most rows kept for the ranked output.
+	 */
+	private final int capacity;
+	
+	// Min-heap of the best rows, the worst kept row is at index 0
+	private final int[] heapScores;
+	private final long[] heapOrder;
+	private final String[] heapUsers;
+	private int heapSize = 0;
+	
+	/**
+	 * The number of rows given to the ranking so far.
+	 */
+	private long rowCount = 0;
+	
+	// Open addressing table counting how many rows had each score
+	private int[] countKeys = new int[64];
+	private int[] countValues = new int[64];
+	private int distinctScores = 0;
+	
+	/**
+	 * The best score of every user seen.
+	 */
+	private HashMap<String, Integer> userBests = new HashMap<String, Integer>();
+	
+	/**
+	 * Creates a ranking that keeps the best rows for output.
+	 * @param capacity the number of rows kept for output (0 if only ranks are needed)
+	 */
+	public ScoreRanking(int capacity) {
+		this.capacity = capacity;
+		heapScores = new int[capacity];
+		heapOrder = new long[capacity];
+		heapUsers = new String[capacity];
+		Arrays.fill(countKeys, EMPTY);
+	}
+	
+	/**
+	 * Adds a row to the ranking.
+	 * @param highScore the row to add
+	 */
+	public void offer(HighScore highScore) {
+		offer(highScore.user(), highScore.score());
+	}
+	
+	/**
+	 * Adds a row to the ranking.
+	 * @param user the username of the row
+	 * @param score the score of the row
+	 */
+	public void offer(String user, int score) {
+		
+		long order = rowCount++;
+		
+		// Keeps track of ranks
+		countScore(score);
+		Integer best = userBests.get(user);
+		if (best == null || score > best) {
+			userBests.put(user, score);
+		}
+		
+		// Keeps the row if there's room or it beats the worst kept row
+		if (heapSize < capacity) {
+			heapScores[heapSize] = score;
+			heapOrder[heapSize] = order;
+			heapUsers[heapSize] = user;
+			siftUp(heapScores, heapOrder, heapUsers, heapSize++);
+		}
+		else if (capacity > 0 && score > heapScores[0]) {
+			heapScores[0] = score;
+			heapOrder[0] = order;
+			heapUsers[0] = user;
+			siftDown(heapScores, heapOrder, heapUsers, 0, heapSize);
+		}
+	}
+	
+	/**
+	 * Returns the number of rows given to the ranking.
+	 * @return the row count
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * Returns the number of rows kept for output.
+	 * @return the number of ranked rows
+	 */
+	public int size() {
+		return heapSize;
+	}
+	
+	/**
+	 * Finds where a user's best score places among every row given to the ranking. Rows with
+	 * the same score share a rank.
+	 * @param user the username to look up
+	 * @return the rank, starting at 1, or 0 if the user has no scores
+	 */
+	public int rankOf(String user) {
+		
+		Integer best = userBests.get(user);
+		if (best == null) {
+			return 0;
+		}
+		
+		// Counts every row with a higher score
+		long higher = 0;
+		for (int i = 0; i < countKeys.length; ++i) {
+			if (countKeys[i] != EMPTY && countKeys[i] > best) {
+				higher += countValues[i];
+			}
+		}
+		return (int) Math.min(Integer.MAX_VALUE, higher + 1);
+	}
+	
+	/**
+	 * Returns the best score of a user.
+	 * @param user the username to look up
+	 * @return the user's best score, or -1 if the user has no scores
+	 */
+	public int bestOf(String user) {
+		Integer best = userBests.get(user);
+		return best == null ? -1 : best;
+	}
+	
+	/**
+	 * Writes the kept rows, best first, as numbered lines ("1. user: score").
+	 * The ranking can keep taking rows afterwards.
+	 * @param sb the StringBuilder to write to
+	 * @return the same StringBuilder
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		
+		// Pops a copy of the heap from worst to best, filling the output from the back
+		int[] scores = heapScores.clone();
+		long[] order = heapOrder.clone();
+		String[] users = heapUsers.clone();
+		
+		for (int size = heapSize; size > 1; --size) {
+			swap(scores, order, users, 0, size - 1);
+			siftDown(scores, order, users, 0, size - 1);
+		}
+		
+		for (int i = 0; i < heapSize; ++i) {
+			sb.append(i + 1).append(". ").append(users[i]).append(": ").append(scores[i]).append('\n');
+		}
+		return sb;
+	}
+	
+	/**
+	 * Adds one to the count of rows with a score, growing the table if it gets too full.
+	 * @param score the score to count
+	 */
+	private void countScore(int score) {
+		
+		if ((distinctScores + 1) * 2 > countKeys.length) {
+			int[] oldKeys = countKeys;
+			int[] oldValues = countValues;
+			countKeys = new int[oldKeys.length * 2];
+			countValues = new int[oldKeys.length * 2];
+			Arrays.fill(countKeys, EMPTY);
+			for (int i = 0; i < oldKeys.length; ++i) {
+				if (oldKeys[i] != EMPTY) {
+					int slot = slotOf(oldKeys[i]);
+					countKeys[slot] = oldKeys[i];
+					countValues[slot] = oldValues[i];
+				}
+			}
+		}
+		
+		int slot = slotOf(score);
+		if (countKeys[slot] == EMPTY) {
+			countKeys[slot] = score;
+			++distinctScores;
+		}
+		++countValues[slot];
+	}
+	
+	/**
+	 * Finds the slot holding a score, or the empty slot it would go in (linear probing).
+	 * @param score the score to find
+	 * @return the slot index
+	 */
+	private int slotOf(int score) {
+		int mask = countKeys.length - 1;
+		int hash = score * 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (countKeys[slot] != EMPTY && countKeys[slot] != score) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Returns whether row a ranks below row b (lower score, or same score given later).
+	 * @return true if row a is worse
+	 */
+	private static boolean worse(int[] scores, long[] order, int a, int b) {
+		return scores[a] < scores[b] || (scores[a] == scores[b] && order[a] > order[b]);
+	}
+	
+	/**
+	 * Moves a row up the heap until its parent is worse than it.
+	 */
+	private static void siftUp(int[] scores, long[] order, String[] users, int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!worse(scores, order, i, parent)) {
+				break;
+			}
+			swap(scores, order, users, i, parent);
+			i = parent;
+		}
+	}
+	
+	/**
+	 * Moves a row down the heap until both of its children are better than it.
+	 */
+	private static void siftDown(int[] scores, long[] order, String[] users, int i, int size) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && worse(scores, order, child + 1, child)) {
+				++child;
+			}
+			if (!worse(scores, order, child, i)) {
+				break;
+			}
+			swap(scores, order, users, i, child);
+			i = child;
+		}
+	}
+	
+	/**
+	 * Swaps two rows of the heap arrays.
+	 */
+	private static void swap(int[] scores, long[] order, String[] users, int a, int b) {
+		int score = scores[a];
+		scores[a] = scores[b];
+		scores[b] = score;
+		long rowOrder = order[a];
+		order[a] = order[b];
+		order[b] = rowOrder;
+		String user = users[a];
+		users[a] = users[b];
+		users[b] = user;
+	}
+}
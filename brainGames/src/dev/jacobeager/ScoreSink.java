@@ -0,0 +1,353 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * This class records high scores in the background, so a game never waits on the disk
+ * when it ends. Scores are put on a bounded queue and a single writer thread takes them off
+ * in batches, writing each batch to its leaderboard store with one write. If the queue is
+ * full, submitting a score waits for the writer to catch up instead of letting the queue
+ * grow without limit; how often this happens is counted.
+ *
+ * Once a batch is in its leaderboard, its scores are recorded in PersonalBests too. Every 
+ * score still on the queue is written before the program exits.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class ScoreSink {
+	
+	/**
+	 * The most scores that can be waiting to be written.
+	 */
+	public static final int QUEUE_CAPACITY = 1024;
+	
+	/**
+	 * The most scores written in one batch.
+	 */
+	public static final int BATCH_LIMIT = 256;
+	
+	// How long closing waits for the writer to finish, in milliseconds
+	private static final long CLOSE_TIMEOUT = 5000;
+	
+	/**
+	 * Put on the queue to tell the writer to stop.
+	 */
+	private static final PendingScore POISON = new PendingScore(null, null);
+	
+	// How long writing one store's part of a batch takes, and how long submitting waits
+	private static final LatencyHistogram WRITES = Metrics.histogram("score.write");
+	private static final LatencyHistogram SUBMITS = Metrics.histogram("score.submit");
+	
+	// How many times personal bests couldn't be updated after a write
+	private static final LongAdder BEST_ERRORS = Metrics.counter("errors.personalBests");
+	
+	/**
+	 * The sink shared by every game, or null if it hasn't been made.
+	 */
+	private static ScoreSink instance;
+	
+	private final BlockingQueue<PendingScore> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final Thread writer;
+	
+	/**
+	 * Whether each batch waits until it's on disk before the next is written. Each batch is
+	 * one force no matter how many scores are in it, so this is on by default.
+	 */
+	private volatile boolean force = true;
+	
+	private volatile boolean closed = false;
+	
+	/**
+	 * Taken by submit and close, so every score accepted is queued before the poison.
+	 */
+	private final Object submitLock = new Object();
+	
+	// Counts of scores submitted and scores the writer has finished with, guarded by this
+	private long submitted = 0;
+	private long written = 0;
+	
+	// Metrics, only changed by the writer apart from blockedSubmits, which is guarded by this
+	private volatile long blockedSubmits = 0;
+	private volatile long batches = 0;
+	private volatile long records = 0;
+	private volatile long failed = 0;
+	private volatile int largestBatch = 0;
+	private volatile int maxQueueDepth = 0;
+	
+	/**
+	 * Creates a sink and starts its writer thread. The writer is a platform thread, since 
+	 * a virtual thread can wait a long time for a turn while busy virtual threads hold 
+	 * every carrier.
+	 */
+	public ScoreSink() {
+		writer = Thread.ofPlatform().daemon().name("ScoreSink writer").start(this::run);
+	}
+	
+	/**
+	 * Returns the sink shared by every game, starting it the first time. The sink is flushed
+	 * and closed when the program exits.
+	 * @return the sink
+	 */
+	public static synchronized ScoreSink get() {
+		if (instance == null) {
+			instance = new ScoreSink();
+			ScoreSink sink = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread(sink::close, "ScoreSink shutdown"));
+			
+			Metrics.gauge("scoreSink.queueDepth", sink::getQueueDepth);
+			Metrics.gauge("scoreSink.maxQueueDepth", sink::getMaxQueueDepth);
+			Metrics.gauge("scoreSink.blockedSubmits", sink::getBlockedSubmits);
+			Metrics.gauge("scoreSink.batches", sink::getBatchCount);
+			Metrics.gauge("scoreSink.records", sink::getRecordCount);
+			Metrics.gauge("scoreSink.failed", sink::getFailedCount);
+		}
+		return instance;
+	}
+	
+	/**
+	 * Queues a score to be written, waiting if the queue is full.
+	 * @param store the store the score belongs in
+	 * @param user the username
+	 * @param score the score
+	 */
+	public void submit(LeaderboardStore store, String user, int score) {
+		
+		long start = System.nanoTime();
+		PendingScore pending = new PendingScore(store, new HighScore(user, score));
+		
+		// Held while queueing so close can't put the poison down between the check and the 
+		// score, which would leave the score behind the poison and never written
+		synchronized (submitLock) {
+			
+			if (closed) {
+				throw new IllegalStateException("ScoreSink is closed");
+			}
+			
+			synchronized (this) {
+				++submitted;
+			}
+			
+			if (!queue.offer(pending)) {
+				
+				// The writer is behind, so the game waits for room
+				synchronized (this) {
+					++blockedSubmits;
+				}
+				try {
+					queue.put(pending);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					finished(1, true);
+				}
+			}
+		}
+		SUBMITS.recordSince(start);
+	}
+	
+	/**
+	 * Waits until every score submitted so far has been written.
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public synchronized void flush() throws InterruptedException {
+		long target = submitted;
+		while (written < target && writer.isAlive()) {
+			wait(100);
+		}
+	}
+	
+	/**
+	 * Writes every queued score and stops the writer. Scores can't be submitted afterwards.
+	 */
+	public void close() {
+		
+		// The writer never takes submitLock, so it keeps making room while this waits
+		try {
+			synchronized (submitLock) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				queue.put(POISON);
+			}
+			writer.join(CLOSE_TIMEOUT);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Sets whether each batch is forced to disk before the next one is written. Forcing
+	 * makes scores survive a power cut but makes each batch slower.
+	 * @param force true to force each batch
+	 */
+	public void setForce(boolean force) {
+		this.force = force;
+	}
+	
+	public int getQueueDepth() {
+		return queue.size();
+	}
+	
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+	
+	/**
+	 * Returns how many times submitting a score had to wait because the queue was full.
+	 * @return the number of submits that waited
+	 */
+	public long getBlockedSubmits() {
+		return blockedSubmits;
+	}
+	
+	public long getBatchCount() {
+		return batches;
+	}
+	
+	public long getRecordCount() {
+		return records;
+	}
+	
+	public int getLargestBatch() {
+		return largestBatch;
+	}
+	
+	/**
+	 * Returns how many scores couldn't be written.
+	 * @return the number of scores lost
+	 */
+	public long getFailedCount() {
+		return failed;
+	}
+	
+	/**
+	 * The writer loop: waits for a score, takes every other score already queued, and
+	 * writes them, one write per store.
+	 */
+	private void run() {
+		
+		List<PendingScore> batch = new ArrayList<>(BATCH_LIMIT);
+		boolean running = true;
+		
+		while (running) {
+			
+			try {
+				batch.add(queue.take());
+			}
+			catch (InterruptedException e) {
+				// Only stops once the queue has been drained
+				continue;
+			}
+			maxQueueDepth = Math.max(maxQueueDepth, queue.size() + 1);
+			queue.drainTo(batch, BATCH_LIMIT - 1);
+			
+			// Stops after this batch if it holds the poison
+			if (batch.contains(POISON)) {
+				running = false;
+				queue.drainTo(batch);
+				batch.removeIf(pending -> pending == POISON);
+			}
+			
+			write(batch);
+			batch.clear();
+		}
+	}
+	
+	/**
+	 * Writes a batch, grouping the scores by store but keeping their order within each store.
+	 * @param batch the scores
+	 */
+	private void write(List<PendingScore> batch) {
+		
+		if (batch.isEmpty()) {
+			return;
+		}
+		
+		Map<LeaderboardStore, List<HighScore>> byStore = new LinkedHashMap<>();
+		for (PendingScore pending : batch) {
+			byStore.computeIfAbsent(pending.store(), store -> new ArrayList<>()).add(pending.score());
+		}
+		
+		for (Map.Entry<LeaderboardStore, List<HighScore>> entry : byStore.entrySet()) {
+			List<HighScore> scores = entry.getValue();
+			boolean ok = true;
+			long start = System.nanoTime();
+			try {
+				entry.getKey().appendBatch(scores, force);
+			}
+			catch (IOException | InvalidFormatException e) {
+				e.printStackTrace();
+				ok = false;
+			}
+			WRITES.recordSince(start);
+			
+			if (ok) {
+				recordBests(entry.getKey(), scores);
+			}
+			finished(scores.size(), !ok);
+		}
+		
+		++batches;
+		if (batch.size() > largestBatch) {
+			largestBatch = batch.size();
+		}
+	}
+	
+	/**
+	 * Records scores that are now in their leaderboard in the players' personal bests, so 
+	 * the bests see every score however it was submitted.
+	 * @param store the store the scores were written to
+	 * @param scores the scores
+	 */
+	private static void recordBests(LeaderboardStore store, List<HighScore> scores) {
+		
+		// Stores that aren't one of the games', like the benchmarks', have no bests
+		int game = PersonalBests.gameOf(store);
+		if (game < 0) {
+			return;
+		}
+		
+		try {
+			PersonalBests.get().record(game, scores);
+		}
+		catch (IOException | InvalidFormatException e) {
+			BEST_ERRORS.increment();
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Counts scores the writer is done with and wakes anything waiting in flush.
+	 * @param count the number of scores
+	 * @param lost true if they weren't written
+	 */
+	private synchronized void finished(int count, boolean lost) {
+		written += count;
+		if (lost) {
+			failed += count;
+		}
+		else {
+			records += count;
+		}
+		notifyAll();
+	}
+	
+	
+	/**
+	 * A score waiting to be written, and the store it goes in.
+	 */
+	private record PendingScore(LeaderboardStore store, HighScore score) {
+	}
+}
@@ -0,0 +1,215 @@
+package dev.jacobeager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * This class is one game being played through the GameServer. Each session has its own 
+ * virtual thread that takes guesses off a small mailbox and plays them on the session's 
+ * engine one at a time, so an engine is only ever touched by one thread and needs no locks. 
+ * A parked virtual thread costs a few hundred bytes, so tens of thousands of sessions can 
+ * wait for their next guess at once.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class ServerSession {
+	
+	/**
+	 * The most calls that can be waiting for a session at once.
+	 */
+	public static final int MAILBOX_CAPACITY = 8;
+	
+	/**
+	 * Put in the mailbox to tell the session's thread to stop.
+	 */
+	private static final Call POISON = new Call(null, null);
+	
+	// Calls a game threw on, and scores that couldn't be recorded because the sink had closed
+	private static final LongAdder ERRORS = Metrics.counter("errors.session");
+	private static final LongAdder LOST_SCORES = Metrics.counter("errors.sessionScore");
+	
+	private final String id;
+	private final GameSession game;
+	private final LeaderboardStore store;
+	private final String user;
+	
+	private final BlockingQueue<Call> mailbox = new ArrayBlockingQueue<>(MAILBOX_CAPACITY);
+	private final Thread thread;
+	
+	/**
+	 * When the session was last used, from System.nanoTime.
+	 */
+	private volatile long lastUsed = System.nanoTime();
+	
+	/**
+	 * Set under this session's lock, so a call is either in the mailbox before the poison or 
+	 * turned away.
+	 */
+	private volatile boolean closed = false;
+	
+	/**
+	 * Creates a session, starts its game, and starts its thread.
+	 * @param id the session's id
+	 * @param game the game, not yet started
+	 * @param store where the score is recorded when the game ends, or null to not record it
+	 * @param user the username the score is recorded under, or null to not record it
+	 */
+	public ServerSession(String id, GameSession game, LeaderboardStore store, String user) {
+		this.id = id;
+		this.game = game;
+		this.store = store;
+		this.user = user;
+		thread = Thread.ofVirtual().name("session-" + id).start(this::run);
+	}
+	
+	/**
+	 * Asks the session's thread to submit a guess or answer, or only to describe the game.
+	 * @param input the guess or answer, or null to leave the game as it is
+	 * @return the result and state of the game, to be read when it's done, or null if the 
+	 * session is closed or already has too many calls waiting
+	 */
+	public CompletableFuture<String> call(String input) {
+		
+		lastUsed = System.nanoTime();
+		CompletableFuture<String> reply = new CompletableFuture<>();
+		synchronized (this) {
+			if (closed || !mailbox.offer(new Call(input, reply))) {
+				return null;
+			}
+		}
+		return reply;
+	}
+	
+	/**
+	 * Stops the session's thread. Calls already waiting are still answered.
+	 */
+	public void close() {
+		
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		
+		// Waits for room rather than dropping the poison, since the thread is still taking
+		try {
+			mailbox.put(POISON);
+		}
+		catch (InterruptedException e) {
+			thread.interrupt();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	public String getId() {
+		return id;
+	}
+	
+	public long getLastUsed() {
+		return lastUsed;
+	}
+	
+	/**
+	 * The session's thread: starts the game and plays each call in the order they came in.
+	 */
+	private void run() {
+		
+		StringBuilder sb = new StringBuilder(256);
+		boolean started = start();
+		
+		while (started) {
+			
+			Call call;
+			try {
+				call = mailbox.take();
+			}
+			catch (InterruptedException e) {
+				break;
+			}
+			if (call == POISON) {
+				break;
+			}
+			
+			// A game that throws fails this call but the session keeps going
+			try {
+				call.reply().complete(play(call.input(), sb));
+			}
+			catch (RuntimeException e) {
+				ERRORS.increment();
+				e.printStackTrace();
+				call.reply().completeExceptionally(e);
+			}
+		}
+		
+		// Turns new calls away, then answers anything left so no caller waits forever
+		synchronized (this) {
+			closed = true;
+		}
+		Call call;
+		while ((call = mailbox.poll()) != null) {
+			if (call.reply() != null) {
+				call.reply().complete(null);
+			}
+		}
+	}
+	
+	/**
+	 * Starts the game.
+	 * @return false if the game threw while starting
+	 */
+	private boolean start() {
+		try {
+			game.start();
+			return true;
+		}
+		catch (RuntimeException e) {
+			ERRORS.increment();
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	/**
+	 * Submits a guess or answer and describes the game afterwards.
+	 * @param input the guess or answer, or null to leave the game as it is
+	 * @param sb reused to build the reply
+	 * @return the reply
+	 */
+	private String play(String input, StringBuilder sb) {
+		
+		int result = GameSession.CONTINUE;
+		if (input != null) {
+			result = game.submit(input);
+			
+			// Records the score through the same path as the game screens
+			if (result == GameSession.GAME_OVER && store != null && user != null) {
+				try {
+					ScoreSink.get().submit(store, user, game.getScore());
+				}
+				catch (IllegalStateException e) {
+					// The sink closes when the program exits, and the game still gets its reply
+					LOST_SCORES.increment();
+				}
+			}
+		}
+		
+		sb.setLength(0);
+		sb.append("{\"id\":\"").append(id).append("\",\"result\":\"").append(GameSession.resultName(result));
+		sb.append("\",\"state\":");
+		game.appendSnapshot(sb).append('}');
+		return sb.toString();
+	}
+	
+	
+	/**
+	 * A guess waiting to be played, and where to send the result.
+	 */
+	private record Call(String input, CompletableFuture<String> reply) {
+	}
+}
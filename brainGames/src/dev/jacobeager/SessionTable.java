@@ -0,0 +1,217 @@
+package dev.jacobeager;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+
+/**
+ * This class holds every session the GameServer is running. The sessions are split over 
+ * many small hash maps, each with its own lock, chosen by the session's id, so threads 
+ * working on different sessions rarely wait on each other. A sweeper thread closes sessions 
+ * that haven't been used for a while, one stripe at a time.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class SessionTable {
+	
+	/**
+	 * The number of stripes. A power of two.
+	 */
+	public static final int STRIPES = 64;
+	
+	private final HashMap<String, ServerSession>[] stripes;
+	
+	private final int maxSessions;
+	private final long idleNanos;
+	
+	/**
+	 * Makes session ids that can't be guessed from other sessions' ids.
+	 */
+	private final SecureRandom idRandom = new SecureRandom();
+	
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong evicted = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	
+	private final Thread sweeper;
+	private volatile boolean closed = false;
+	
+	/**
+	 * Creates an empty table and starts its sweeper.
+	 * @param maxSessions the most sessions that can be open at once
+	 * @param idleMillis how long a session can go unused before it's closed, in milliseconds
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public SessionTable(int maxSessions, long idleMillis) {
+		
+		this.maxSessions = maxSessions;
+		this.idleNanos = idleMillis * 1_000_000L;
+		
+		stripes = new HashMap[STRIPES];
+		for (int i = 0; i < STRIPES; ++i) {
+			stripes[i] = new HashMap<>();
+		}
+		
+		// Sweeps a few times per timeout, so a session is closed soon after it goes idle
+		long sweepMillis = Math.max(1, idleMillis / 4);
+		sweeper = Thread.ofVirtual().name("SessionTable sweeper").start(() -> {
+			while (!closed) {
+				try {
+					Thread.sleep(sweepMillis);
+				}
+				catch (InterruptedException e) {
+					break;
+				}
+				evictIdle(System.nanoTime());
+			}
+		});
+	}
+	
+	/**
+	 * Makes a session with a new id and adds it to the table.
+	 * @param factory makes the session for the id it's given
+	 * @return the session, or null if the table is full
+	 */
+	public ServerSession create(Function<String, ServerSession> factory) {
+		
+		// Claims a place first so the table never goes over the limit
+		if (size.incrementAndGet() > maxSessions) {
+			size.decrementAndGet();
+			rejected.incrementAndGet();
+			return null;
+		}
+		
+		while (true) {
+			String id = Long.toHexString(idRandom.nextLong() | Long.MIN_VALUE);
+			HashMap<String, ServerSession> stripe = stripeFor(id);
+			synchronized (stripe) {
+				if (!stripe.containsKey(id)) {
+					ServerSession session = factory.apply(id);
+					stripe.put(id, session);
+					created.incrementAndGet();
+					return session;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Looks up a session.
+	 * @param id the session's id
+	 * @return the session, or null if there's no session with the id
+	 */
+	public ServerSession get(String id) {
+		HashMap<String, ServerSession> stripe = stripeFor(id);
+		synchronized (stripe) {
+			return stripe.get(id);
+		}
+	}
+	
+	/**
+	 * Removes a session and closes it.
+	 * @param id the session's id
+	 * @return true if there was a session with the id
+	 */
+	public boolean remove(String id) {
+		
+		ServerSession session;
+		HashMap<String, ServerSession> stripe = stripeFor(id);
+		synchronized (stripe) {
+			session = stripe.remove(id);
+		}
+		
+		if (session == null) {
+			return false;
+		}
+		size.decrementAndGet();
+		session.close();
+		return true;
+	}
+	
+	/**
+	 * Closes every session that hasn't been used since a time. Sessions are taken out under 
+	 * the stripe's lock and closed after it's let go.
+	 * @param now the current time, from System.nanoTime
+	 * @return the number of sessions closed
+	 */
+	public int evictIdle(long now) {
+		return evict(now, false);
+	}
+	
+	/**
+	 * Stops the sweeper and closes every session.
+	 */
+	public void close() {
+		closed = true;
+		sweeper.interrupt();
+		evict(System.nanoTime(), true);
+	}
+	
+	public int size() {
+		return size.get();
+	}
+	
+	public long getCreatedCount() {
+		return created.get();
+	}
+	
+	public long getEvictedCount() {
+		return evicted.get();
+	}
+	
+	/**
+	 * Returns how many sessions couldn't be made because the table was full.
+	 * @return the number of sessions turned away
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+	
+	/**
+	 * Closes sessions that haven't been used since a time, or every session.
+	 * @param now the current time, from System.nanoTime
+	 * @param all true to close every session whether it's idle or not
+	 * @return the number of sessions closed
+	 */
+	private int evict(long now, boolean all) {
+		
+		ArrayList<ServerSession> idle = new ArrayList<>();
+		for (HashMap<String, ServerSession> stripe : stripes) {
+			synchronized (stripe) {
+				Iterator<ServerSession> sessions = stripe.values().iterator();
+				while (sessions.hasNext()) {
+					ServerSession session = sessions.next();
+					if (all || now - session.getLastUsed() > idleNanos) {
+						sessions.remove();
+						idle.add(session);
+					}
+				}
+			}
+		}
+		
+		for (ServerSession session : idle) {
+			size.decrementAndGet();
+			session.close();
+		}
+		evicted.addAndGet(idle.size());
+		return idle.size();
+	}
+	
+	/**
+	 * Finds the stripe an id belongs in.
+	 * @param id the session's id
+	 * @return the stripe
+	 */
+	private HashMap<String, ServerSession> stripeFor(String id) {
+		int hash = id.hashCode() * 0x9E3779B9;
+		return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+	}
+}
@@ -0,0 +1,137 @@
+package dev.jacobeager;
+
+
+/**
+ * This class reads fields back out of the JSON written by GameSession.appendSnapshot. It 
+ * only understands that flat format, not JSON in general, which is enough for bots to see 
+ * a game the way a player would, whether it's played here or through the GameServer.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public final class SnapshotReader {
+	
+	private SnapshotReader() {
+	}
+	
+	/**
+	 * Reads the first string field with a name.
+	 * @param json the snapshot
+	 * @param name the field's name
+	 * @return the unescaped value, or null if there's no such field
+	 */
+	public static String getString(String json, String name) {
+		return getString(json, name, 0);
+	}
+	
+	/**
+	 * Reads the first string field with a name at or after a position.
+	 * @param json the snapshot
+	 * @param name the field's name
+	 * @param from where to start looking
+	 * @return the unescaped value, or null if there's no such field
+	 */
+	public static String getString(String json, String name, int from) {
+		return getStringAt(json, valueStart(json, name, from));
+	}
+	
+	/**
+	 * Reads a string value.
+	 * @param json the snapshot
+	 * @param start where the value starts, from valueStart
+	 * @return the unescaped value, or null if there's no string there
+	 */
+	public static String getStringAt(String json, int start) {
+		
+		if (start < 0 || start >= json.length() || json.charAt(start) != '"') {
+			return null;
+		}
+		
+		StringBuilder value = new StringBuilder();
+		for (int i = start + 1; i < json.length(); ++i) {
+			char c = json.charAt(i);
+			if (c == '"') {
+				return value.toString();
+			}
+			if (c == '\\' && i + 1 < json.length()) {
+				char escaped = json.charAt(++i);
+				switch (escaped) {
+					case 'n':
+						value.append('\n');
+						break;
+					case 'u':
+						value.append((char) Integer.parseInt(json, i + 1, i + 5, 16));
+						i += 4;
+						break;
+					default:
+						value.append(escaped);
+						break;
+				}
+			}
+			else {
+				value.append(c);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Reads the first number field with a name.
+	 * @param json the snapshot
+	 * @param name the field's name
+	 * @param missing what to return if there's no such field
+	 * @return the value
+	 */
+	public static int getInt(String json, String name, int missing) {
+		
+		int start = valueStart(json, name, 0);
+		if (start < 0) {
+			return missing;
+		}
+		
+		int end = start;
+		while (end < json.length() && (Character.isDigit(json.charAt(end)) || json.charAt(end) == '-')) {
+			++end;
+		}
+		return end == start ? missing : Integer.parseInt(json, start, end, 10);
+	}
+	
+	/**
+	 * Reads the first true or false field with a name.
+	 * @param json the snapshot
+	 * @param name the field's name
+	 * @return true if the field is there and true
+	 */
+	public static boolean getBoolean(String json, String name) {
+		int start = valueStart(json, name, 0);
+		return start >= 0 && json.startsWith("true", start);
+	}
+	
+	/**
+	 * Counts the fields with a name.
+	 * @param json the snapshot
+	 * @param name the field's name
+	 * @return the number of fields
+	 */
+	public static int count(String json, String name) {
+		int count = 0;
+		for (int at = valueStart(json, name, 0); at >= 0; at = valueStart(json, name, at)) {
+			++count;
+		}
+		return count;
+	}
+	
+	/**
+	 * Finds where the value of a field starts.
+	 * @param json the snapshot
+	 * @param name the field's name
+	 * @param from where to start looking
+	 * @return the position just after the colon, or -1 if there's no such field
+	 */
+	public static int valueStart(String json, String name, int from) {
+		String key = "\"" + name + "\":";
+		int at = json.indexOf(key, from);
+		return at < 0 ? -1 : at + key.length();
+	}
+}
@@ -5,16 +5,15 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 
@@ -27,10 +26,13 @@ import javax.swing.JPanel;
  */
 
 public class TitleFrame extends JFrame implements ActionListener {
-
+	
 	// Version ID
 	private static final long serialVersionUID = -4993417822469653527L;
 	
+	// How long handling a button press holds up the event dispatch thread
+	private static final LatencyHistogram EDT_TIME = Metrics.histogram("edt.titleFrame");
+	
 	/**
 	 * Current username, kept track of here to be displayed. Also used for printing high scores.
 	 * Set to Guest by default.
@@ -77,9 +79,7 @@ public class TitleFrame extends JFrame implements ActionListener {
 		
 		// Login icon (pixelated profile in top right, click to log on)
 		loginButton = new JButton();
-		ImageIcon icon = new ImageIcon("resources//images//profile.png");
-		Image image = icon.getImage().getScaledInstance(36, 36, Image.SCALE_SMOOTH);
-		loginButton.setIcon(new ImageIcon(image));
+		loginButton.setIcon(AssetCache.get(AssetCache.PROFILE));
 		loginButton.setPreferredSize(new Dimension(36,36));
 		loginButton.setFocusable(false);
 		loginButton.setToolTipText("Account");
@@ -90,7 +90,7 @@ public class TitleFrame extends JFrame implements ActionListener {
 		
 		// Leaderboard icon (click to view lwaderboard)
 		leaderboardButton = new JButton();
-		leaderboardButton.setIcon(new ImageIcon("resources//images//leaderboard.png"));
+		leaderboardButton.setIcon(AssetCache.get(AssetCache.LEADERBOARD));
 		leaderboardButton.setContentAreaFilled(false);
 		leaderboardButton.setFocusable(false);
 		leaderboardButton.setToolTipText("Leaderboards");
@@ -132,26 +132,43 @@ public class TitleFrame extends JFrame implements ActionListener {
 		bottomPanel.add(hangmanButton);
 		
 		this.setVisible(true);
-		
+	
 	}
 	
 	// Each button opens its respective page.
 	@Override
 	public void actionPerformed(ActionEvent e) {
-		if (e.getSource() == loginButton) {
-			new LoginFrame();
+		long start = System.nanoTime();
+		try {
+			if (e.getSource() == loginButton) {
+				new LoginFrame();
+			}
+			if (e.getSource() == leaderboardButton) {
+				new Leaderboard();
+			}
+			if (e.getSource() == wordleButton) {
+				new Wordle();
+			}
+			if (e.getSource() == quizBowlButton) {
+				new QuizBowl();
+			}
+			if (e.getSource() == hangmanButton) {
+				
+				// Asks which version of hangman to play
+				String[] modes = {"Classic", "Evil"};
+				int mode = JOptionPane.showOptionDialog(this, "Which hangman would you like to play?", 
+						"Hangman", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, 
+						modes, modes[0]);
+				
+				// A modal dialog keeps handling events while it's open, so that time isn't counted
+				start = System.nanoTime();
+				if (mode >= 0) {
+					new HangMan(mode == 1);
+				}
+			}
 		}
-		if (e.getSource() == leaderboardButton) {
-			new Leaderboard();
-		}
-		if (e.getSource() == wordleButton) {
-			new Wordle();
-		}
-		if (e.getSource() == quizBowlButton) {
-			new QuizBowl();
-		}
-		if (e.getSource() == hangmanButton) {
-			new HangMan();
+		finally {
+			EDT_TIME.recordSince(start);
 		}
 	}
 	
@@ -191,7 +208,7 @@ public class TitleFrame extends JFrame implements ActionListener {
 			setBorder(BorderFactory.createLineBorder(Color.GRAY,5,true));
 			setFocusable(false);
 			setPreferredSize(new Dimension(150,150));
-			
+		
 		}
 	}
 
@@ -0,0 +1,36 @@
+package dev.jacobeager;
+
+import java.util.AbstractList;
+import java.util.Random;
+import java.util.RandomAccess;
+
+
+/**
+ * This abstract class is an immutable list of the words in a word bank file, one word per
+ * line. Words are trimmed and lower cased, and blank lines are left out.
+ *
+ * Small banks are read into memory (see ArenaWordBank), and very large ones are read
+ * straight out of the file (see MappedWordBank).
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public abstract class WordBank extends AbstractList<String> implements RandomAccess {
+	
+	/**
+	 * Returns the length of a word without making a String of it.
+	 * @param index the index of the word
+	 * @return the number of characters in the word
+	 */
+	public abstract int lengthOf(int index);
+	
+	/**
+	 * Picks a word at random, with every word equally likely.
+	 * @param r the random number generator to use
+	 * @return the word
+	 */
+	public String randomWord(Random r) {
+		return get(r.nextInt(0, size()));
+	}
+}
@@ -0,0 +1,137 @@
+package dev.jacobeager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+
+/**
+ * This class loads each word bank file once and shares it between every game that uses it,
+ * so opening a new game doesn't read the file again. Every time a bank is asked for, the
+ * file's last modified time and size are checked, and it is only read again if one of them
+ * changed. Even then, the bank already loaded is kept if the contents are the same, so
+ * anything built from it can be kept too.
+ *
+ * Files bigger than MAP_THRESHOLD are memory mapped instead of read onto the heap.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordBankRegistry {
+	
+	/**
+	 * The hangman word bank.
+	 */
+	public static final String HANGMAN = "resources\\hangman.txt";
+	
+	/**
+	 * The wordle word bank.
+	 */
+	public static final String WORDLE = "resources\\wordle.txt";
+	
+	/**
+	 * The size, in bytes, above which a word bank file is mapped instead of read.
+	 */
+	public static final long MAP_THRESHOLD = 4L << 20;
+	
+	// How long reading a bank takes, and how often a bank is asked for without being read
+	private static final LatencyHistogram LOADS = Metrics.histogram("load.wordBank");
+	private static final LongAdder HITS = Metrics.counter("load.wordBank.cached");
+	
+	/**
+	 * The loaded banks, keyed by path.
+	 */
+	private static final HashMap<String, Entry> banks = new HashMap<String, Entry>();
+	
+	private WordBankRegistry() {
+	}
+	
+	/**
+	 * Returns the words in a word bank file, loading it if it hasn't been loaded or has
+	 * changed since it was.
+	 * @param path the path of the word bank
+	 * @return the word bank
+	 * @throws IOException if the file can't be read
+	 * @throws EmptyFileException if the file has no words
+	 */
+	public static synchronized WordBank get(String path) throws IOException, EmptyFileException {
+		
+		Path file = Paths.get(path);
+		long modified = Files.getLastModifiedTime(file).toMillis();
+		long size = Files.size(file);
+		
+		Entry entry = banks.get(path);
+		if (entry != null && entry.modified() == modified && entry.size() == size) {
+			HITS.increment();
+			return entry.bank();
+		}
+		
+		long start = System.nanoTime();
+		try {
+			return load(path, file, entry, modified, size);
+		}
+		finally {
+			LOADS.recordSince(start);
+		}
+	}
+	
+	/**
+	 * Reads a word bank file and keeps it, unless its contents are the same as the bank
+	 * already loaded from it.
+	 * @param path the path of the word bank
+	 * @param file the word bank
+	 * @param entry the bank already loaded from the file, or null
+	 * @param modified when the file was last modified
+	 * @param size the size of the file
+	 * @return the word bank
+	 * @throws IOException if the file can't be read
+	 * @throws EmptyFileException if the file has no words
+	 */
+	private static WordBank load(String path, Path file, Entry entry, long modified, long size) 
+			throws IOException, EmptyFileException {
+		
+		// Big files are checksummed through the mapping, so they're never copied onto the heap
+		WordBank bank;
+		CRC32 crc = new CRC32();
+		if (size > MAP_THRESHOLD) {
+			MappedWordBank mapped = MappedWordBank.map(file);
+			crc.update(mapped.contents());
+			bank = mapped;
+		}
+		else {
+			byte[] contents = Files.readAllBytes(file);
+			crc.update(contents);
+			bank = ArenaWordBank.parse(contents);
+			size = contents.length;
+		}
+		long checksum = crc.getValue();
+		
+		// Touched but not changed
+		if (entry != null && entry.checksum() == checksum && entry.size() == size) {
+			banks.put(path, new Entry(entry.bank(), modified, size, checksum));
+			return entry.bank();
+		}
+		
+		if (bank.isEmpty()) {
+			throw new EmptyFileException();
+		}
+		banks.put(path, new Entry(bank, modified, size, checksum));
+		return bank;
+	}
+	
+	
+	/**
+	 * This record holds a loaded bank and what the file looked like when it was loaded.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private record Entry(WordBank bank, long modified, long size, long checksum) {
+	}
+}
@@ -0,0 +1,220 @@
+package dev.jacobeager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+
+/**
+ * This class is an inverted index over a hangman word bank, for asking which words still fit
+ * a partly revealed word. Words are grouped by length, and for each length there is one
+ * bitset per (position, letter) pair and one per letter saying which words contain it.
+ * A query is a few bitset AND and AND NOT operations.
+ *
+ * Patterns use '_' for a hidden position and a letter for a revealed one, like "_a__e".
+ * Only words made of the letters a to z are indexed, so no word fits a pattern with any
+ * other character revealed.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordIndex {
+	
+	/**
+	 * The words of each length, indexed by length.
+	 */
+	private final LengthGroup[] groups;
+	
+	/**
+	 * Builds the index.
+	 * @param words the word bank, in lower case
+	 */
+	public WordIndex(List<String> words) {
+		
+		// Sorts words into groups by length
+		ArrayList<ArrayList<String>> byLength = new ArrayList<ArrayList<String>>();
+		for (String word : words) {
+			if (!isIndexable(word)) {
+				continue;
+			}
+			while (byLength.size() <= word.length()) {
+				byLength.add(new ArrayList<String>());
+			}
+			byLength.get(word.length()).add(word);
+		}
+		
+		groups = new LengthGroup[byLength.size()];
+		for (int length = 0; length < groups.length; ++length) {
+			if (!byLength.get(length).isEmpty()) {
+				groups[length] = new LengthGroup(length, byLength.get(length));
+			}
+		}
+	}
+	
+	/**
+	 * Returns whether a word can be indexed (made of only the letters a to z).
+	 * @param word the word
+	 * @return true if it can be indexed
+	 */
+	public static boolean isIndexable(CharSequence word) {
+		if (word.length() == 0) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); ++i) {
+			if (word.charAt(i) < 'a' || word.charAt(i) > 'z') {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Turns a set of letters into a mask (bit 0 for a, up to bit 25 for z).
+	 * @param letters the letters
+	 * @return the mask
+	 */
+	public static int lettersMask(CharSequence letters) {
+		int mask = 0;
+		for (int i = 0; i < letters.length(); ++i) {
+			int letter = Character.toLowerCase(letters.charAt(i)) - 'a';
+			if (letter >= 0 && letter < 26) {
+				mask |= 1 << letter;
+			}
+		}
+		return mask;
+	}
+	
+	/**
+	 * Finds the words that fit a pattern. A revealed letter has to be at that position, and
+	 * since revealing a letter shows every copy of it, hidden positions can't be any revealed
+	 * letter. Words containing an excluded letter are left out.
+	 * @param pattern the pattern, like "_a__e"
+	 * @param excludedLetters mask of letters the word can't contain
+	 * @return the matching words, as indices for wordAt (empty if no words have that length)
+	 */
+	public BitSet match(CharSequence pattern, int excludedLetters) {
+		
+		int length = pattern.length();
+		if (length >= groups.length || groups[length] == null) {
+			return new BitSet();
+		}
+		LengthGroup group = groups[length];
+		
+		// Starts with every word of the right length
+		BitSet matches = new BitSet(group.words.length);
+		matches.set(0, group.words.length);
+		
+		// Letters that are revealed somewhere can't be at a hidden position
+		int revealedLetters = lettersMask(pattern);
+		
+		for (int position = 0; position < length; ++position) {
+			char c = pattern.charAt(position);
+			if (c == '_') {
+				for (int rest = revealedLetters; rest != 0; rest &= rest - 1) {
+					matches.andNot(group.at[position][Integer.numberOfTrailingZeros(rest)]);
+				}
+			}
+			else {
+				
+				// Only words of a to z are indexed, so a revealed hyphen or space matches nothing
+				int letter = Character.toLowerCase(c) - 'a';
+				if (letter < 0 || letter >= 26) {
+					return new BitSet();
+				}
+				matches.and(group.at[position][letter]);
+			}
+		}
+		
+		for (int rest = excludedLetters & ~revealedLetters; rest != 0; rest &= rest - 1) {
+			matches.andNot(group.present[Integer.numberOfTrailingZeros(rest)]);
+		}
+		
+		return matches;
+	}
+	
+	/**
+	 * Counts the words that fit a pattern.
+	 * @param pattern the pattern, like "_a__e"
+	 * @param excludedLetters mask of letters the word can't contain
+	 * @return the number of matching words
+	 */
+	public int count(CharSequence pattern, int excludedLetters) {
+		return match(pattern, excludedLetters).cardinality();
+	}
+	
+	/**
+	 * Lists the words that fit a pattern.
+	 * @param pattern the pattern, like "_a__e"
+	 * @param excludedLetters mask of letters the word can't contain
+	 * @return the matching words
+	 */
+	public ArrayList<String> matchingWords(CharSequence pattern, int excludedLetters) {
+		BitSet matches = match(pattern, excludedLetters);
+		ArrayList<String> words = new ArrayList<String>(matches.cardinality());
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+			words.add(wordAt(pattern.length(), i));
+		}
+		return words;
+	}
+	
+	/**
+	 * Returns a word from the results of match.
+	 * @param length the length of the pattern matched
+	 * @param index the index of the word in the results
+	 * @return the word
+	 */
+	public String wordAt(int length, int index) {
+		return groups[length].words[index];
+	}
+	
+	/**
+	 * Returns the number of indexed words of a length.
+	 * @param length the word length
+	 * @return the number of words
+	 */
+	public int countOfLength(int length) {
+		return length < groups.length && groups[length] != null ? groups[length].words.length : 0;
+	}
+	
+	
+	/**
+	 * This inner class holds the words of one length and their bitsets.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	private static class LengthGroup {
+		
+		private final String[] words;
+		
+		// Words with a letter at a position, indexed [position][letter]
+		private final BitSet[][] at;
+		
+		// Words containing a letter anywhere, indexed [letter]
+		private final BitSet[] present = new BitSet[26];
+		
+		private LengthGroup(int length, ArrayList<String> groupWords) {
+			
+			words = groupWords.toArray(new String[0]);
+			at = new BitSet[length][26];
+			for (int position = 0; position < length; ++position) {
+				for (int letter = 0; letter < 26; ++letter) {
+					at[position][letter] = new BitSet(words.length);
+				}
+			}
+			for (int letter = 0; letter < 26; ++letter) {
+				present[letter] = new BitSet(words.length);
+			}
+			
+			for (int i = 0; i < words.length; ++i) {
+				for (int position = 0; position < length; ++position) {
+					int letter = words[i].charAt(position) - 'a';
+					at[position][letter].set(i);
+					present[letter].set(i);
+				}
+			}
+		}
+	}
+}
@@ -3,26 +3,19 @@ package dev.jacobeager;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
-import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Random;
-import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
-import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
-import javax.swing.JTextField;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
 
 
@@ -34,47 +27,65 @@ import javax.swing.Timer;
  */
 
 public class Wordle extends JFrame implements Game, ActionListener {
-
+	
 	// Login ID
 	private static final long serialVersionUID = 8281450399364211592L;
 	
+	// How long handling a button press holds up the event dispatch thread
+	private static final LatencyHistogram EDT_TIME = Metrics.histogram("edt.wordle");
+	
+	// How many times the word bank couldn't be read
+	private static final LongAdder WORD_BANK_ERRORS = Metrics.counter("errors.wordBank");
+	
 	/**
-	 * An ArrayList meant to contain all of the possible words. Is populated by calling 
-	 * readWordBank() which pulls from wordle.txt
+	 * The rules of the game. The frame only draws what the engine says.
 	 */
-	private ArrayList<String> possibleWords = new ArrayList<String>();
+	private transient WordleEngine engine;
 	
 	/**
-	 * The current hidden word to be guessed in the game. Chosen randomly from possibleWords 
-	 * when generateWord is called.
+	 * The vocabulary the hidden words and hints come from.
 	 */
-	private String currWord;
+	private transient WordleScorer scorer;
 	
 	/**
-	 * The current score. Increases by one for every word solved.
+	 * Keeps track of which words still fit the feedback, for hints.
 	 */
-	private int score = 0;
+	private transient WordleSolver solver;
 	
 	/**
-	 * The number of guesses used. Maxes out at 6 and resets every new game.
+	 * Precomputed patterns for the vocabulary, shared by every game. Loaded by the first hint.
 	 */
-	private int numGuesses = 0;
+	private static FeedbackMatrix feedbackMatrix;
 	
-	// Array of text boxes, used to populate the letter grid
-	private JTextField[] guessBoxes = new JTextField[30];
+	/**
+	 * The vocabulary feedbackMatrix was loaded for. WordleEngine only builds a new scorer 
+	 * when the word bank changes, so a different scorer means the matrix is out of date even 
+	 * if the word count is the same.
+	 */
+	private static WordleScorer matrixScorer;
+	
+	/**
+	 * How long a hint is allowed to take, in nanoseconds.
+	 */
+	private static final long HINT_BUDGET_NANOS = 100_000_000L;
+	
+	// Grid of letter boxes, built once and cleared for each round
+	private WordleBoard board;
 	
 	// Components that have an ActionListener
-	private JButton guessButton;
+	private JButton guessButton, hintButton;
 	private JPanel centerLock;
-
+	
 	/**
 	 * Constructor that creates the GUI and begins the game.
 	 */
 	public Wordle() {
 		
-		// Fills in the array of possible words and chooses one
+		// Gets the scorer for the word bank and starts the game
 		readWordBank();
-		generateWord();
+		solver = new WordleSolver(scorer);
+		engine = new WordleEngine(scorer, new Random());
+		engine.start();
 		
 		// Formats frame
 		this.setSize(new Dimension(500, 600));
@@ -88,24 +99,10 @@ public class Wordle extends JFrame implements Game, ActionListener {
 		this.add(centerLock);
 		
 		// Grid of letter boxes
-		JPanel inputGrid = new JPanel();
-		inputGrid.setLayout(new GridLayout(6,5,5,5));
-		inputGrid.setPreferredSize(new Dimension(300,400));
-		inputGrid.setBorder(BorderFactory.createEtchedBorder(Color.BLACK, Color.DARK_GRAY));
+		board = new WordleBoard();
 		constraints.gridx = 0;
 		constraints.gridy = 0;
-		centerLock.add(inputGrid, constraints);
-		
-		// Populates grid
-		for (int i = 0; i < 30; ++i) {
-			guessBoxes[i] = new JTextField();
-			guessBoxes[i].setHorizontalAlignment(JTextField.CENTER);
-			guessBoxes[i].setFont(new Font("Arial", Font.BOLD, 20));
-			inputGrid.add(guessBoxes[i]);
-			if (i > 4) {
-				guessBoxes[i].setEditable(false);
-			}
-		}
+		centerLock.add(board, constraints);
 		
 		// Button to guess
 		guessButton = new JButton("Guess");
@@ -113,293 +110,211 @@ public class Wordle extends JFrame implements Game, ActionListener {
 		constraints.gridy = 1;
 		centerLock.add(guessButton, constraints);
 		
-		this.setVisible(true);
+		// Button to suggest a guess
+		hintButton = new JButton("Hint");
+		hintButton.addActionListener(this);
+		constraints.gridy = 2;
+		centerLock.add(hintButton, constraints);
 		
+		this.setVisible(true);
+	
 	}
 	
 	/**
-	 * Reads from wordle.txt to populate the ArrayList possibleWords.
+	 * Gets wordle.txt from the word bank registry and sets the scorer for it. The scorer is 
+	 * only built again if the file has changed since the last game.
 	 */
 	private void readWordBank() {
 		
 		try {
-			FileInputStream fileByteStream = new FileInputStream("resources\\wordle.txt");
-			Scanner inFS = new Scanner(fileByteStream);
-			
-			// Checks if file is empty
-			if (!inFS.hasNext()) {
-				inFS.close();
-				throw new EmptyFileException();
-			}
-			
-			// Adds words to string array
-			while (inFS.hasNext()) {
-				possibleWords.add(inFS.nextLine());
-			}
-			
-			inFS.close();
+			scorer = WordleEngine.scorerFor(WordBankRegistry.get(WordBankRegistry.WORDLE));
 		}
 		
 		catch (EmptyFileException e){
+			WORD_BANK_ERRORS.increment();
 			e.printStackTrace();
 		} 
-		catch (FileNotFoundException e) {
+		catch (IOException e) {
+			WORD_BANK_ERRORS.increment();
 			e.printStackTrace();
 		}
 	}
 	
 	/**
-	 * Randomly chooses a word to be the hidden word and updates the field currWord.
+	 * When the game ends, takes the score and the current user logged in and records
+	 * it to the game's leaderboard store in the background. 
+	 * 
+	 * @param user the username to be added
+	 * @param score the high score to be added
 	 */
-	private void generateWord() {
-		Random r = new Random();
-		currWord = possibleWords.get(r.nextInt(0,possibleWords.size()));
+	@Override
+	public void addHighScore(String user, int score) {
+		ScoreSink.get().submit(LeaderboardStore.WORDLE, user, score);
 	}
-
+	
+	
 	/**
-	 * Is given a minimum index and a maximum index, uses these to search through the
-	 * input boxes. Checks if the user's guess is valid and returns a boolean result.
-	 * @param min the minimum index to search
-	 * @param max the maximum index to search
-	 * @return a boolean representing if the guess is valid or not
+	 * "Advances" in the game. Scores the guess in the current row, colors in boxes, and 
+	 * either opens the next row, or waits a couple seconds and starts a new word if the 
+	 * word was guessed or ends the game if the last guess missed.
 	 */
-	private boolean validateGuess(int min, int max) {
+	private void advance() {
 		
-		boolean validInput = true;
+		// Checks if every box in the row is one letter from a to z
+		int row = engine.getGuessCount();
+		if (!board.isValidGuess(row)) {
+			return;
+		}
+		
+		int guessCode = board.getGuessCode(row);
+		int result = engine.submitCode(guessCode);
+		if (result == GameSession.INVALID) {
+			return;
+		}
+		
+		// The last row is filled in one color, the others show each letter's color
+		if (row == WordleEngine.MAX_GUESSES - 1) {
+			board.fillRow(row, result == GameSession.ROUND_WON ? Color.GREEN : Color.RED);
+		}
+		else {
+			board.showPattern(row, engine.getLastPattern());
+			
+			// Rules out words that wouldn't have given the same colors
+			solver.narrow(guessCode, engine.getLastPattern());
+		}
 		
-		// Checks if the input is one character and a letter
-		for (int i = min; i < max; ++i) {
-			if (guessBoxes[i].getText().length() > 1) {
-				validInput = false;
+		switch (result) {
+			case GameSession.ROUND_WON:
+				// Waits a couple seconds before resetting to show success
+				pause(this::restartGame);
 				break;
-			}
-			else if (!Character.isLetter(guessBoxes[i].getText().charAt(0))) {
-				validInput = false;
+			
+			case GameSession.GAME_OVER:
+				pause(this::gameOver);
+				break;
+			
+			default:
+				board.openRow(row + 1);
 				break;
-			}
 		}
-		return validInput;
 	}
 	
 	/**
-	 * When the game ends, takes the score and the current user logged in and records
-	 * it to the leaderboard text file. 
-	 * 
-	 * @param user the username to be added
-	 * @param score the high score to be added
+	 * Shows the board as it is for a couple seconds before doing something. Guessing is 
+	 * turned off until then, so the same row can't be scored twice.
+	 * @param then what to do afterwards
 	 */
-	@Override
-	public void addHighScore(String user, int score) {
-		try {
-			FileWriter outputStream = new FileWriter("resources\\wordleLeaderboard.txt", true);
-			BufferedWriter outFS = new BufferedWriter(outputStream);
-			outFS.write(user + "\n");
-			outFS.write(score + "\n");
-			outFS.close();
-			outputStream.close();
-			
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	private void pause(Runnable then) {
+		
+		guessButton.setEnabled(false);
+		Timer timer = new Timer(2000, new ActionListener() {
+		    public void actionPerformed(ActionEvent e) {
+		    	long start = System.nanoTime();
+		    	guessButton.setEnabled(true);
+				then.run();
+				EDT_TIME.recordSince(start);
+		    }
+		});
+		timer.setRepeats(false);
+		timer.start();
 	}
 	
-	
 	/**
-	 * "Advances" in the game. Disables current row, enables next row, colors in boxes, and
-	 * checks for a win, ending the game if so. 
+	 * Listens for input from the guess and hint buttons.
 	 */
-	private void advance() {
-		String guess = "";
-		
-		// Disables previous row and colors in boxes
-		for (int i = 0; i < 5; ++i) {
-			guess += guessBoxes[i + (numGuesses * 5)].getText().toLowerCase();
-			if (currWord.contains(Character.toString(guess.charAt(i)))) {
-				if (guess.charAt(i) == currWord.charAt(i)) {
-					guessBoxes[i + (numGuesses * 5)].setEditable(false);
-					guessBoxes[i + (numGuesses * 5)].setBackground(Color.GREEN);
-					guessBoxes[i + (numGuesses * 5)].setCaretColor(Color.GREEN);
-				}
-				else {
-					guessBoxes[i + (numGuesses * 5)].setEditable(false);
-					guessBoxes[i + (numGuesses * 5)].setBackground(Color.YELLOW);
-					guessBoxes[i + (numGuesses * 5)].setCaretColor(Color.YELLOW);
-				}
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		long start = System.nanoTime();
+		try {
+			if (e.getSource() == hintButton) {
+				showHint();
 			}
-			else {
-				guessBoxes[i + (numGuesses * 5)].setEditable(false);
-				guessBoxes[i + (numGuesses * 5)].setBackground(Color.GRAY);
-				guessBoxes[i + (numGuesses * 5)].setCaretColor(Color.GRAY);
+			if (e.getSource() == guessButton) {
+				advance();
 			}
 		}
-		// Wins game if word is guessed
-		if (guess.equals(currWord)) {
-			// Waits a couple seconds before resetting to show success
-			Timer timer = new Timer(2000, new ActionListener() {
-			    public void actionPerformed(ActionEvent e) {
-			    	++score;
-					restartGame();
-			    }
-			});
-			timer.setRepeats(false);
-			timer.start();
-		}
-		// Advances to the next row if game is not won
-		else {
-			for (int i = 5 * (numGuesses + 1); i < (5 * (numGuesses + 2)); ++i) {
-				guessBoxes[i].setEditable(true);
-			}
-			++numGuesses;
+		finally {
+			EDT_TIME.recordSince(start);
 		}
 	}
 	
 	/**
-	 * Listens for input from the guess button, with varying behavior depending on how many 
-	 * guesses are used. On the sixth guess, can win or lose the game.
+	 * Works out the best guess in the background and fills it into the current row.
 	 */
-	@Override
-	public void actionPerformed(ActionEvent e) {
-		if (e.getSource() == guessButton) {
+	private void showHint() {
+		
+		// Stops hints from piling up while one is worked out
+		hintButton.setEnabled(false);
+		int row = engine.getGuessCount();
+		WordleSolver roundSolver = solver;
+		
+		SwingWorker<Integer, Void> hinter = new SwingWorker<Integer, Void>() {
 			
-			// Advances if 0-5 guesses used, if 6 guesses used, either wins or loses
-			switch (numGuesses) {
-				case 0:
-					boolean isValid = validateGuess(0,5);
-					if (isValid) {
-						advance();
-					}
-					break;
-				
-				case 1:
-					isValid = validateGuess(5,10);
-					
-					if (isValid) {
-						advance();
-					}
-					break;
-					
-				case 2:
-					isValid = validateGuess(10,15);
-					
-					if (isValid) {
-						advance();
-					}
-					break;
-					
-				case 3:
-					isValid = validateGuess(15,20);
-					
-					if (isValid) {
-						advance();
-					}
-					break;
-					
-				case 4:
-					isValid = validateGuess(20,25);
-					
-					if (isValid) {
-						advance();
-					}
-					break;
+			@Override
+			protected Integer doInBackground() throws Exception {
 				
-				case 5:
-					isValid = validateGuess(25,30);
-					String guess = "";
+				// Loading the matrix doesn't count against the time limit
+				FeedbackMatrix matrix = getFeedbackMatrix(scorer);
+				if (matrix != null) {
+					roundSolver.useMatrix(matrix);
+				}
+				return roundSolver.bestGuess(HINT_BUDGET_NANOS);
+			}
+			
+			@Override
+			protected void done() {
+				hintButton.setEnabled(true);
+				try {
+					int code = get();
 					
-					if (isValid) {
-						for (int i = 25; i < 30; ++i) {
-							guess += guessBoxes[i].getText().toLowerCase();
-						}
-						if (guess.equals(currWord)) {
-							for (int i = 25; i < 30; ++i) {
-								guessBoxes[i].setBackground(Color.GREEN);
-							}
-							Timer timer = new Timer(2000, new ActionListener() {
-							    public void actionPerformed(ActionEvent e) {
-							    	++score;
-									restartGame();
-							    }
-							});
-							timer.setRepeats(false);
-							timer.start();
-							
-						}
-						else {
-							for (int i = 25; i < 30; ++i) {
-								guessBoxes[i].setBackground(Color.RED);
-							}
-							Timer timer = new Timer(2000, new ActionListener() {
-							    public void actionPerformed(ActionEvent e) {
-							    	gameOver();
-							    }
-							});
-							timer.setRepeats(false);
-							timer.start();
-							
-						}
+					// Only fills the row if the game hasn't moved on
+					if (code >= 0 && row == engine.getGuessCount() && guessButton.isEnabled()) {
+						board.setWord(row, code);
 					}
-					
-					break;
-					
-				default:
-					System.out.println("Invalid guesses!");
-					break;
+				}
+				catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+				}
 			}
-		}
-		
+		};
+		hinter.execute();
 	}
 	
 	/**
-	 * Resets everything back to the default state, keeping the increase in score and 
-	 * generating a new word.
+	 * Returns the feedback matrix for the vocabulary, mapping or building it the first time
+	 * and whenever the vocabulary changes.
+	 * @param scorer the vocabulary
+	 * @return the matrix, or null if it couldn't be loaded
 	 */
-	private void restartGame() {
-		
-		// Picks a new word
-		generateWord();
-		
-		// Resets number of guesses
-		numGuesses = 0;
+	private static synchronized FeedbackMatrix getFeedbackMatrix(WordleScorer scorer) {
 		
-		// Removes old content
-		this.remove(centerLock);
-		
-		// Remaking the GUI from the constructor
-		centerLock = new JPanel();
-		centerLock.setLayout(new GridBagLayout());
-		GridBagConstraints constraints = new GridBagConstraints();
-		this.add(centerLock);
-		
-		JPanel inputGrid = new JPanel();
-		inputGrid.setLayout(new GridLayout(6,5,5,5));
-		inputGrid.setPreferredSize(new Dimension(300,400));
-		inputGrid.setBorder(BorderFactory.createEtchedBorder(Color.BLACK, Color.DARK_GRAY));
-		constraints.gridx = 0;
-		constraints.gridy = 0;
-		centerLock.add(inputGrid, constraints);
-		
-		for (int i = 0; i < 30; ++i) {
-			guessBoxes[i] = new JTextField();
-			guessBoxes[i].setHorizontalAlignment(JTextField.CENTER);
-			guessBoxes[i].setFont(new Font("Arial", Font.BOLD, 20));
-			inputGrid.add(guessBoxes[i]);
-			if (i > 4) {
-				guessBoxes[i].setEditable(false);
+		if (feedbackMatrix == null || matrixScorer != scorer) {
+			try {
+				feedbackMatrix = FeedbackMatrix.load(scorer, "resources\\wordle.matrix");
+				matrixScorer = scorer;
+			}
+			catch (IOException e) {
+				// Hints still work without it, just slower
+				e.printStackTrace();
+				return null;
 			}
 		}
+		return feedbackMatrix;
+	}
+	
+	/**
+	 * Resets the board for the word the engine picked when the last one was guessed, 
+	 * keeping the increase in score.
+	 */
+	private void restartGame() {
 		
-		guessButton = new JButton("Guess");
-		guessButton.addActionListener(this);
-		constraints.gridy = 1;
-		centerLock.add(guessButton, constraints);
-		
-		// Repaints and revalidates
-		this.repaint();
-		this.revalidate();
+		// Resets the words the hint can pick from
+		solver.reset();
 		
-		this.setVisible(true);
+		// Clears the board in place instead of rebuilding it
+		board.reset();
 	}
-
+	
 	/**
 	 * Signals to the user that the game is over, stopping the game and displaying 
 	 * the user's score.
@@ -410,16 +325,14 @@ public class Wordle extends JFrame implements Game, ActionListener {
 		// Clears current content
 		this.remove(centerLock);
 		
-		// Adds game over screen
-		this.add(new GameOverScreen(score));
-	
+		// Adds game over screen, which adds the score to the leaderboard once the user's best is read
+		this.add(new GameOverScreen(engine.getScore(), PersonalBests.WORDLE, 
+				Main.titleFrame.currUsername, this));
+		
 		// Repaints and revalidates
 		this.repaint();
 		this.revalidate();
-		
-		// Adds high score to leaderboard document
-		addHighScore(Main.titleFrame.currUsername, score);
-		
+	
 	}
 
 }
@@ -0,0 +1,236 @@
+package dev.jacobeager;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.BorderFactory;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+
+
+/**
+ * This class is the grid of letter boxes in Wordle. The grid is built once and reused for
+ * every round: starting a new round clears the letters and colors in place, only touching
+ * the boxes that were used, so only those boxes are repainted.
+ *
+ * The board keeps track of which rows have been opened, and how long the last reset took
+ * to be painted, so a new round can be checked to show up within a frame.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordleBoard extends JPanel {
+	
+	// Version ID
+	private static final long serialVersionUID = -3384925017733184561L;
+	
+	// Size of the board
+	public static final int ROWS = 6;
+	public static final int COLUMNS = WordleScorer.WORD_LENGTH;
+	
+	/**
+	 * How long one frame lasts at 60 frames per second, in nanoseconds.
+	 */
+	public static final long FRAME_NANOS = 16_666_667L;
+	
+	private static final Font LETTER_FONT = new Font("Arial", Font.BOLD, 20);
+	
+	// How long each reset takes to be painted, and how many took longer than a frame
+	private static final LatencyHistogram RESETS = Metrics.histogram("edt.wordleBoardReset");
+	private static final LongAdder SLOW_RESETS = Metrics.counter("edt.wordleBoardReset.slow");
+	
+	// Letter boxes, row by row
+	private final JTextField[] boxes = new JTextField[ROWS * COLUMNS];
+	
+	// Colors of an untouched box (the look and feel shades closed boxes differently)
+	private final Color openBackground, closedBackground, defaultCaret;
+	
+	/**
+	 * The last row that has been opened for typing. Rows after it haven't been touched since
+	 * the last reset.
+	 */
+	private int lastOpenRow = 0;
+	
+	/**
+	 * How long the last reset took, from starting to clear the board until the changes were
+	 * painted, in nanoseconds. 0 until the first reset.
+	 */
+	private volatile long lastResetNanos = 0;
+	
+	/**
+	 * Builds the grid with only the first row open.
+	 */
+	public WordleBoard() {
+		
+		this.setLayout(new GridLayout(ROWS, COLUMNS, 5, 5));
+		this.setPreferredSize(new Dimension(300,400));
+		this.setBorder(BorderFactory.createEtchedBorder(Color.BLACK, Color.DARK_GRAY));
+		
+		for (int i = 0; i < boxes.length; ++i) {
+			boxes[i] = new JTextField();
+			boxes[i].setHorizontalAlignment(JTextField.CENTER);
+			boxes[i].setFont(LETTER_FONT);
+			boxes[i].setEditable(i < COLUMNS);
+			this.add(boxes[i]);
+		}
+		
+		openBackground = boxes[0].getBackground();
+		closedBackground = boxes[COLUMNS].getBackground();
+		defaultCaret = boxes[0].getCaretColor();
+	}
+	
+	/**
+	 * Returns whether a row holds a guess: one letter from a to z in every box.
+	 * @param row the row, from 0 to 5
+	 * @return true if the row can be guessed
+	 */
+	public boolean isValidGuess(int row) {
+		for (int i = row * COLUMNS; i < (row + 1) * COLUMNS; ++i) {
+			String text = boxes[i].getText();
+			if (text.length() != 1) {
+				return false;
+			}
+			char letter = Character.toLowerCase(text.charAt(0));
+			if (letter < 'a' || letter > 'z') {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Packs the letters in one row into a word code. The row must be valid.
+	 * @param row the row, from 0 to 5
+	 * @return the code of the guessed word
+	 */
+	public int getGuessCode(int row) {
+		int code = 0;
+		for (int i = 0; i < COLUMNS; ++i) {
+			int letter = Character.toLowerCase(boxes[i + (row * COLUMNS)].getText().charAt(0)) - 'a';
+			code |= letter << (5 * i);
+		}
+		return code;
+	}
+	
+	/**
+	 * Fills the letters of a word into a row, if the row is still open.
+	 * @param row the row, from 0 to 5
+	 * @param code the code of the word
+	 */
+	public void setWord(int row, int code) {
+		if (!isRowOpen(row)) {
+			return;
+		}
+		for (int i = 0; i < COLUMNS; ++i) {
+			boxes[i + (row * COLUMNS)].setText(
+					String.valueOf((char) ('a' + WordleScorer.letterAt(code, i))));
+		}
+	}
+	
+	/**
+	 * Colors in one row from a pattern code and closes it.
+	 * @param row the row, from 0 to 5
+	 * @param pattern the pattern code from WordleScorer
+	 */
+	public void showPattern(int row, int pattern) {
+		
+		for (int i = 0; i < COLUMNS; ++i) {
+			
+			Color color;
+			switch (WordleScorer.colorAt(pattern, i)) {
+				case WordleScorer.GREEN:
+					color = Color.GREEN;
+					break;
+				
+				case WordleScorer.YELLOW:
+					color = Color.YELLOW;
+					break;
+				
+				default:
+					color = Color.GRAY;
+					break;
+			}
+			
+			boxes[i + (row * COLUMNS)].setEditable(false);
+			boxes[i + (row * COLUMNS)].setBackground(color);
+			boxes[i + (row * COLUMNS)].setCaretColor(color);
+		}
+	}
+	
+	/**
+	 * Colors every box in a row the same, like for the last guess of a round.
+	 * @param row the row, from 0 to 5
+	 * @param color the color
+	 */
+	public void fillRow(int row, Color color) {
+		for (int i = row * COLUMNS; i < (row + 1) * COLUMNS; ++i) {
+			boxes[i].setBackground(color);
+		}
+	}
+	
+	/**
+	 * Opens a row for typing.
+	 * @param row the row, from 0 to 5
+	 */
+	public void openRow(int row) {
+		for (int i = row * COLUMNS; i < (row + 1) * COLUMNS; ++i) {
+			boxes[i].setEditable(true);
+		}
+		lastOpenRow = Math.max(lastOpenRow, row);
+	}
+	
+	/**
+	 * Returns whether a row is open for typing.
+	 * @param row the row, from 0 to 5
+	 * @return true if the row can be typed in
+	 */
+	public boolean isRowOpen(int row) {
+		return boxes[row * COLUMNS].isEditable();
+	}
+	
+	/**
+	 * Clears the board for a new round, only resetting boxes that have changed, and times how
+	 * long it takes for the cleared board to be painted. Must be called on the event thread.
+	 */
+	public void reset() {
+		
+		long start = System.nanoTime();
+		
+		// Rows after the last one opened were never touched
+		for (int i = 0; i < (lastOpenRow + 1) * COLUMNS; ++i) {
+			JTextField box = boxes[i];
+			if (!box.getText().isEmpty()) {
+				box.setText("");
+			}
+			box.setEditable(i < COLUMNS);
+			Color background = i < COLUMNS ? openBackground : closedBackground;
+			if (!background.equals(box.getBackground())) {
+				box.setBackground(background);
+				box.setCaretColor(defaultCaret);
+			}
+		}
+		lastOpenRow = 0;
+		
+		// Repaints queued by the reset run before this does
+		SwingUtilities.invokeLater(() -> {
+			lastResetNanos = System.nanoTime() - start;
+			RESETS.record(lastResetNanos);
+			if (lastResetNanos > FRAME_NANOS) {
+				SLOW_RESETS.increment();
+			}
+		});
+	}
+	
+	/**
+	 * Returns how long the last reset took to be painted.
+	 * @return the time in nanoseconds, or 0 if the board hasn't been reset
+	 */
+	public long getLastResetNanos() {
+		return lastResetNanos;
+	}
+}
@@ -0,0 +1,93 @@
+package dev.jacobeager;
+
+
+/**
+ * This class plays Wordle with a WordleSolver. Every round opens with the same word, the 
+ * one with the most information over the whole vocabulary, which is worked out once and 
+ * shared. After that each guess is the solver's quick guess, which doesn't use other 
+ * threads, so many bots can play at once without getting in each other's way.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordleBot implements GameBot {
+	
+	// The opening guess for the vocabulary last used, shared by every bot
+	private static WordleScorer openingScorer;
+	private static int openingCode;
+	
+	// How long the opening guess can take to work out, in nanoseconds
+	private static final long OPENING_BUDGET_NANOS = 10_000_000_000L;
+	
+	// How many possible answers each guess after the first tries
+	private static final int TRIES = 64;
+	
+	private final WordleScorer scorer;
+	private final WordleSolver solver;
+	
+	/**
+	 * How many guesses of the current round the solver has been narrowed by.
+	 */
+	private int narrowed = 0;
+	
+	/**
+	 * Creates a bot.
+	 * @param scorer the vocabulary the game uses
+	 */
+	public WordleBot(WordleScorer scorer) {
+		this.scorer = scorer;
+		this.solver = new WordleSolver(scorer);
+	}
+	
+	@Override
+	public String nextInput(String snapshot) {
+		
+		// Fewer guesses than last time means a new round has started
+		int guesses = SnapshotReader.count(snapshot, "word");
+		if (guesses < narrowed) {
+			solver.reset();
+			narrowed = 0;
+		}
+		
+		// Narrows by each guess not seen yet
+		int at = 0;
+		for (int i = 0; i < guesses; ++i) {
+			at = SnapshotReader.valueStart(snapshot, "word", at);
+			if (i >= narrowed) {
+				int guessCode = WordleScorer.encode(SnapshotReader.getStringAt(snapshot, at));
+				solver.narrow(guessCode, patternOf(SnapshotReader.getString(snapshot, "colors", at)));
+			}
+		}
+		narrowed = guesses;
+		
+		int code = guesses == 0 ? openingFor(scorer) : solver.quickGuess(TRIES);
+		return WordleScorer.decode(code < 0 ? openingFor(scorer) : code);
+	}
+	
+	/**
+	 * Returns the opening guess for a vocabulary, working it out the first time.
+	 * @param scorer the vocabulary
+	 * @return the code of the guess
+	 */
+	private static synchronized int openingFor(WordleScorer scorer) {
+		if (scorer != openingScorer) {
+			openingCode = new WordleSolver(scorer).bestGuess(OPENING_BUDGET_NANOS);
+			openingScorer = scorer;
+		}
+		return openingCode;
+	}
+	
+	/**
+	 * Turns the colors of a guess in a snapshot back into a pattern code.
+	 * @param colors the colors, like "--YG-"
+	 * @return the pattern code
+	 */
+	private static int patternOf(String colors) {
+		int pattern = 0;
+		for (int position = WordleScorer.WORD_LENGTH - 1; position >= 0; --position) {
+			pattern = pattern * 3 + "-YG".indexOf(colors.charAt(position));
+		}
+		return pattern;
+	}
+}
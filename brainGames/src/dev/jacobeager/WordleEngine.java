@@ -0,0 +1,200 @@
+package dev.jacobeager;
+
+import java.util.Random;
+
+
+/**
+ * This class is the rules of Wordle without any windows. Each round a hidden word is picked 
+ * from the scorer's vocabulary and the player has six guesses. Any five letters can be 
+ * guessed. Guesses and their patterns are kept as ints, so submitting a guess doesn't 
+ * allocate.
+ * 
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordleEngine implements GameSession {
+	
+	/**
+	 * The number of guesses in a round.
+	 */
+	public static final int MAX_GUESSES = WordleBoard.ROWS;
+	
+	// How long scoring a guess takes, including picking the next word when it wins
+	private static final LatencyHistogram GUESSES = Metrics.histogram("guess.wordle");
+	
+	/**
+	 * The scorer for the word bank last loaded, shared by every game until the bank changes.
+	 */
+	private static WordleScorer sharedScorer;
+	private static WordBank scoredBank;
+	
+	private final WordleScorer scorer;
+	private final Random random;
+	
+	/**
+	 * The hidden word packed into an int by WordleScorer.
+	 */
+	private int answerCode;
+	
+	// The guesses made this round and their patterns
+	private final int[] guessCodes = new int[MAX_GUESSES];
+	private final int[] patterns = new int[MAX_GUESSES];
+	private int numGuesses = 0;
+	
+	private int score = 0;
+	private boolean over = false;
+	
+	/**
+	 * The pattern of the last guess, kept when a round is won and the next one starts.
+	 */
+	private int lastPattern = -1;
+	
+	/**
+	 * Creates a game. start has to be called before it's played.
+	 * @param scorer the vocabulary the hidden words come from
+	 * @param random picks the hidden words
+	 */
+	public WordleEngine(WordleScorer scorer, Random random) {
+		this.scorer = scorer;
+		this.random = random;
+	}
+	
+	/**
+	 * Returns the scorer for a word bank, only building it again if the bank has changed 
+	 * since the last game.
+	 * @param bank the word bank
+	 * @return the scorer
+	 */
+	public static synchronized WordleScorer scorerFor(WordBank bank) {
+		if (bank != scoredBank) {
+			sharedScorer = new WordleScorer(bank);
+			scoredBank = bank;
+		}
+		return sharedScorer;
+	}
+	
+	@Override
+	public void start() {
+		score = 0;
+		over = false;
+		lastPattern = -1;
+		startRound();
+	}
+	
+	@Override
+	public int submit(CharSequence input) {
+		return submitCode(WordleScorer.encode(input));
+	}
+	
+	/**
+	 * Submits a guess that has already been packed into an int.
+	 * @param guessCode the guess, or -1 for an invalid guess
+	 * @return the same results as submit
+	 */
+	public int submitCode(int guessCode) {
+		long start = System.nanoTime();
+		int result = play(guessCode);
+		GUESSES.recordSince(start);
+		return result;
+	}
+	
+	/**
+	 * Scores a guess and moves the game on.
+	 * @param guessCode the guess, or -1 for an invalid guess
+	 * @return the same results as submit
+	 */
+	private int play(int guessCode) {
+		
+		if (over || guessCode < 0) {
+			return INVALID;
+		}
+		
+		lastPattern = WordleScorer.score(guessCode, answerCode);
+		guessCodes[numGuesses] = guessCode;
+		patterns[numGuesses] = lastPattern;
+		++numGuesses;
+		
+		if (lastPattern == WordleScorer.ALL_GREEN) {
+			++score;
+			startRound();
+			return ROUND_WON;
+		}
+		if (numGuesses == MAX_GUESSES) {
+			over = true;
+			return GAME_OVER;
+		}
+		return CONTINUE;
+	}
+	
+	/**
+	 * Returns the pattern of the last guess submitted.
+	 * @return the pattern code from WordleScorer, or -1 if nothing has been guessed
+	 */
+	public int getLastPattern() {
+		return lastPattern;
+	}
+	
+	/**
+	 * Returns the number of guesses made in the current round.
+	 * @return the number of guesses, from 0 to 6
+	 */
+	public int getGuessCount() {
+		return numGuesses;
+	}
+	
+	/**
+	 * Returns the hidden word of the current round.
+	 * @return the code of the word
+	 */
+	public int getAnswerCode() {
+		return answerCode;
+	}
+	
+	@Override
+	public int getScore() {
+		return score;
+	}
+	
+	@Override
+	public boolean isOver() {
+		return over;
+	}
+	
+	@Override
+	public StringBuilder appendSnapshot(StringBuilder sb) {
+		
+		sb.append("{\"game\":\"wordle\",\"score\":").append(score);
+		sb.append(",\"over\":").append(over);
+		sb.append(",\"guesses\":[");
+		for (int i = 0; i < numGuesses; ++i) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"word\":\"");
+			for (int position = 0; position < WordleScorer.WORD_LENGTH; ++position) {
+				sb.append((char) ('a' + WordleScorer.letterAt(guessCodes[i], position)));
+			}
+			sb.append("\",\"colors\":\"");
+			for (int position = 0; position < WordleScorer.WORD_LENGTH; ++position) {
+				sb.append("-YG".charAt(WordleScorer.colorAt(patterns[i], position)));
+			}
+			sb.append("\"}");
+		}
+		sb.append(']');
+		
+		// The answer is only given away once it can't be guessed any more
+		if (over) {
+			sb.append(",\"answer\":\"").append(WordleScorer.decode(answerCode)).append('"');
+		}
+		return sb.append('}');
+	}
+	
+	/**
+	 * Picks a new hidden word and clears the guesses.
+	 */
+	private void startRound() {
+		answerCode = scorer.codeAt(random.nextInt(scorer.size()));
+		numGuesses = 0;
+	}
+}
@@ -0,0 +1,228 @@
+package dev.jacobeager;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * This class scores Wordle guesses. Words are packed into an int (5 bits per letter, first
+ * letter in the lowest bits) and the feedback for a guess is a base-3 pattern code, with one
+ * digit per letter: 0 for gray, 1 for yellow and 2 for green. The first letter is the lowest
+ * digit, so the pattern for an all-green guess is 242.
+ *
+ * Scoring doesn't allocate, so it can be called millions of times per second by solvers.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordleScorer {
+	
+	/**
+	 * The number of letters in a word.
+	 */
+	public static final int WORD_LENGTH = 5;
+	
+	/**
+	 * The number of possible patterns (3 to the power of 5).
+	 */
+	public static final int PATTERN_COUNT = 243;
+	
+	/**
+	 * The pattern for a correct guess.
+	 */
+	public static final int ALL_GREEN = PATTERN_COUNT - 1;
+	
+	// Pattern digit values
+	public static final int GRAY = 0;
+	public static final int YELLOW = 1;
+	public static final int GREEN = 2;
+	
+	// Powers of 3, the weight of each letter's digit
+	private static final int[] POWERS = {1, 3, 9, 27, 81};
+	
+	/**
+	 * The vocabulary, in the order it was given.
+	 */
+	private final int[] codes;
+	
+	/**
+	 * The vocabulary sorted by code, for looking up guesses, and the index of each
+	 * sorted code in the vocabulary.
+	 */
+	private final int[] sortedCodes, sortedIndices;
+	
+	/**
+	 * Encodes a vocabulary. Words that aren't five letters are left out.
+	 * @param words the vocabulary
+	 */
+	public WordleScorer(List<String> words) {
+		
+		int[] encoded = new int[words.size()];
+		int count = 0;
+		for (String word : words) {
+			int code = encode(word);
+			if (code >= 0) {
+				encoded[count++] = code;
+			}
+		}
+		
+		codes = Arrays.copyOf(encoded, count);
+		
+		// Sorts code and index pairs together by packing them into longs
+		long[] pairs = new long[count];
+		for (int i = 0; i < count; ++i) {
+			pairs[i] = ((long) codes[i] << 32) | i;
+		}
+		Arrays.sort(pairs);
+		
+		sortedCodes = new int[count];
+		sortedIndices = new int[count];
+		for (int i = 0; i < count; ++i) {
+			sortedCodes[i] = (int) (pairs[i] >>> 32);
+			sortedIndices[i] = (int) pairs[i];
+		}
+	}
+	
+	/**
+	 * Packs a five letter word into an int. Upper and lower case letters are treated the same.
+	 * @param word the word to encode
+	 * @return the code, or -1 if the word isn't five letters
+	 */
+	public static int encode(CharSequence word) {
+		
+		if (word.length() != WORD_LENGTH) {
+			return -1;
+		}
+		
+		int code = 0;
+		for (int i = 0; i < WORD_LENGTH; ++i) {
+			int letter = Character.toLowerCase(word.charAt(i)) - 'a';
+			if (letter < 0 || letter >= 26) {
+				return -1;
+			}
+			code |= letter << (5 * i);
+		}
+		return code;
+	}
+	
+	/**
+	 * Unpacks a word code back into a string.
+	 * @param code the code
+	 * @return the lower case word
+	 */
+	public static String decode(int code) {
+		char[] letters = new char[WORD_LENGTH];
+		for (int i = 0; i < WORD_LENGTH; ++i) {
+			letters[i] = (char) ('a' + letterAt(code, i));
+		}
+		return new String(letters);
+	}
+	
+	/**
+	 * Returns one letter of a word code, from 0 (a) to 25 (z).
+	 * @param code the word code
+	 * @param position the letter position, from 0 to 4
+	 * @return the letter
+	 */
+	public static int letterAt(int code, int position) {
+		return (code >>> (5 * position)) & 31;
+	}
+	
+	/**
+	 * Scores a guess against an answer. A letter is green if it's in the right spot. Otherwise
+	 * it's yellow if the answer has more of that letter (outside of green spots) than there
+	 * are yellow copies of it earlier in the guess, and gray if not.
+	 * @param guess the code of the guessed word
+	 * @param answer the code of the hidden word
+	 * @return the pattern code, from 0 to 242
+	 */
+	public static int score(int guess, int answer) {
+		
+		// Marks green letters first, since they use up a copy of the letter
+		int greens = 0;
+		for (int i = 0; i < WORD_LENGTH; ++i) {
+			if (letterAt(guess, i) == letterAt(answer, i)) {
+				greens |= 1 << i;
+			}
+		}
+		
+		int pattern = 0;
+		for (int i = 0; i < WORD_LENGTH; ++i) {
+			
+			if ((greens & (1 << i)) != 0) {
+				pattern += GREEN * POWERS[i];
+				continue;
+			}
+			
+			int letter = letterAt(guess, i);
+			
+			// Copies of the letter in the answer that aren't already green
+			int available = 0;
+			for (int j = 0; j < WORD_LENGTH; ++j) {
+				if ((greens & (1 << j)) == 0 && letterAt(answer, j) == letter) {
+					++available;
+				}
+			}
+			
+			// Copies of the letter earlier in the guess that took one of them
+			int used = 0;
+			for (int j = 0; j < i; ++j) {
+				if ((greens & (1 << j)) == 0 && letterAt(guess, j) == letter) {
+					++used;
+				}
+			}
+			
+			if (used < available) {
+				pattern += YELLOW * POWERS[i];
+			}
+		}
+		return pattern;
+	}
+	
+	/**
+	 * Returns one letter's color from a pattern code.
+	 * @param pattern the pattern code
+	 * @param position the letter position, from 0 to 4
+	 * @return GRAY, YELLOW or GREEN
+	 */
+	public static int colorAt(int pattern, int position) {
+		return (pattern / POWERS[position]) % 3;
+	}
+	
+	/**
+	 * Returns whether a code is in the vocabulary.
+	 * @param code the word code
+	 * @return true if the word is in the vocabulary
+	 */
+	public boolean isWord(int code) {
+		return Arrays.binarySearch(sortedCodes, code) >= 0;
+	}
+	
+	/**
+	 * Finds where a word is in the vocabulary.
+	 * @param code the word code
+	 * @return the index of the word, or -1 if it isn't in the vocabulary
+	 */
+	public int indexOf(int code) {
+		int position = Arrays.binarySearch(sortedCodes, code);
+		return position >= 0 ? sortedIndices[position] : -1;
+	}
+	
+	/**
+	 * Returns the number of words in the vocabulary.
+	 * @return the vocabulary size
+	 */
+	public int size() {
+		return codes.length;
+	}
+	
+	/**
+	 * Returns the code of a word in the vocabulary.
+	 * @param index the index of the word
+	 * @return the word code
+	 */
+	public int codeAt(int index) {
+		return codes[index];
+	}
+}
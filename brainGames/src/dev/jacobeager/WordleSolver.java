@@ -0,0 +1,225 @@
+package dev.jacobeager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+
+/**
+ * This class suggests Wordle guesses. It keeps the words that could still be the answer as a
+ * bitset over the vocabulary, narrowing it after each guess, and suggests the guess that is
+ * expected to give the most information (the highest entropy over the patterns it could get).
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WordleSolver {
+
+	/**
+	 * The vocabulary.
+	 */
+	private final WordleScorer scorer;
+
+	/**
+	 * Precomputed patterns, or null if patterns are scored as needed.
+	 */
+	private volatile FeedbackMatrix matrix;
+
+	/**
+	 * The indices of the words that could still be the answer.
+	 */
+	private final BitSet candidates;
+
+	/**
+	 * Pattern counts reused by quickGuess.
+	 */
+	private final int[] patternCounts = new int[WordleScorer.PATTERN_COUNT];
+
+	/**
+	 * Creates a solver with every word as a possible answer.
+	 * @param scorer the vocabulary
+	 */
+	public WordleSolver(WordleScorer scorer) {
+		this.scorer = scorer;
+		candidates = new BitSet(scorer.size());
+		reset();
+	}
+
+	/**
+	 * Makes the solver look patterns up in a feedback matrix instead of scoring them.
+	 * @param matrix the matrix for the same vocabulary
+	 */
+	public void useMatrix(FeedbackMatrix matrix) {
+		if (matrix.size() != scorer.size()) {
+			throw new IllegalArgumentException("Matrix doesn't match the vocabulary");
+		}
+		this.matrix = matrix;
+	}
+
+	/**
+	 * Makes every word a possible answer again, for a new round.
+	 */
+	public synchronized void reset() {
+		candidates.set(0, scorer.size());
+	}
+
+	/**
+	 * Removes every candidate that wouldn't have given a pattern for a guess.
+	 * @param guess the code of the guessed word
+	 * @param pattern the pattern shown for the guess
+	 */
+	public synchronized void narrow(int guess, int pattern) {
+
+		int guessIndex = scorer.indexOf(guess);
+		FeedbackMatrix patterns = matrix;
+
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			int candidatePattern = patterns != null && guessIndex >= 0
+					? patterns.pattern(guessIndex, i)
+					: WordleScorer.score(guess, scorer.codeAt(i));
+			if (candidatePattern != pattern) {
+				candidates.clear(i);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of words that could still be the answer.
+	 * @return the candidate count
+	 */
+	public synchronized int candidateCount() {
+		return candidates.cardinality();
+	}
+
+	/**
+	 * Finds the guess with the highest expected information. Possible answers are scored
+	 * first, then the rest of the vocabulary while time is left. Guesses are scored in
+	 * parallel, and any not scored by the deadline are skipped.
+	 * @param budgetNanos how long to spend, in nanoseconds
+	 * @return the code of the suggested word, or -1 if no word fits the feedback
+	 */
+	public int bestGuess(long budgetNanos) {
+
+		long deadline = System.nanoTime() + budgetNanos;
+
+		int[] remaining;
+		synchronized (this) {
+			remaining = candidates.stream().toArray();
+		}
+
+		// With two or fewer left, guessing one of them is best
+		if (remaining.length == 0) {
+			return -1;
+		}
+		if (remaining.length <= 2) {
+			return scorer.codeAt(remaining[0]);
+		}
+
+		// Scores the possible answers, then every other word
+		double[] entropies = new double[scorer.size()];
+		Arrays.fill(entropies, Double.NEGATIVE_INFINITY);
+		FeedbackMatrix patterns = matrix;
+
+		IntStream.of(remaining).parallel()
+				.forEach(guess -> entropies[guess] = entropyOf(guess, remaining, patterns, deadline));
+
+		if (System.nanoTime() < deadline) {
+			IntStream.range(0, scorer.size()).parallel()
+					.filter(guess -> entropies[guess] == Double.NEGATIVE_INFINITY)
+					.forEach(guess -> entropies[guess] = entropyOf(guess, remaining, patterns, deadline));
+		}
+
+		// Picks the best, preferring words that could be the answer when tied
+		int best = remaining[0];
+		double bestScore = Double.NEGATIVE_INFINITY;
+		int next = 0;
+		for (int guess = 0; guess < entropies.length; ++guess) {
+			boolean isCandidate = next < remaining.length && remaining[next] == guess;
+			if (isCandidate) {
+				++next;
+			}
+			double score = entropies[guess] + (isCandidate ? 1e-9 : 0);
+			if (score > bestScore) {
+				bestScore = score;
+				best = guess;
+			}
+		}
+		return scorer.codeAt(best);
+	}
+
+	/**
+	 * Finds a good guess quickly, on this thread and without allocating. Only the first few
+	 * words that could be the answer are tried as guesses, each scored against every word
+	 * that could be the answer, so it's quick enough to call for many games at once.
+	 * @param tries the most words to try as guesses
+	 * @return the code of the suggested word, or -1 if no word fits the feedback
+	 */
+	public synchronized int quickGuess(int tries) {
+
+		int first = candidates.nextSetBit(0);
+		if (first < 0) {
+			return -1;
+		}
+
+		int best = first;
+		double bestSum = Double.POSITIVE_INFINITY;
+		int tried = 0;
+		for (int guess = first; guess >= 0 && tried < tries; guess = candidates.nextSetBit(guess + 1), ++tried) {
+
+			Arrays.fill(patternCounts, 0);
+			int guessCode = scorer.codeAt(guess);
+			for (int i = first; i >= 0; i = candidates.nextSetBit(i + 1)) {
+				++patternCounts[WordleScorer.score(guessCode, scorer.codeAt(i))];
+			}
+
+			// The lowest sum of c * log(c) has the highest entropy, since n is the same for all
+			double sum = 0;
+			for (int count : patternCounts) {
+				if (count > 1) {
+					sum += count * Math.log(count);
+				}
+			}
+			if (sum < bestSum) {
+				bestSum = sum;
+				best = guess;
+			}
+		}
+		return scorer.codeAt(best);
+	}
+
+	/**
+	 * Works out the entropy, in bits, of the patterns a guess could get against the
+	 * remaining candidates.
+	 * @param guess the index of the guess
+	 * @param remaining the indices of the candidates
+	 * @param patterns the feedback matrix, or null to score patterns
+	 * @param deadline the time after which guesses are skipped
+	 * @return the entropy, or negative infinity if the deadline passed
+	 */
+	private double entropyOf(int guess, int[] remaining, FeedbackMatrix patterns, long deadline) {
+
+		if (System.nanoTime() > deadline) {
+			return Double.NEGATIVE_INFINITY;
+		}
+
+		int[] counts = new int[WordleScorer.PATTERN_COUNT];
+		int guessCode = scorer.codeAt(guess);
+		for (int candidate : remaining) {
+			int pattern = patterns != null
+					? patterns.pattern(guess, candidate)
+					: WordleScorer.score(guessCode, scorer.codeAt(candidate));
+			++counts[pattern];
+		}
+
+		// H = log2(n) - (sum of c * log2(c)) / n
+		double sum = 0;
+		for (int count : counts) {
+			if (count > 1) {
+				sum += count * Math.log(count);
+			}
+		}
+		int n = remaining.length;
+		return (Math.log(n) - sum / n) / Math.log(2);
+	}
+}
@@ -0,0 +1,527 @@
+package dev.jacobeager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+
+/**
+ * This class is an append-only file of records that survives the program being killed
+ * partway through a write. Each record is framed by its length and a CRC32 checksum of its
+ * contents, so a record that was only partly written can be told apart from a whole one.
+ * When a log is opened, every record is checked and anything after the last whole record
+ * (a torn write) is cut off, so the file always holds only complete records. A damaged
+ * record with whole records after it can't be a torn write, so the log refuses to open
+ * rather than lose them.
+ *
+ * Records are committed in groups. Appending only copies a record into memory; committing
+ * writes every record appended so far, by any thread, with one write and at most one force
+ * to disk. Threads that commit while another thread is writing wait for it and then write
+ * everything that built up in the meantime together, so many records share one force.
+ *
+ * @author Jacob Eager
+ * @version 1.0
+ */
+
+public class WriteAheadLog {
+	
+	/**
+	 * The version of the record files that are framed and checksummed. Older versions of a
+	 * store's file hold bare records.
+	 */
+	public static final short VERSION = 2;
+	
+	/**
+	 * Size of the file header in bytes (the owner's magic number and the version).
+	 */
+	public static final int HEADER_SIZE = 6;
+	
+	// Size of the length and checksum in front of each record
+	private static final int FRAME_HEADER_SIZE = 8;
+	
+	// Longest record allowed, so a torn length can't be mistaken for a huge record
+	private static final int MAX_RECORD_LENGTH = 1 << 16;
+	
+	// How much of a damaged file is searched for whole records at a time
+	private static final int SCAN_CHUNK = 1 << 20;
+	
+	// Torn writes cut off when a log is opened, and logs found damaged before their end
+	private static final LongAdder TORN_TAILS = Metrics.counter("wal.tornTails");
+	private static final LongAdder TORN_BYTES = Metrics.counter("wal.tornBytes");
+	private static final LongAdder DAMAGED = Metrics.counter("wal.damaged");
+	
+	private final File file;
+	private final FileChannel channel;
+	
+	// Reads single records. Unlike the channel, an interrupted reader can't close it, so a 
+	// cancelled read doesn't stop the log from being written. Guarded by itself
+	private final RandomAccessFile reader;
+	
+	// Records appended but not yet written, guarded by this
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	
+	/**
+	 * Where the log ends: including records still waiting to be written, only records
+	 * written to the file, and only records forced to disk.
+	 */
+	private long appendedLength, writtenLength, durableLength;
+	
+	/**
+	 * Whether a thread is writing a group of records.
+	 */
+	private boolean writing = false;
+	
+	/**
+	 * Whether a write failed. The records after it are lost and the log can't be used until
+	 * it's opened again, which cuts off anything that was partly written.
+	 */
+	private boolean failed = false;
+	
+	/**
+	 * Opens a log, checking every record and cutting off a torn write at the end.
+	 * @param file the log file, which must exist
+	 * @param magic the number the owner of the log starts its file with
+	 * @throws IOException if the file can't be read or written
+	 * @throws InvalidFormatException if the file isn't a log of this version
+	 */
+	public WriteAheadLog(File file, int magic) throws IOException, InvalidFormatException {
+		
+		if (readVersion(file, magic) != VERSION) {
+			throw new InvalidFormatException();
+		}
+		
+		this.file = file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		try {
+			reader = new RandomAccessFile(file, "r");
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+		try {
+			recover();
+		}
+		catch (IOException | InvalidFormatException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Creates a new log holding some records, replacing the file in a single move.
+	 * @param file the log file
+	 * @param magic the number the owner of the log starts its file with
+	 * @param records the records, in order
+	 * @throws IOException if the file can't be written
+	 */
+	public static void create(File file, int magic, List<byte[]> records) throws IOException {
+		
+		checkLengths(records);
+		
+		// Writes to a temporary file first so a failed write leaves the old file alone
+		File tempFile = new File(file.getPath() + ".tmp");
+		
+		try (FileOutputStream fileByteStream = new FileOutputStream(tempFile)) {
+			DataOutputStream outFS = new DataOutputStream(new BufferedOutputStream(fileByteStream));
+			outFS.writeInt(magic);
+			outFS.writeShort(VERSION);
+			for (byte[] record : records) {
+				writeFrame(outFS, record);
+			}
+			outFS.flush();
+			fileByteStream.getFD().sync();
+		}
+		catch (IOException e) {
+			tempFile.delete();
+			throw e;
+		}
+		
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Reads the version from the header of a file.
+	 * @param file the file
+	 * @param magic the number the file should start with
+	 * @return the version
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if the file doesn't start with the magic number
+	 */
+	public static short readVersion(File file, int magic) throws IOException, InvalidFormatException {
+		try (DataInputStream inFS = new DataInputStream(new FileInputStream(file))) {
+			if (inFS.readInt() != magic) {
+				throw new InvalidFormatException();
+			}
+			return inFS.readShort();
+		}
+		catch (EOFException e) {
+			throw new InvalidFormatException();
+		}
+	}
+	
+	/**
+	 * Adds records to the end of the log. They aren't in the file until they're committed.
+	 * @param records the records, in order
+	 * @return where the log ends after the records, to be passed to commit
+	 */
+	public synchronized long append(List<byte[]> records) {
+		
+		checkLengths(records);
+		DataOutputStream outFS = new DataOutputStream(pending);
+		try {
+			for (byte[] record : records) {
+				writeFrame(outFS, record);
+				appendedLength += FRAME_HEADER_SIZE + record.length;
+			}
+		}
+		catch (IOException e) {
+			// Writing to memory doesn't fail
+			throw new IllegalStateException(e);
+		}
+		
+		return appendedLength;
+	}
+	
+	/**
+	 * Waits until the log has been written up to a point, writing it if no other thread is.
+	 * Everything appended by the time the write starts goes in the same write.
+	 * @param end where the log should be written up to, from append
+	 * @param force true to also wait until it's on disk
+	 * @throws IOException if the log can't be written
+	 */
+	public void commit(long end, boolean force) throws IOException {
+		
+		byte[] group;
+		long start;
+		
+		synchronized (this) {
+			while (true) {
+				if (failed) {
+					throw new IOException("An earlier write to " + file + " failed");
+				}
+				if (writtenLength >= end && (!force || durableLength >= end)) {
+					return;
+				}
+				if (!writing) {
+					break;
+				}
+				
+				// Another thread is writing, so this one's records go in the next group
+				try {
+					wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+			}
+			
+			writing = true;
+			group = pending.toByteArray();
+			pending.reset();
+			start = writtenLength;
+		}
+		
+		boolean written = false;
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(group);
+			long position = start;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			if (force) {
+				channel.force(false);
+			}
+			written = true;
+		}
+		finally {
+			synchronized (this) {
+				writing = false;
+				if (written) {
+					writtenLength = start + group.length;
+					if (force) {
+						durableLength = writtenLength;
+					}
+				}
+				else {
+					failed = true;
+				}
+				notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Returns where the records written to the file end. Only records before this can be
+	 * read.
+	 * @return the length in bytes
+	 */
+	public synchronized long getWrittenLength() {
+		return writtenLength;
+	}
+	
+	/**
+	 * Reads one record.
+	 * @param offset where the record's frame starts, as given to a RecordVisitor
+	 * @return the record
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if there isn't a whole record at the offset
+	 */
+	public byte[] read(long offset) throws IOException, InvalidFormatException {
+		
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+		readFully(frame, offset);
+		int length = frame.getInt(0);
+		if (length <= 0 || length > MAX_RECORD_LENGTH) {
+			throw new InvalidFormatException();
+		}
+		
+		byte[] record = new byte[length];
+		readFully(ByteBuffer.wrap(record), offset + FRAME_HEADER_SIZE);
+		return record;
+	}
+	
+	/**
+	 * Reads every written record from a point onwards, in order, checking each checksum.
+	 * @param from where to start, either HEADER_SIZE or the end of an earlier record
+	 * @param visitor called with each record
+	 * @return where the records read end
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if a record is damaged
+	 */
+	public long forEach(long from, RecordVisitor visitor) throws IOException, InvalidFormatException {
+		
+		long end = getWrittenLength();
+		
+		try (FileInputStream fileByteStream = new FileInputStream(file)) {
+			fileByteStream.getChannel().position(from);
+			DataInputStream inFS = new DataInputStream(new BufferedInputStream(fileByteStream));
+			
+			CRC32 crc = new CRC32();
+			byte[] record = new byte[256];
+			long offset = from;
+			while (offset < end) {
+				int length = inFS.readInt();
+				int checksum = inFS.readInt();
+				if (length <= 0 || length > MAX_RECORD_LENGTH) {
+					throw new InvalidFormatException();
+				}
+				if (length > record.length) {
+					record = new byte[Math.max(length, record.length * 2)];
+				}
+				inFS.readFully(record, 0, length);
+				
+				crc.reset();
+				crc.update(record, 0, length);
+				if ((int) crc.getValue() != checksum) {
+					throw new InvalidFormatException();
+				}
+				
+				visitor.visit(offset, ByteBuffer.wrap(record, 0, length));
+				offset += FRAME_HEADER_SIZE + length;
+			}
+			return offset;
+		}
+		catch (EOFException e) {
+			throw new InvalidFormatException();
+		}
+	}
+	
+	/**
+	 * Closes the file. Records that haven't been committed are lost.
+	 * @throws IOException if the file can't be closed
+	 */
+	public void close() throws IOException {
+		try {
+			channel.close();
+		}
+		finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Checks every record and cuts the file off after the last whole one. Only the end of 
+	 * the file can be torn by a write that didn't finish, so if a whole record is found 
+	 * after a damaged one, the damage is in the middle and nothing is cut off.
+	 * @throws IOException if the file can't be read or written
+	 * @throws InvalidFormatException if a record before the end of the file is damaged
+	 */
+	private void recover() throws IOException, InvalidFormatException {
+		
+		long fileLength = channel.size();
+		long valid = HEADER_SIZE;
+		
+		try (DataInputStream inFS = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			inFS.skipNBytes(HEADER_SIZE);
+			
+			CRC32 crc = new CRC32();
+			byte[] record = new byte[256];
+			while (valid + FRAME_HEADER_SIZE <= fileLength) {
+				int length = inFS.readInt();
+				int checksum = inFS.readInt();
+				if (length <= 0 || length > MAX_RECORD_LENGTH
+						|| valid + FRAME_HEADER_SIZE + length > fileLength) {
+					break;
+				}
+				if (length > record.length) {
+					record = new byte[Math.max(length, record.length * 2)];
+				}
+				inFS.readFully(record, 0, length);
+				
+				crc.reset();
+				crc.update(record, 0, length);
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+				valid += FRAME_HEADER_SIZE + length;
+			}
+		}
+		
+		if (valid < fileLength) {
+			
+			// Cutting here would throw away every record after the damage
+			if (hasWholeRecord(valid, fileLength)) {
+				DAMAGED.increment();
+				throw new InvalidFormatException();
+			}
+			
+			// Cuts off the torn write so new records follow the last whole one
+			TORN_TAILS.increment();
+			TORN_BYTES.add(fileLength - valid);
+			channel.truncate(valid);
+			channel.force(false);
+		}
+		
+		appendedLength = writtenLength = durableLength = valid;
+	}
+	
+	/**
+	 * Looks for a whole record anywhere in part of the file, trying every byte as the start 
+	 * of a frame, since the damaged record's length can't be trusted to find the next one. 
+	 * Empty records are skipped, since a torn write can leave zeros and an empty record's 
+	 * checksum is 0. The file is read a chunk at a time rather than mapped, since a mapped 
+	 * file can't be truncated on Windows.
+	 * @param from where to start looking
+	 * @param to where the file ends
+	 * @return true if a record with the right checksum was found
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if the file is shorter than it was
+	 */
+	private boolean hasWholeRecord(long from, long to) throws IOException, InvalidFormatException {
+		
+		// Each chunk is read with room for a whole record starting at its last byte
+		ByteBuffer window = ByteBuffer.allocate(SCAN_CHUNK + FRAME_HEADER_SIZE + MAX_RECORD_LENGTH);
+		CRC32 crc = new CRC32();
+		
+		for (long chunk = from; chunk < to; chunk += SCAN_CHUNK) {
+			window.clear().limit((int) Math.min(window.capacity(), to - chunk));
+			readFully(window, chunk);
+			
+			int starts = (int) Math.min(SCAN_CHUNK, to - chunk);
+			for (int start = 0; start < starts && start + FRAME_HEADER_SIZE < window.limit(); ++start) {
+				int length = window.getInt(start);
+				if (length <= 0 || length > MAX_RECORD_LENGTH 
+						|| start + FRAME_HEADER_SIZE + length > window.limit()) {
+					continue;
+				}
+				crc.reset();
+				crc.update(window.slice(start + FRAME_HEADER_SIZE, length));
+				if ((int) crc.getValue() == window.getInt(start + 4)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Reads bytes from the file until the buffer is full.
+	 * @param buffer the buffer to fill, which must have an array
+	 * @param position where in the file to start
+	 * @throws IOException if the file can't be read
+	 * @throws InvalidFormatException if the file ends first
+	 */
+	private void readFully(ByteBuffer buffer, long position) throws IOException, InvalidFormatException {
+		synchronized (reader) {
+			try {
+				reader.seek(position);
+				reader.readFully(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			}
+			catch (EOFException e) {
+				throw new InvalidFormatException();
+			}
+		}
+		buffer.position(buffer.limit());
+	}
+	
+	/**
+	 * Checks that every record can be framed, before any of them are written.
+	 * @param records the records
+	 * @throws IllegalArgumentException if a record is empty or too long
+	 */
+	private static void checkLengths(List<byte[]> records) {
+		for (byte[] record : records) {
+			
+			// Zeros left by a torn write read as an empty record, so records can't be empty
+			if (record.length == 0 || record.length > MAX_RECORD_LENGTH) {
+				throw new IllegalArgumentException("Record length out of range: " + record.length);
+			}
+		}
+	}
+	
+	/**
+	 * Writes one record with its length and checksum in front.
+	 * @param outFS the stream to write to
+	 * @param record the record
+	 * @throws IOException if the write fails
+	 */
+	private static void writeFrame(DataOutputStream outFS, byte[] record) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(record);
+		outFS.writeInt(record.length);
+		outFS.writeInt((int) crc.getValue());
+		outFS.write(record);
+	}
+	
+	
+	/**
+	 * Something that is given each record read from a log.
+	 *
+	 * @author Jacob Eager
+	 * @version 1.0
+	 */
+	
+	@FunctionalInterface
+	public interface RecordVisitor {
+		
+		/**
+		 * Takes one record. The buffer is reused for the next record, so it shouldn't be kept.
+		 * @param offset where the record's frame starts, which can be passed to read
+		 * @param record the contents of the record
+		 * @throws IOException if the record can't be handled
+		 */
+		void visit(long offset, ByteBuffer record) throws IOException;
+	}
+}
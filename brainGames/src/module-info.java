@@ -6,4 +6,8 @@
  */
 module FinalProject {
 	requires java.desktop;
+	requires java.management;
+	requires java.net.http;
+	requires jdk.httpserver;
+	requires jdk.management;
 }
\ No newline at end of file